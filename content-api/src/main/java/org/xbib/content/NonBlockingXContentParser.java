@@ -0,0 +1,45 @@
+package org.xbib.content;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A parser which does not block on input. Input is fed in chunks as it arrives, and
+ * {@link #nextToken()} returns {@link XContentParser.Token#NOT_AVAILABLE} when the chunks fed so far
+ * do not contain the next token. Then more input must be fed, or the end of input signalled.
+ *
+ * A chunk must not be modified until it is consumed, that is, until {@link #needsInput()} returns true.
+ * Methods which read whole structures, like {@link #map()}, may only be used after the end of input
+ * has been signalled.
+ */
+public interface NonBlockingXContentParser extends XContentParser {
+
+    /**
+     * Return true if all input fed so far has been consumed, and more input can be fed.
+     * @return true if more input can be fed
+     */
+    boolean needsInput();
+
+    /**
+     * Feed a chunk of input.
+     * @param bytes the bytes
+     * @param offset the offset of the chunk
+     * @param length the length of the chunk
+     * @throws IOException if the input can not be accepted
+     * @throws IllegalStateException if the previous chunk has not been consumed yet
+     */
+    void feedInput(byte[] bytes, int offset, int length) throws IOException;
+
+    /**
+     * Feed the remaining bytes of a buffer as a chunk of input. The position of the buffer is moved to its limit.
+     * @param buffer the buffer
+     * @throws IOException if the input can not be accepted
+     * @throws IllegalStateException if the previous chunk has not been consumed yet
+     */
+    void feedInput(ByteBuffer buffer) throws IOException;
+
+    /**
+     * Signal that no more input will be fed.
+     */
+    void endOfInput();
+}
@@ -15,6 +15,37 @@ public interface XContent {
 
     boolean isXContent(byte[] data, int offset, int length);
 
+    /**
+     * Returns the bytes which can start content of this type, after leading white space.
+     * Used for dispatching content type detection on the first significant byte.
+     * Content types returning no bytes are detected by {@link #isXContent(byte[], int, int)} only.
+     *
+     * @return the leading bytes
+     */
+    default byte[] leadingBytes() {
+        return new byte[0];
+    }
+
+    /**
+     * Returns the byte which separates documents in a stream of content of this type,
+     * like the newline in newline-delimited JSON.
+     *
+     * @return the stream separator
+     */
+    default byte streamSeparator() {
+        return (byte) '\n';
+    }
+
+    /**
+     * Returns true if documents of this type can be split at the {@link #streamSeparator() stream separator},
+     * because the separator can not occur within a document.
+     *
+     * @return true if streams of this type can be split at the stream separator
+     */
+    default boolean hasStreamSeparator() {
+        return true;
+    }
+
     /**
      * Creates a new generator using the provided output stream.
      *
@@ -80,4 +111,14 @@ public interface XContent {
      */
     XContentParser createParser(byte[] bytes, int offset, int length) throws IOException;
 
+    /**
+     * Creates a non-blocking parser, which is fed with input as it arrives.
+     *
+     * @return content parser
+     * @throws IOException if creation fails
+     * @throws UnsupportedOperationException if this content type has no non-blocking parser
+     */
+    default NonBlockingXContentParser createNonBlockingParser() throws IOException {
+        throw new UnsupportedOperationException("no non-blocking parser for " + name());
+    }
 }
@@ -23,6 +23,18 @@ public interface XContentGenerator extends Flushable, Closeable {
 
     void writeFieldName(String name) throws IOException;
 
+    /**
+     * Write a field name from a character buffer. Generators which can not write the characters directly
+     * write the name as a string.
+     * @param name the buffer
+     * @param offset the offset of the name in the buffer
+     * @param len the length of the name
+     * @throws IOException if the field name can not be written
+     */
+    default void writeFieldName(char[] name, int offset, int len) throws IOException {
+        writeFieldName(new String(name, offset, len));
+    }
+
     void writeString(String text) throws IOException;
 
     void writeString(char[] text, int offset, int len) throws IOException;
@@ -45,6 +57,27 @@ public interface XContentGenerator extends Flushable, Closeable {
 
     void writeNumber(BigInteger bi) throws IOException;
 
+    /**
+     * Return true if this generator writes numbers as text, and can write the text of a number as it is
+     * by {@link #writeNumber(char[], int, int)}.
+     * @return true if numbers are written as text
+     */
+    default boolean writesNumberText() {
+        return false;
+    }
+
+    /**
+     * Write a number from its text. Generators which do not write numbers as text write the number
+     * as a big decimal.
+     * @param text the buffer
+     * @param offset the offset of the number in the buffer
+     * @param len the length of the number
+     * @throws IOException if the number can not be written
+     */
+    default void writeNumber(char[] text, int offset, int len) throws IOException {
+        writeNumber(new BigDecimal(text, offset, len));
+    }
+
     void writeBoolean(boolean state) throws IOException;
 
     void writeNull() throws IOException;
@@ -72,6 +72,24 @@ public interface XContentParser extends Closeable {
 
     boolean isBase16Checks();
 
+    /**
+     * Return the byte offset of the current token in the content. Only formats where a value
+     * can be parsed on its own, starting at its offset, report offsets.
+     * @return the byte offset, or -1 if not known
+     */
+    default long tokenOffset() {
+        return -1L;
+    }
+
+    /**
+     * Return true if the {@link #textCharacters() text} of a number token is the number as it is written
+     * in the content, so it can be copied to a generator which writes numbers as text without converting it.
+     * @return true if the text of numbers is the text of the content
+     */
+    default boolean hasNumberText() {
+        return false;
+    }
+
     /**
      *
      */
@@ -145,6 +163,14 @@ public interface XContentParser extends Closeable {
             public boolean isValue() {
                 return false;
             }
+        },
+
+        // returned by non-blocking parsers when more input is needed for the next token
+        NOT_AVAILABLE {
+            @Override
+            public boolean isValue() {
+                return false;
+            }
         };
 
         public abstract boolean isValue();
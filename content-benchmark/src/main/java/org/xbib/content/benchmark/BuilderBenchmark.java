@@ -0,0 +1,86 @@
+package org.xbib.content.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xbib.content.XContent;
+import org.xbib.content.XContentBuilder;
+import org.xbib.content.core.DefaultXContentBuilder;
+import org.xbib.content.io.BytesReference;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building records by {@link DefaultXContentBuilder}, from maps and field by field.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BuilderBenchmark {
+
+    @Param({ "json", "smile", "yaml", "xml" })
+    public String format;
+
+    private XContent xContent;
+
+    private List<Map<String, Object>> records;
+
+    private int i;
+
+    @Setup
+    public void setup() {
+        xContent = Records.content(format);
+        records = Records.create(100);
+    }
+
+    @Benchmark
+    public BytesReference buildMap() throws IOException {
+        XContentBuilder builder = DefaultXContentBuilder.builder(xContent);
+        builder.map(next());
+        return ((DefaultXContentBuilder) builder).bytes();
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public BytesReference buildFields() throws IOException {
+        Map<String, Object> record = next();
+        XContentBuilder builder = DefaultXContentBuilder.builder(xContent);
+        builder.startObject();
+        builder.field("id", (String) record.get("id"));
+        builder.field("title", (String) record.get("title"));
+        builder.startArray("creators");
+        for (Map<String, Object> creator : (List<Map<String, Object>>) record.get("creators")) {
+            builder.startObject();
+            builder.field("name", (String) creator.get("name"));
+            builder.field("role", (String) creator.get("role"));
+            builder.endObject();
+        }
+        builder.endArray();
+        builder.field("language", (String) record.get("language"));
+        builder.field("pages", (Integer) record.get("pages"));
+        builder.field("price", (Double) record.get("price"));
+        builder.array("subjects", (List<Object>) record.get("subjects"));
+        builder.field("abstract", (String) record.get("abstract"));
+        builder.endObject();
+        return ((DefaultXContentBuilder) builder).bytes();
+    }
+
+    private Map<String, Object> next() {
+        Map<String, Object> record = records.get(i);
+        i = (i + 1) % records.size();
+        return record;
+    }
+}
@@ -0,0 +1,74 @@
+package org.xbib.content.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xbib.content.io.BufferSizePolicy;
+import org.xbib.content.io.BytesStreamOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Growing a {@link BytesStreamOutput} to a document size, from the default initial size and from
+ * the initial size of a {@link BufferSizePolicy}, with writes of a typical token length.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BytesStreamOutputBenchmark {
+
+    @Param({ "1024", "65536", "2097152" })
+    public int size;
+
+    @Param({ "16", "256" })
+    public int chunk;
+
+    private byte[] bytes;
+
+    private BufferSizePolicy policy;
+
+    @Setup
+    public void setup() {
+        bytes = new byte[chunk];
+        Arrays.fill(bytes, (byte) 'x');
+        policy = new BufferSizePolicy();
+        for (int i = 0; i < BufferSizePolicy.DEFAULT_WINDOW; i++) {
+            policy.record(size, 0);
+        }
+    }
+
+    @Benchmark
+    public int defaultSize() throws IOException {
+        return write(new BytesStreamOutput());
+    }
+
+    @Benchmark
+    public int adaptiveSize() throws IOException {
+        BytesStreamOutput out = policy.newOutput();
+        int n = write(out);
+        policy.record(out);
+        return n;
+    }
+
+    private int write(BytesStreamOutput out) throws IOException {
+        int n = 0;
+        while (n < size) {
+            int len = Math.min(chunk, size - n);
+            out.write(bytes, 0, len);
+            n += len;
+        }
+        return out.size();
+    }
+}
@@ -0,0 +1,75 @@
+package org.xbib.content.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xbib.content.XContent;
+import org.xbib.content.XContentParser;
+import org.xbib.content.core.XContentHelper;
+import org.xbib.content.io.BytesReference;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing records by {@link XContentHelper}, into ordered and unordered maps, and token by token.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Param({ "json", "smile", "yaml", "xml" })
+    public String format;
+
+    @Param({ "true", "false" })
+    public boolean ordered;
+
+    private BytesReference[] records;
+
+    private int i;
+
+    @Setup
+    public void setup() throws IOException {
+        XContent xContent = Records.content(format);
+        List<Map<String, Object>> list = Records.create(100);
+        records = new BytesReference[list.size()];
+        for (int j = 0; j < records.length; j++) {
+            records[j] = Records.bytes(xContent, list.get(j));
+        }
+    }
+
+    @Benchmark
+    public Map<String, ?> convertToMap() {
+        return XContentHelper.convertToMap(next(), ordered);
+    }
+
+    @Benchmark
+    public void tokens(Blackhole blackhole) throws IOException {
+        try (XContentParser parser = XContentHelper.createParser(next())) {
+            XContentParser.Token t;
+            while ((t = parser.nextToken()) != null) {
+                blackhole.consume(t);
+            }
+        }
+    }
+
+    private BytesReference next() {
+        BytesReference record = records[i];
+        i = (i + 1) % records.length;
+        return record;
+    }
+}
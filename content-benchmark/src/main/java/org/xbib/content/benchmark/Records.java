@@ -0,0 +1,165 @@
+package org.xbib.content.benchmark;
+
+import org.xbib.content.XContent;
+import org.xbib.content.XContentBuilder;
+import org.xbib.content.core.DefaultXContentBuilder;
+import org.xbib.content.io.BytesReference;
+import org.xbib.content.json.JsonXContent;
+import org.xbib.content.smile.SmileXContent;
+import org.xbib.content.xml.XmlXContent;
+import org.xbib.content.yaml.YamlXContent;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Bibliographic record fixtures for the benchmarks. Records are generated from a fixed seed, so every
+ * run and every fork benchmarks the same content. A record has the shape of a catalog record with
+ * identifiers, titles, creators, subjects, publication data, and holdings, and is about one KB as JSON.
+ */
+public final class Records {
+
+    private static final String[] WORDS = {
+            "history", "introduction", "theory", "practice", "society", "language", "science", "culture",
+            "europe", "modern", "studies", "handbook", "analysis", "research", "systems", "medieval",
+            "library", "information", "education", "economics", "philosophy", "religion", "politics", "art"
+    };
+
+    private static final String[] NAMES = {
+            "Müller, Anna", "Schmidt, Peter", "Dubois, Claire", "Rossi, Marco", "Nowak, Jan",
+            "García, Lucía", "Johansson, Erik", "Smith, John", "Tanaka, Yuki", "Okafor, Chidi"
+    };
+
+    private static final String[] PUBLISHERS = {
+            "Springer", "de Gruyter", "Oxford University Press", "Cambridge University Press", "Routledge", "Brill"
+    };
+
+    private static final String[] PLACES = {
+            "Berlin", "Oxford", "Cambridge", "London", "New York", "Leiden", "Köln", "Wien"
+    };
+
+    private static final String[] LANGUAGES = {
+            "ger", "eng", "fre", "ita", "spa"
+    };
+
+    private static final String[] LIBRARIES = {
+            "DE-38", "DE-5", "DE-6", "DE-361", "DE-465", "DE-Kn3"
+    };
+
+    private Records() {
+    }
+
+    /**
+     * Create records.
+     * @param count the number of records
+     * @return the records
+     */
+    public static List<Map<String, Object>> create(int count) {
+        Random random = new Random(4711L);
+        List<Map<String, Object>> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            records.add(record(random, i));
+        }
+        return records;
+    }
+
+    /**
+     * Return the content for a format name.
+     * @param format the format name, one of {@code json}, {@code smile}, {@code yaml}, {@code xml}
+     * @return the content
+     */
+    public static XContent content(String format) {
+        switch (format) {
+            case "json":
+                return JsonXContent.jsonContent();
+            case "smile":
+                return SmileXContent.smileContent();
+            case "yaml":
+                return YamlXContent.yamlContent();
+            case "xml":
+                return XmlXContent.xmlXContent();
+            default:
+                throw new IllegalArgumentException("unknown format " + format);
+        }
+    }
+
+    /**
+     * Serialize a record.
+     * @param xContent the content
+     * @param record the record
+     * @return the serialized record
+     * @throws IOException if the record can not be serialized
+     */
+    public static BytesReference bytes(XContent xContent, Map<String, Object> record) throws IOException {
+        XContentBuilder builder = DefaultXContentBuilder.builder(xContent);
+        builder.map(record);
+        return ((DefaultXContentBuilder) builder).bytes();
+    }
+
+    private static Map<String, Object> record(Random random, int i) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("id", "HT" + String.format("%09d", 10000000 + i));
+        Map<String, Object> identifiers = new LinkedHashMap<>();
+        identifiers.put("isbn", List.of("978-3-" + (10000 + random.nextInt(90000)) + "-" + random.nextInt(1000) + "-" +
+                random.nextInt(10)));
+        identifiers.put("oclc", Long.toString(100000000L + random.nextInt(900000000)));
+        identifiers.put("zdb", null);
+        record.put("identifiers", identifiers);
+        record.put("title", title(random, 3 + random.nextInt(5)));
+        record.put("subtitle", random.nextBoolean() ? title(random, 4 + random.nextInt(6)) : null);
+        List<Map<String, Object>> creators = new ArrayList<>();
+        int n = 1 + random.nextInt(3);
+        for (int j = 0; j < n; j++) {
+            Map<String, Object> creator = new LinkedHashMap<>();
+            creator.put("name", NAMES[random.nextInt(NAMES.length)]);
+            creator.put("role", j == 0 ? "author" : "editor");
+            creator.put("gnd", "1" + (10000000 + random.nextInt(90000000)) + "X");
+            creators.add(creator);
+        }
+        record.put("creators", creators);
+        Map<String, Object> publication = new LinkedHashMap<>();
+        publication.put("publisher", PUBLISHERS[random.nextInt(PUBLISHERS.length)]);
+        publication.put("place", PLACES[random.nextInt(PLACES.length)]);
+        publication.put("year", 1950 + random.nextInt(75));
+        publication.put("edition", 1 + random.nextInt(5));
+        record.put("publication", publication);
+        record.put("language", LANGUAGES[random.nextInt(LANGUAGES.length)]);
+        record.put("pages", 80 + random.nextInt(900));
+        record.put("price", Math.round(random.nextDouble() * 20000.0d) / 100.0d);
+        List<String> subjects = new ArrayList<>();
+        n = 2 + random.nextInt(6);
+        for (int j = 0; j < n; j++) {
+            subjects.add(title(random, 1 + random.nextInt(3)));
+        }
+        record.put("subjects", subjects);
+        record.put("abstract", title(random, 30 + random.nextInt(40)));
+        List<Map<String, Object>> holdings = new ArrayList<>();
+        n = 1 + random.nextInt(5);
+        for (int j = 0; j < n; j++) {
+            Map<String, Object> holding = new LinkedHashMap<>();
+            holding.put("library", LIBRARIES[random.nextInt(LIBRARIES.length)]);
+            holding.put("callnumber", Character.toString('A' + random.nextInt(26)) + " " + random.nextInt(10000) +
+                    "/" + random.nextInt(100));
+            holding.put("available", random.nextBoolean());
+            holding.put("loans", random.nextInt(200));
+            holdings.add(holding);
+        }
+        record.put("holdings", holdings);
+        return record;
+    }
+
+    private static String title(Random random, int words) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            String word = WORDS[random.nextInt(WORDS.length)];
+            sb.append(i == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word);
+        }
+        return sb.toString();
+    }
+}
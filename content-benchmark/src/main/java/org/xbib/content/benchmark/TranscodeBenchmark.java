@@ -0,0 +1,83 @@
+package org.xbib.content.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xbib.content.XContent;
+import org.xbib.content.XContentBuilder;
+import org.xbib.content.XContentParser;
+import org.xbib.content.core.DefaultXContentBuilder;
+import org.xbib.content.core.XContentHelper;
+import org.xbib.content.io.BytesReference;
+import org.xbib.content.io.BytesStreamOutput;
+import org.xbib.content.json.JsonXContent;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transcoding JSON records to other formats, by {@link XContentBuilder#copyCurrentStructure(XContentParser)}
+ * and by {@link XContentHelper#transcode}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TranscodeBenchmark {
+
+    @Param({ "json", "smile", "yaml", "xml" })
+    public String target;
+
+    private XContent xContent;
+
+    private BytesReference[] records;
+
+    private BytesStreamOutput out;
+
+    private int i;
+
+    @Setup
+    public void setup() throws IOException {
+        xContent = Records.content(target);
+        List<Map<String, Object>> list = Records.create(100);
+        records = new BytesReference[list.size()];
+        for (int j = 0; j < records.length; j++) {
+            records[j] = Records.bytes(JsonXContent.jsonContent(), list.get(j));
+        }
+        out = new BytesStreamOutput();
+    }
+
+    @Benchmark
+    public BytesReference copyCurrentStructure() throws IOException {
+        try (XContentParser parser = JsonXContent.jsonContent().createParser(next().streamInput())) {
+            XContentBuilder builder = DefaultXContentBuilder.builder(xContent);
+            parser.nextToken();
+            builder.copyCurrentStructure(parser);
+            return ((DefaultXContentBuilder) builder).bytes();
+        }
+    }
+
+    @Benchmark
+    public int transcode() throws IOException {
+        out.reset();
+        XContentHelper.transcode(JsonXContent.jsonContent(), xContent, next().streamInput(), out);
+        return out.size();
+    }
+
+    private BytesReference next() {
+        BytesReference record = records[i];
+        i = (i + 1) % records.length;
+        return record;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * JMH benchmarks for building, parsing, and transcoding content.
+ */
+package org.xbib.content.benchmark;
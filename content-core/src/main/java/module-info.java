@@ -1,10 +1,13 @@
 import org.xbib.content.XContent;
+import org.xbib.content.core.ValueWriterProvider;
 
 module org.xbib.content.core {
     uses XContent;
+    uses ValueWriterProvider;
     exports org.xbib.content.io;
     exports org.xbib.content.util.geo;
     exports org.xbib.content.core;
     requires transitive org.xbib.content.api;
-    requires com.fasterxml.jackson.core;
+    requires transitive com.fasterxml.jackson.core;
+    requires jdk.jfr;
 }
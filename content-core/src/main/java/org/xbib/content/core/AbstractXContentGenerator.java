@@ -1,7 +1,11 @@
 package org.xbib.content.core;
 
+import org.xbib.content.XContent;
 import org.xbib.content.XContentGenerator;
+import org.xbib.content.XContentParser;
+import org.xbib.content.io.BytesReference;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 
@@ -20,6 +24,14 @@ public abstract class AbstractXContentGenerator implements XContentGenerator {
         return this;
     }
 
+    /**
+     * Return the generator this generator delegates to.
+     * @return the generator, or null if this generator does not delegate
+     */
+    public XContentGenerator getGenerator() {
+        return generator;
+    }
+
     @Override
     public void writeStartArray() throws IOException {
         generator.writeStartArray();
@@ -45,6 +57,11 @@ public abstract class AbstractXContentGenerator implements XContentGenerator {
         generator.writeFieldName(name);
     }
 
+    @Override
+    public void writeFieldName(char[] name, int offset, int len) throws IOException {
+        generator.writeFieldName(name, offset, len);
+    }
+
     @Override
     public void writeString(String text) throws IOException {
         generator.writeString(text);
@@ -85,6 +102,16 @@ public abstract class AbstractXContentGenerator implements XContentGenerator {
         generator.writeNumber(d);
     }
 
+    @Override
+    public boolean writesNumberText() {
+        return generator.writesNumberText();
+    }
+
+    @Override
+    public void writeNumber(char[] text, int offset, int len) throws IOException {
+        generator.writeNumber(text, offset, len);
+    }
+
     @Override
     public void writeNumber(float f) throws IOException {
         generator.writeNumber(f);
@@ -170,4 +197,34 @@ public abstract class AbstractXContentGenerator implements XContentGenerator {
     public void writeObjectFieldStart(String fieldName) throws IOException {
         generator.writeObjectFieldStart(fieldName);
     }
+
+    /**
+     * Write pre-serialized content as the next value. This implementation parses the content and copies
+     * its structure, generators which can splice content of their own type override it and write the bytes
+     * into the output as they are.
+     * @param value the content
+     * @param outputStream the output stream of this generator
+     * @throws IOException if the value can not be written
+     */
+    public void writeRawValue(BytesReference value, OutputStream outputStream) throws IOException {
+        copyRawValue(this, value);
+    }
+
+    /**
+     * Parse pre-serialized content, which may be compressed, and copy its structure to a generator.
+     * @param generator the generator
+     * @param bytes the content
+     * @throws IOException if the value can not be parsed or written
+     */
+    static void copyRawValue(XContentGenerator generator, BytesReference bytes) throws IOException {
+        BytesReference value = XContentHelper.uncompressed(bytes);
+        XContent xContent = XContentService.xContent(value);
+        if (xContent == null) {
+            xContent = generator.content();
+        }
+        try (XContentParser parser = xContent.createParser(value.streamInput())) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        }
+    }
 }
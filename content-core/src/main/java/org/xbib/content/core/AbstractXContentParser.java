@@ -12,6 +12,8 @@ public abstract class AbstractXContentParser implements XContentParser {
 
     private boolean base16Checks;
 
+    private MapFactory mapFactory;
+
     public AbstractXContentParser() {
     }
 
@@ -19,6 +21,18 @@ public abstract class AbstractXContentParser implements XContentParser {
 
     protected abstract MapFactory getOrderedMapFactory();
 
+    /**
+     * Set the factory for the maps created by {@link #map()} and {@link #mapOrdered()}, for example
+     * {@link MapFactory#compact()}. The factory replaces the default factories of the content type for
+     * both methods, so it should create insertion-ordered maps.
+     * @param mapFactory the map factory, or null for the default factories
+     * @return this parser
+     */
+    public AbstractXContentParser mapFactory(MapFactory mapFactory) {
+        this.mapFactory = mapFactory;
+        return this;
+    }
+
     @Override
     public boolean isBooleanValue() throws IOException {
         switch (currentToken()) {
@@ -191,17 +205,17 @@ public abstract class AbstractXContentParser implements XContentParser {
     }
 
     private Map<String, Object> readMap(XContentParser parser) throws IOException {
-        return readMap(parser, getMapFactory());
+        return readMap(parser, mapFactory != null ? mapFactory : getMapFactory());
     }
 
     private Map<String, Object> readOrderedMap(XContentParser parser) throws IOException {
-        return readMap(parser, getOrderedMapFactory());
+        return readMap(parser, mapFactory != null ? mapFactory : getOrderedMapFactory());
     }
 
     private static Map<String, Object> readMap(XContentParser parser, MapFactory mapFactory) throws IOException {
         Map<String, Object> map = mapFactory.newMap();
         XContentParser.Token t = parser.currentToken();
-        if (t == null) {
+        if (t == null || t == XContentParser.Token.NOT_AVAILABLE) {
             t = parser.nextToken();
         }
         if (t == XContentParser.Token.START_OBJECT) {
@@ -213,7 +227,7 @@ public abstract class AbstractXContentParser implements XContentParser {
             Object value = readValue(parser, mapFactory, t);
             map.put(fieldName, value);
         }
-        return map;
+        return mapFactory.complete(map);
     }
 
     private static List<Object> readList(XContentParser parser, MapFactory mapFactory) throws IOException {
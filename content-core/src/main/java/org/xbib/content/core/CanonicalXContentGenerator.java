@@ -0,0 +1,377 @@
+package org.xbib.content.core;
+
+import org.xbib.content.XContent;
+import org.xbib.content.XContentBuilder;
+import org.xbib.content.XContentGenerator;
+import org.xbib.content.XContentParser;
+import org.xbib.content.io.BytesArray;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * A generator which writes content in canonical form, so equal content is written the same way regardless
+ * of the order of its fields and the Java types of its numbers.
+ *
+ * The fields of every object, at every depth, are written in the order of their names. The fields of an
+ * object are buffered until the object ends, and fields with equal names keep the order in which they
+ * were written. Values outside of objects, like the elements of a top-level array, are written as they come.
+ * Pre-serialized content is parsed and written in canonical form as well.
+ *
+ * Numbers are written in a normalized form, so equal numbers are written the same way regardless of their
+ * Java type. Integral values in the range of a long are written as long, other values as double if the
+ * double represents them exactly, otherwise as big integer or big decimal without trailing zeros.
+ * {@code 1}, {@code 1L}, {@code 1.0f}, and {@code new BigDecimal("1.00")} are all written as {@code 1}.
+ * Non-finite doubles are written as they are.
+ */
+final class CanonicalXContentGenerator extends AbstractXContentGenerator {
+
+    /**
+     * The maximum number of digits of a long.
+     */
+    private static final int LONG_DIGITS = 19;
+
+    private static final Comparator<Field> BY_NAME = Comparator.comparing(field -> field.name);
+
+    /**
+     * The objects which have not ended yet, innermost first.
+     */
+    private final Deque<Frame> frames;
+
+    CanonicalXContentGenerator(XContentGenerator generator) {
+        setGenerator(generator);
+        this.frames = new ArrayDeque<>();
+    }
+
+    @Override
+    public XContent content() {
+        return generator.content();
+    }
+
+    @Override
+    public void usePrettyPrint() {
+        generator.usePrettyPrint();
+    }
+
+    @Override
+    public void writeStartArray() throws IOException {
+        emit(XContentGenerator::writeStartArray);
+    }
+
+    @Override
+    public void writeEndArray() throws IOException {
+        emit(XContentGenerator::writeEndArray);
+    }
+
+    @Override
+    public void writeStartObject() {
+        frames.push(new Frame());
+    }
+
+    @Override
+    public void writeEndObject() throws IOException {
+        if (frames.isEmpty()) {
+            throw new IllegalStateException("no object to end");
+        }
+        Frame frame = frames.pop();
+        frame.fields.sort(BY_NAME);
+        emit(XContentGenerator::writeStartObject);
+        for (Field field : frame.fields) {
+            emit(g -> g.writeFieldName(field.name));
+            for (Event event : field.events) {
+                emit(event);
+            }
+        }
+        emit(XContentGenerator::writeEndObject);
+    }
+
+    @Override
+    public void writeFieldName(String name) {
+        Frame frame = frames.peek();
+        if (frame == null) {
+            throw new IllegalStateException("field name " + name + " outside of an object");
+        }
+        frame.fields.add(new Field(name));
+    }
+
+    @Override
+    public void writeFieldName(char[] name, int offset, int len) {
+        writeFieldName(new String(name, offset, len));
+    }
+
+    @Override
+    public void writeString(String text) throws IOException {
+        emit(g -> g.writeString(text));
+    }
+
+    @Override
+    public void writeString(char[] text, int offset, int len) throws IOException {
+        writeString(new String(text, offset, len));
+    }
+
+    @Override
+    public void writeUTF8String(byte[] text, int offset, int length) throws IOException {
+        writeString(new String(text, offset, length, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void writeBinary(byte[] data, int offset, int len) throws IOException {
+        writeBinary(Arrays.copyOfRange(data, offset, offset + len));
+    }
+
+    @Override
+    public void writeBinary(byte[] data) throws IOException {
+        emit(g -> g.writeBinary(data));
+    }
+
+    @Override
+    public void writeBoolean(boolean b) throws IOException {
+        emit(g -> g.writeBoolean(b));
+    }
+
+    @Override
+    public void writeNull() throws IOException {
+        emit(XContentGenerator::writeNull);
+    }
+
+    @Override
+    public void writeNumber(int v) throws IOException {
+        writeNumber((long) v);
+    }
+
+    @Override
+    public void writeNumber(long v) throws IOException {
+        emit(g -> g.writeNumber(v));
+    }
+
+    @Override
+    public void writeNumber(float f) throws IOException {
+        if (Float.isFinite(f)) {
+            writeNumber(new BigDecimal(Float.toString(f)));
+        } else {
+            emit(g -> g.writeNumber((double) f));
+        }
+    }
+
+    @Override
+    public void writeNumber(double d) throws IOException {
+        if (Double.isFinite(d)) {
+            writeNumber(BigDecimal.valueOf(d));
+        } else {
+            emit(g -> g.writeNumber(d));
+        }
+    }
+
+    @Override
+    public void writeNumber(BigInteger bi) throws IOException {
+        if (bi.bitLength() < Long.SIZE) {
+            writeNumber(bi.longValue());
+        } else {
+            writeNumber(new BigDecimal(bi));
+        }
+    }
+
+    @Override
+    public void writeNumber(BigDecimal bd) throws IOException {
+        if (bd.signum() == 0) {
+            writeNumber(0L);
+            return;
+        }
+        BigDecimal stripped = bd.stripTrailingZeros();
+        if (stripped.scale() <= 0 && stripped.precision() - stripped.scale() <= LONG_DIGITS) {
+            BigInteger bi = stripped.toBigIntegerExact();
+            if (bi.bitLength() < Long.SIZE) {
+                writeNumber(bi.longValue());
+                return;
+            }
+        }
+        double d = stripped.doubleValue();
+        if (Double.isFinite(d) && BigDecimal.valueOf(d).compareTo(stripped) == 0) {
+            emit(g -> g.writeNumber(d));
+        } else if (stripped.scale() <= 0) {
+            BigInteger bi = stripped.toBigIntegerExact();
+            emit(g -> g.writeNumber(bi));
+        } else {
+            emit(g -> g.writeNumber(stripped));
+        }
+    }
+
+    @Override
+    public boolean writesNumberText() {
+        return false;
+    }
+
+    @Override
+    public void writeNumber(char[] text, int offset, int len) throws IOException {
+        writeNumber(new BigDecimal(text, offset, len));
+    }
+
+    @Override
+    public void writeStringField(String fieldName, String value) throws IOException {
+        writeFieldName(fieldName);
+        writeString(value);
+    }
+
+    @Override
+    public void writeBooleanField(String fieldName, boolean value) throws IOException {
+        writeFieldName(fieldName);
+        writeBoolean(value);
+    }
+
+    @Override
+    public void writeNullField(String fieldName) throws IOException {
+        writeFieldName(fieldName);
+        writeNull();
+    }
+
+    @Override
+    public void writeNumberField(String fieldName, int value) throws IOException {
+        writeFieldName(fieldName);
+        writeNumber(value);
+    }
+
+    @Override
+    public void writeNumberField(String fieldName, long value) throws IOException {
+        writeFieldName(fieldName);
+        writeNumber(value);
+    }
+
+    @Override
+    public void writeNumberField(String fieldName, double value) throws IOException {
+        writeFieldName(fieldName);
+        writeNumber(value);
+    }
+
+    @Override
+    public void writeNumberField(String fieldName, float value) throws IOException {
+        writeFieldName(fieldName);
+        writeNumber(value);
+    }
+
+    @Override
+    public void writeNumberField(String fieldName, BigInteger value) throws IOException {
+        writeFieldName(fieldName);
+        writeNumber(value);
+    }
+
+    @Override
+    public void writeNumberField(String fieldName, BigDecimal value) throws IOException {
+        writeFieldName(fieldName);
+        writeNumber(value);
+    }
+
+    @Override
+    public void writeBinaryField(String fieldName, byte[] data) throws IOException {
+        writeFieldName(fieldName);
+        writeBinary(data);
+    }
+
+    @Override
+    public void writeArrayFieldStart(String fieldName) throws IOException {
+        writeFieldName(fieldName);
+        writeStartArray();
+    }
+
+    @Override
+    public void writeObjectFieldStart(String fieldName) {
+        writeFieldName(fieldName);
+        writeStartObject();
+    }
+
+    @Override
+    public void writeRawField(String fieldName, byte[] content, OutputStream outputStream) throws IOException {
+        writeRawField(fieldName, content, 0, content.length, outputStream);
+    }
+
+    @Override
+    public void writeRawField(String fieldName, byte[] content, int offset, int length, OutputStream outputStream)
+            throws IOException {
+        writeFieldName(fieldName);
+        copyRawValue(this, new BytesArray(content, offset, length));
+    }
+
+    @Override
+    public void writeValue(XContentBuilder builder) throws IOException {
+        if (!(builder instanceof DefaultXContentBuilder)) {
+            throw new IllegalArgumentException("unsupported builder " + builder.getClass().getName());
+        }
+        copyRawValue(this, ((DefaultXContentBuilder) builder).bytes());
+    }
+
+    @Override
+    public void copy(XContentBuilder builder, OutputStream outputStream) throws IOException {
+        writeValue(builder);
+    }
+
+    @Override
+    public void copyCurrentStructure(XContentParser parser) throws IOException {
+        if (parser.currentToken() == null) {
+            parser.nextToken();
+        }
+        XContentHelper.copyCurrentStructure(this, parser);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+
+    /**
+     * Write an event to the generator, or add it to the current field of the innermost object.
+     */
+    private void emit(Event event) throws IOException {
+        Frame frame = frames.peek();
+        if (frame == null) {
+            event.write(generator);
+            return;
+        }
+        if (frame.fields.isEmpty()) {
+            throw new IllegalStateException("value in an object without a field name");
+        }
+        frame.fields.get(frame.fields.size() - 1).events.add(event);
+    }
+
+    /**
+     * A write to the underlying generator.
+     */
+    @FunctionalInterface
+    private interface Event {
+
+        void write(XContentGenerator generator) throws IOException;
+    }
+
+    /**
+     * The fields of an object which has not ended yet.
+     */
+    private static final class Frame {
+
+        private final List<Field> fields = new ArrayList<>();
+    }
+
+    /**
+     * A field name and the events of its value.
+     */
+    private static final class Field {
+
+        private final String name;
+
+        private final List<Event> events = new ArrayList<>();
+
+        Field(String name) {
+            this.name = name;
+        }
+    }
+}
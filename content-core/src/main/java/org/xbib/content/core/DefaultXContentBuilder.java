@@ -5,28 +5,37 @@ import org.xbib.content.XContent;
 import org.xbib.content.XContentBuilder;
 import org.xbib.content.XContentGenerator;
 import org.xbib.content.XContentParser;
+import org.xbib.content.core.XContentMetrics.CountingOutputStream;
+import org.xbib.content.io.BufferSizePolicy;
 import org.xbib.content.io.BytesReference;
 import org.xbib.content.io.BytesStreamOutput;
-import org.xbib.content.util.geo.GeoPoint;
+import org.xbib.content.io.HashingOutputStream;
+import org.xbib.content.io.PageRecycler;
+import org.xbib.content.io.PagedBytesStreamOutput;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.time.Instant;
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.Calendar;
 import java.util.Collection;
-import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
 public final class DefaultXContentBuilder implements XContentBuilder {
 
+    private final XContent xContent;
     private final OutputStream outputStream;
-    private final XContentGenerator generator;
+    private XContentGenerator generator;
+    private TimestampFormat timestampFormat = TimestampFormat.ISO_INSTANT;
+    private ValueWriterRegistry valueWriters = ValueWriterRegistry.getDefault();
+    private final char[] timestampBuffer = new char[TimestampEncoder.MAX_LENGTH];
+    private boolean canonical;
+    private BufferSizePolicy bufferSizePolicy;
+    private boolean recorded;
+    private MeteredXContentGenerator meteredGenerator;
+    private long startNanos;
 
     /**
      * Constructs a new builder using the provided xcontent and an OutputStream. Make sure
@@ -36,8 +45,11 @@ public final class DefaultXContentBuilder implements XContentBuilder {
      * @throws IOException if construction fails
      */
     public DefaultXContentBuilder(XContent xContent, OutputStream outputStream) throws IOException {
-        this.outputStream = outputStream;
-        this.generator = xContent.createGenerator(outputStream);
+        this.xContent = xContent;
+        // the size of an output buffer is known, other output streams are counted for metrics
+        this.outputStream = XContentMetrics.isEnabled() && !(outputStream instanceof BytesStreamOutput) &&
+                !(outputStream instanceof HashingOutputStream) ? new CountingOutputStream(outputStream) : outputStream;
+        this.generator = createGenerator();
     }
 
     /**
@@ -50,6 +62,88 @@ public final class DefaultXContentBuilder implements XContentBuilder {
         return new DefaultXContentBuilder(xContent, new BytesStreamOutput());
     }
 
+    /**
+     * Constructs a new builder using a fresh {@link BytesStreamOutput} with the initial size of a
+     * {@link BufferSizePolicy}. The final size of the document is recorded to the policy when
+     * {@link #bytes()} is called for the first time, or when the builder is reset or closed.
+     * @param xContent the content
+     * @param bufferSizePolicy the buffer size policy
+     * @return content builder
+     * @throws IOException exception
+     */
+    public static DefaultXContentBuilder builder(XContent xContent, BufferSizePolicy bufferSizePolicy)
+            throws IOException {
+        DefaultXContentBuilder builder = new DefaultXContentBuilder(xContent, bufferSizePolicy.newOutput());
+        builder.bufferSizePolicy = bufferSizePolicy;
+        return builder;
+    }
+
+    /**
+     * Constructs a new builder with the initial buffer size of the shared {@link BufferSizePolicy} of a kind
+     * of document, see {@link #builder(XContent, BufferSizePolicy)}.
+     * @param xContent the content
+     * @param kind the kind of document, for example a call site or a document type
+     * @return content builder
+     * @throws IOException exception
+     */
+    public static DefaultXContentBuilder builder(XContent xContent, String kind) throws IOException {
+        return builder(xContent, BufferSizePolicy.of(kind));
+    }
+
+    /**
+     * Constructs a new builder using a fresh {@link PagedBytesStreamOutput}. The pages are returned
+     * to the recycler when the builder is closed, so read {@link #bytes()} before calling {@link #close()}.
+     * @param xContent the content
+     * @param recycler the page recycler
+     * @return content builder
+     * @throws IOException exception
+     */
+    public static XContentBuilder builder(XContent xContent, PageRecycler recycler) throws IOException {
+        return new DefaultXContentBuilder(xContent, new PagedBytesStreamOutput(recycler));
+    }
+
+    /**
+     * Constructs a new builder using a fresh {@link BytesStreamOutput}, which hashes the content while it
+     * is written, see {@link #hash()} and {@link #digest()}.
+     * @param xContent the content
+     * @param sha256 true if a SHA-256 digest should be computed in addition to the 64-bit hash
+     * @return content builder
+     * @throws IOException exception
+     */
+    public static DefaultXContentBuilder hashingBuilder(XContent xContent, boolean sha256) throws IOException {
+        return new DefaultXContentBuilder(xContent, new HashingOutputStream(new BytesStreamOutput(), sha256));
+    }
+
+    /**
+     * Constructs a new builder using a fresh {@link BytesStreamOutput}, which hashes the content while it
+     * is written, see {@link #hash()} and {@link #digest()}, optionally in canonical form, see
+     * {@link #canonicalBuilder(XContent)}, so equal content has the same hash.
+     * @param xContent the content
+     * @param sha256 true if a SHA-256 digest should be computed in addition to the 64-bit hash
+     * @param canonical true if the content should be written in canonical form
+     * @return content builder
+     * @throws IOException exception
+     */
+    public static DefaultXContentBuilder hashingBuilder(XContent xContent, boolean sha256, boolean canonical)
+            throws IOException {
+        DefaultXContentBuilder builder = hashingBuilder(xContent, sha256);
+        return canonical ? builder.canonical() : builder;
+    }
+
+    /**
+     * Constructs a new builder using a fresh {@link BytesStreamOutput}, which writes content in canonical form,
+     * so equal content written from different sources, or parsed from different formats, produces the same
+     * bytes. The fields of every object are written in the order of their names, and numbers are written in
+     * a normalized form. The fields of an object are buffered until the object ends. The canonical form is
+     * kept by {@link #reset()}.
+     * @param xContent the content
+     * @return content builder
+     * @throws IOException exception
+     */
+    public static DefaultXContentBuilder canonicalBuilder(XContent xContent) throws IOException {
+        return new DefaultXContentBuilder(xContent, new BytesStreamOutput()).canonical();
+    }
+
     /**
      * Constructs a new content builder.
      * @param xContent the content
@@ -78,6 +172,35 @@ public final class DefaultXContentBuilder implements XContentBuilder {
         return this;
     }
 
+    /**
+     * Write a field with pre-serialized content as value, see {@link #rawValue(BytesReference)}.
+     * @param fieldName the field name
+     * @param content the content
+     * @return this builder
+     * @throws IOException if the content can not be written
+     */
+    public XContentBuilder rawField(String fieldName, BytesReference content) throws IOException {
+        field(fieldName);
+        return rawValue(content);
+    }
+
+    /**
+     * Write pre-serialized content as a value. If the content has the content type of this builder, and the
+     * format allows it, the bytes of the content are written into the output as they are, page by page.
+     * Content of another type is transcoded, content of unknown type is treated like content of this type.
+     * @param content the content
+     * @return this builder
+     * @throws IOException if the content can not be written
+     */
+    public XContentBuilder rawValue(BytesReference content) throws IOException {
+        if (generator instanceof AbstractXContentGenerator) {
+            ((AbstractXContentGenerator) generator).writeRawValue(content, outputStream);
+        } else {
+            AbstractXContentGenerator.copyRawValue(generator, content);
+        }
+        return this;
+    }
+
     @Override
     public XContentBuilder copy(XContentBuilder builder) throws IOException {
         generator.copy(builder, outputStream);
@@ -643,15 +766,23 @@ public final class DefaultXContentBuilder implements XContentBuilder {
     }
 
     public XContentBuilder field(String name, BytesReference value) throws IOException {
-        return field(name, value.toBytes(), 0, value.length());
+        field(name);
+        return value(value);
     }
 
     public XContentBuilder value(BytesReference value) throws IOException {
         if (value == null) {
             return nullValue();
         }
-        byte[] b = value.toBytes();
-        generator.writeBinary(b, 0, b.length);
+        ByteBuffer[] buffers = value.toByteBuffers();
+        if (buffers.length == 1 && buffers[0].hasArray()) {
+            // a single heap buffer, write the binary value without copying it first
+            ByteBuffer buffer = buffers[0];
+            generator.writeBinary(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        } else {
+            byte[] b = value.toBytes();
+            generator.writeBinary(b, 0, b.length);
+        }
         return this;
     }
 
@@ -668,19 +799,187 @@ public final class DefaultXContentBuilder implements XContentBuilder {
     @Override
     public void close() throws IOException {
         generator.close();
+        recordDocument();
+        if (outputStream instanceof PagedBytesStreamOutput) {
+            outputStream.close();
+        }
     }
 
     public XContent content() {
         return generator.content();
     }
 
+    /**
+     * Reset this builder for building a new document. The output buffer is kept, and a new generator
+     * is created over it. Generator settings, such as pretty printing, are not retained.
+     * Only builders over a {@link BytesStreamOutput} can be reset.
+     * @return this builder
+     * @throws IOException if the generator can not be created
+     */
+    public DefaultXContentBuilder reset() throws IOException {
+        BytesStreamOutput bytesStreamOutput = bytesStreamOutput();
+        if (bytesStreamOutput == null) {
+            throw new IllegalStateException("builder over " + outputStream.getClass().getName() + " can not be reset");
+        }
+        generator.close();
+        recordDocument();
+        recorded = false;
+        bytesStreamOutput.reset();
+        if (outputStream instanceof HashingOutputStream) {
+            ((HashingOutputStream) outputStream).reset();
+        }
+        generator = createGenerator();
+        return this;
+    }
+
+    /**
+     * Return the capacity of the output buffer of this builder, if it is a {@link BytesStreamOutput}.
+     * @return the capacity in bytes, or -1 if unknown
+     */
+    public int capacity() {
+        BytesStreamOutput bytesStreamOutput = bytesStreamOutput();
+        return bytesStreamOutput != null ? bytesStreamOutput.capacity() : -1;
+    }
+
+    /**
+     * Write content in canonical form. Only called on new builders, before anything is written, because
+     * the canonical generator must see the start of every object.
+     * @return this builder
+     */
+    private DefaultXContentBuilder canonical() {
+        canonical = true;
+        generator = new CanonicalXContentGenerator(generator);
+        return this;
+    }
+
+    /**
+     * Return the 64-bit xxHash of the content written so far, for builders created by
+     * {@link #hashingBuilder(XContent, boolean)}.
+     * @return the hash
+     * @throws IOException if the generator can not be flushed
+     */
+    public long hash() throws IOException {
+        return hashingOutputStream().hash();
+    }
+
+    /**
+     * Return the SHA-256 digest of the content written so far, for builders created by
+     * {@link #hashingBuilder(XContent, boolean)} with SHA-256.
+     * @return the digest
+     * @throws IOException if the generator can not be flushed
+     */
+    public byte[] digest() throws IOException {
+        return hashingOutputStream().digest();
+    }
+
+    /**
+     * Set the format for writing {@link Instant}, {@link java.util.Date}, and {@link java.util.Calendar} values,
+     * and the keys of {@link #timeseriesMap(Map)}. The default is {@link TimestampFormat#ISO_INSTANT}.
+     * @param timestampFormat the timestamp format
+     * @return this builder
+     */
+    public DefaultXContentBuilder timestampFormat(TimestampFormat timestampFormat) {
+        this.timestampFormat = Objects.requireNonNull(timestampFormat);
+        return this;
+    }
+
+    /**
+     * Set the registry of writers for values which are not written by this builder itself.
+     * The default is {@link ValueWriterRegistry#getDefault()}.
+     * @param valueWriters the value writer registry
+     * @return this builder
+     */
+    public DefaultXContentBuilder valueWriters(ValueWriterRegistry valueWriters) {
+        this.valueWriters = Objects.requireNonNull(valueWriters);
+        return this;
+    }
+
+    /**
+     * Write a timestamp value in the timestamp format of this builder. ISO-8601 timestamps are encoded
+     * into a buffer of this builder and passed to the generator without creating a string.
+     * @param epochSecond the seconds since the epoch
+     * @param nano the nanosecond of the second
+     * @return this builder
+     * @throws IOException if the timestamp can not be written
+     */
+    public DefaultXContentBuilder timestamp(long epochSecond, int nano) throws IOException {
+        if (timestampFormat == TimestampFormat.EPOCH_MILLIS) {
+            generator.writeNumber(Math.addExact(Math.multiplyExact(epochSecond, 1000L), nano / 1000000));
+        } else {
+            int len = TimestampEncoder.encode(timestampFormat, epochSecond, nano, timestampBuffer, 0);
+            generator.writeString(timestampBuffer, 0, len);
+        }
+        return this;
+    }
+
+    /**
+     * Restore the default settings of this builder: not canonical, {@link TimestampFormat#ISO_INSTANT}, and
+     * {@link ValueWriterRegistry#getDefault()}. Used by {@link XContentBuilderPool} before a released builder
+     * is reset, so the next caller does not inherit the settings of the previous one.
+     */
+    void restoreDefaults() {
+        canonical = false;
+        timestampFormat = TimestampFormat.ISO_INSTANT;
+        valueWriters = ValueWriterRegistry.getDefault();
+    }
+
     public XContentGenerator generator() {
         return generator;
     }
 
     public BytesReference bytes() throws IOException {
         generator.close();
-        return ((BytesStreamOutput) outputStream).bytes();
+        recordDocument();
+        return bytesStreamOutput().bytes();
+    }
+
+    private void recordDocument() {
+        if (recorded) {
+            return;
+        }
+        BytesStreamOutput bytesStreamOutput = bytesStreamOutput();
+        if (bufferSizePolicy != null && bytesStreamOutput != null) {
+            bufferSizePolicy.record(bytesStreamOutput);
+            recorded = true;
+        }
+        if (meteredGenerator != null) {
+            long nanos = System.nanoTime() - startNanos;
+            if (bytesStreamOutput != null) {
+                XContentMetrics.of(xContent.name()).recordGenerate(bytesStreamOutput.size(),
+                        meteredGenerator.tokens(), bytesStreamOutput.reallocations(), nanos);
+            } else {
+                long bytes = outputStream instanceof CountingOutputStream ? ((CountingOutputStream) outputStream).count() : 0L;
+                XContentMetrics.of(xContent.name()).recordGenerate(bytes, meteredGenerator.tokens(), 0, nanos);
+            }
+            recorded = true;
+        }
+    }
+
+    private BytesStreamOutput bytesStreamOutput() {
+        OutputStream out = outputStream instanceof HashingOutputStream ?
+                ((HashingOutputStream) outputStream).getOutputStream() : outputStream;
+        return out instanceof BytesStreamOutput ? (BytesStreamOutput) out : null;
+    }
+
+    private HashingOutputStream hashingOutputStream() throws IOException {
+        if (!(outputStream instanceof HashingOutputStream)) {
+            throw new IllegalStateException("builder does not hash its content");
+        }
+        generator.flush();
+        return (HashingOutputStream) outputStream;
+    }
+
+    private XContentGenerator createGenerator() throws IOException {
+        XContentGenerator xContentGenerator = xContent.createGenerator(outputStream instanceof PagedBytesStreamOutput ?
+                ((PagedBytesStreamOutput) outputStream).nonClosingView() : outputStream);
+        if (XContentMetrics.isEnabled()) {
+            meteredGenerator = new MeteredXContentGenerator(xContentGenerator);
+            startNanos = System.nanoTime();
+            xContentGenerator = meteredGenerator;
+        } else {
+            meteredGenerator = null;
+        }
+        return canonical ? new CanonicalXContentGenerator(xContentGenerator) : xContentGenerator;
     }
 
     private void writeMap(Map<String, Object> map) throws IOException {
@@ -701,8 +1000,9 @@ public final class DefaultXContentBuilder implements XContentBuilder {
         generator.writeStartObject();
         for (Map.Entry<Instant, Object> entry : map.entrySet()) {
             Instant instant = entry.getKey();
-            ZonedDateTime zdt = ZonedDateTime.ofInstant(instant, ZoneId.systemDefault());
-            field(zdt.format(DateTimeFormatter.ISO_INSTANT));
+            int len = TimestampEncoder.encode(timestampFormat, instant.getEpochSecond(), instant.getNano(),
+                    timestampBuffer, 0);
+            generator.writeFieldName(timestampBuffer, 0, len);
             Object value = entry.getValue();
             if (value == null) {
                 generator.writeNull();
@@ -727,108 +1027,22 @@ public final class DefaultXContentBuilder implements XContentBuilder {
         generator.writeEndObject();
     }
 
-    @SuppressWarnings("unchecked")
     private void writeValue(Object value) throws IOException {
         if (value == null) {
             generator.writeNull();
             return;
         }
-        Class<?> type = value.getClass();
-        if (type == String.class) {
-            generator.writeString((String) value);
-        } else if (type == Integer.class) {
-            generator.writeNumber((Integer) value);
-        } else if (type == Long.class) {
-            generator.writeNumber((Long) value);
-        } else if (type == Float.class) {
-            generator.writeNumber((Float) value);
-        } else if (type == Double.class) {
-            generator.writeNumber((Double) value);
-        } else if (type == Short.class) {
-            generator.writeNumber((Short) value);
-        } else if (type == Boolean.class) {
-            generator.writeBoolean((Boolean) value);
-        } else if (type == GeoPoint.class) {
-            generator.writeStartObject();
-            generator.writeNumberField("lat", ((GeoPoint) value).lat());
-            generator.writeNumberField("lon", ((GeoPoint) value).lon());
-            generator.writeEndObject();
-        } else if (value instanceof Map) {
-            writeMap((Map<String, Object>) value);
-        } else if (value instanceof Iterable) {
-            generator.writeStartArray();
-            for (Object v : (Iterable<?>) value) {
-                if (v != value) {
-                    writeValue(v);
-                }
-            }
-            generator.writeEndArray();
-        } else if (value instanceof Object[]) {
-            generator.writeStartArray();
-            for (Object v : (Object[]) value) {
-                if (v != value) {
-                    writeValue(v);
-                }
-            }
-            generator.writeEndArray();
-        } else if (type == byte[].class) {
-            generator.writeBinary((byte[]) value);
-        } else if (value instanceof Instant) {
-            Instant instant = (Instant) value;
-            ZonedDateTime zdt = ZonedDateTime.ofInstant(instant, ZoneId.systemDefault());
-            generator.writeString(zdt.format(DateTimeFormatter.ISO_INSTANT));
-        } else if (value instanceof Date) {
-            Date date = (Date) value;
-            Instant instant = Instant.ofEpochMilli(date.getTime());
-            ZonedDateTime zdt = ZonedDateTime.ofInstant(instant, ZoneId.systemDefault());
-            generator.writeString(zdt.format(DateTimeFormatter.ISO_INSTANT));
-        } else if (value instanceof Calendar) {
-            Calendar calendar = (Calendar) value;
-            Instant instant = Instant.ofEpochMilli(calendar.getTime().getTime());
-            ZonedDateTime zdt = ZonedDateTime.ofInstant(instant, ZoneId.systemDefault());
-            generator.writeString(zdt.format(DateTimeFormatter.ISO_INSTANT));
-        } else if (value instanceof BytesReference) {
-            BytesReference bytes = (BytesReference) value;
-            byte[] b = bytes.toBytes();
-            generator.writeBinary(b, 0, b.length);
-        } else if (value instanceof DefaultXContentBuilder) {
-            value((DefaultXContentBuilder) value);
-        } else if (value instanceof ToXContent) {
-            ((ToXContent) value).toXContent(this, ToXContent.EMPTY_PARAMS);
-        } else if (value instanceof double[]) {
-            generator.writeStartArray();
-            for (double v : (double[]) value) {
-                generator.writeNumber(v);
+        if (canonical) {
+            // big numbers are written as strings by default, canonical content has them as numbers
+            if (value instanceof BigDecimal) {
+                generator.writeNumber((BigDecimal) value);
+                return;
             }
-            generator.writeEndArray();
-        } else if (value instanceof long[]) {
-            generator.writeStartArray();
-            for (long v : (long[]) value) {
-                generator.writeNumber(v);
+            if (value instanceof BigInteger) {
+                generator.writeNumber((BigInteger) value);
+                return;
             }
-            generator.writeEndArray();
-        } else if (value instanceof int[]) {
-            generator.writeStartArray();
-            for (int v : (int[]) value) {
-                generator.writeNumber(v);
-            }
-            generator.writeEndArray();
-        } else if (value instanceof float[]) {
-            generator.writeStartArray();
-            for (float v : (float[]) value) {
-                generator.writeNumber(v);
-            }
-            generator.writeEndArray();
-        } else if (value instanceof short[]) {
-            generator.writeStartArray();
-            for (float v : (short[]) value) {
-                generator.writeNumber(v);
-            }
-            generator.writeEndArray();
-        } else {
-            // if this is a "value" object, like enum, DistanceUnit, ..., just toString it
-            // yea, it can be misleading when toString a Java class, but really, jackson should be used in that case
-            generator.writeString(value.toString());
         }
+        valueWriters.writer(value.getClass()).write(this, value);
     }
 }
@@ -0,0 +1,470 @@
+package org.xbib.content.core;
+
+import org.xbib.content.XContent;
+import org.xbib.content.XContentParser;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * A parser which passes only the fields of another parser that match include and exclude path patterns.
+ *
+ * A path pattern is a dot-separated sequence of field names, like {@code title}, {@code identifiers.*},
+ * or {@code holdings.location}. A {@code *} in a name matches any sequence of characters in one field name.
+ * Arrays do not add to the path, the objects in an array have the path of the array, so
+ * {@code holdings.location} matches the locations in {@code "holdings":[{"location":"here"}]}, and
+ * {@code holdings.*.location} does not, because {@code *} does not match an array element.
+ * A field is included if its path, or the path of one of its parents, matches an include pattern,
+ * and no exclude pattern matches.
+ * Without include patterns, all fields are included which are not excluded.
+ *
+ * Subtrees which can not contain matching fields are skipped by {@link XContentParser#skipChildren()} of
+ * the underlying parser, without decoding them. Objects and arrays which only may contain matching fields
+ * are held back until a matching field is found, so parents without a matching field are dropped.
+ * The root object or array is always passed.
+ */
+public class FilteringXContentParser extends AbstractXContentParser {
+
+    private static final int SKIP = 0;
+
+    private static final int PARTIAL = 1;
+
+    private static final int PARTIAL_INCLUDED = 2;
+
+    private static final int FULL = 3;
+
+    private final XContentParser parser;
+
+    private final String[][] includes;
+
+    private final String[][] excludes;
+
+    private final Deque<Level> levels;
+
+    private final Deque<Pending> pending;
+
+    private String[] path;
+
+    private boolean deferred;
+
+    private Pending replayed;
+
+    /**
+     * Create a filtering parser. If the underlying parser is positioned at the start of an object or array,
+     * filtering starts there.
+     * @param parser the underlying parser
+     * @param includes the include patterns, may be null or empty
+     * @param excludes the exclude patterns, may be null or empty
+     */
+    public FilteringXContentParser(XContentParser parser, Collection<String> includes, Collection<String> excludes) {
+        this.parser = parser;
+        this.includes = compile(includes);
+        this.excludes = compile(excludes);
+        this.levels = new ArrayDeque<>();
+        this.pending = new ArrayDeque<>();
+        this.path = new String[8];
+        XContentParser.Token t = parser.currentToken();
+        if (t == XContentParser.Token.START_OBJECT || t == XContentParser.Token.START_ARRAY) {
+            levels.push(rootLevel());
+        }
+    }
+
+    @Override
+    public XContent content() {
+        return parser.content();
+    }
+
+    @Override
+    public XContentParser.Token nextToken() throws IOException {
+        if (!pending.isEmpty()) {
+            replayed = pending.poll();
+            return replayed.token;
+        }
+        replayed = null;
+        if (deferred) {
+            deferred = false;
+            return parser.currentToken();
+        }
+        while (true) {
+            XContentParser.Token t = parser.nextToken();
+            if (t == null) {
+                return null;
+            }
+            Level level = levels.peek();
+            boolean container = t == XContentParser.Token.START_OBJECT || t == XContentParser.Token.START_ARRAY;
+            if (level == null) {
+                if (container) {
+                    levels.push(rootLevel());
+                }
+                return t;
+            }
+            if (level.full) {
+                if (container) {
+                    levels.push(new Level(level.depth, true, true, true, null, null));
+                } else if (t == XContentParser.Token.END_OBJECT || t == XContentParser.Token.END_ARRAY) {
+                    levels.pop();
+                }
+                return t;
+            }
+            switch (t) {
+                case END_OBJECT:
+                case END_ARRAY:
+                    levels.pop();
+                    if (level.emitted) {
+                        return t;
+                    }
+                    break;
+                case FIELD_NAME:
+                    String name = parser.currentName();
+                    int depth = level.depth + 1;
+                    if (depth > path.length) {
+                        path = Arrays.copyOf(path, path.length << 1);
+                    }
+                    path[level.depth] = name;
+                    XContentParser.Token value = parser.nextToken();
+                    boolean valueContainer = value == XContentParser.Token.START_OBJECT ||
+                            value == XContentParser.Token.START_ARRAY;
+                    int status = match(depth, level.included);
+                    if (status == SKIP || (status == PARTIAL && !valueContainer)) {
+                        if (valueContainer) {
+                            parser.skipChildren();
+                        }
+                        break;
+                    }
+                    if (status == PARTIAL) {
+                        levels.push(new Level(depth, false, false, false, name, value));
+                        break;
+                    }
+                    flush();
+                    if (valueContainer) {
+                        levels.push(new Level(depth, status == FULL, true, true, null, null));
+                    }
+                    pending.add(new Pending(XContentParser.Token.FIELD_NAME, name));
+                    deferred = true;
+                    replayed = pending.poll();
+                    return replayed.token;
+                default:
+                    // a value in an array, the array path matched partially
+                    if (level.included) {
+                        if (container) {
+                            levels.push(new Level(level.depth, false, true, true, null, null));
+                        }
+                        return t;
+                    }
+                    if (container) {
+                        levels.push(new Level(level.depth, false, false, false, null, t));
+                    }
+                    break;
+            }
+        }
+    }
+
+    @Override
+    public void skipChildren() throws IOException {
+        XContentParser.Token t = currentToken();
+        if (t != XContentParser.Token.START_OBJECT && t != XContentParser.Token.START_ARRAY) {
+            return;
+        }
+        if (replayed == null && pending.isEmpty() && !deferred) {
+            parser.skipChildren();
+            levels.pop();
+            return;
+        }
+        int depth = 1;
+        while (depth > 0) {
+            t = nextToken();
+            if (t == null) {
+                return;
+            }
+            if (t == XContentParser.Token.START_OBJECT || t == XContentParser.Token.START_ARRAY) {
+                depth++;
+            } else if (t == XContentParser.Token.END_OBJECT || t == XContentParser.Token.END_ARRAY) {
+                depth--;
+            }
+        }
+    }
+
+    @Override
+    public XContentParser.Token currentToken() {
+        return replayed != null ? replayed.token : parser.currentToken();
+    }
+
+    @Override
+    public String currentName() throws IOException {
+        return replayed != null ? replayed.name : parser.currentName();
+    }
+
+    @Override
+    protected MapFactory getMapFactory() {
+        return parser instanceof AbstractXContentParser ?
+                ((AbstractXContentParser) parser).getMapFactory() : HashMap::new;
+    }
+
+    @Override
+    protected MapFactory getOrderedMapFactory() {
+        return parser instanceof AbstractXContentParser ?
+                ((AbstractXContentParser) parser).getOrderedMapFactory() : LinkedHashMap::new;
+    }
+
+    @Override
+    public String text() throws IOException {
+        return parser.text();
+    }
+
+    @Override
+    public boolean hasTextCharacters() {
+        return parser.hasTextCharacters();
+    }
+
+    @Override
+    public char[] textCharacters() throws IOException {
+        return parser.textCharacters();
+    }
+
+    @Override
+    public int textLength() throws IOException {
+        return parser.textLength();
+    }
+
+    @Override
+    public int textOffset() throws IOException {
+        return parser.textOffset();
+    }
+
+    @Override
+    public Number numberValue() throws IOException {
+        return parser.numberValue();
+    }
+
+    @Override
+    public XContentParser.NumberType numberType() throws IOException {
+        return parser.numberType();
+    }
+
+    @Override
+    public boolean estimatedNumberType() {
+        return parser.estimatedNumberType();
+    }
+
+    @Override
+    protected boolean doBooleanValue() throws IOException {
+        return parser.booleanValue();
+    }
+
+    @Override
+    protected short doShortValue() throws IOException {
+        return parser.shortValue();
+    }
+
+    @Override
+    protected int doIntValue() throws IOException {
+        return parser.intValue();
+    }
+
+    @Override
+    protected long doLongValue() throws IOException {
+        return parser.longValue();
+    }
+
+    @Override
+    protected float doFloatValue() throws IOException {
+        return parser.floatValue();
+    }
+
+    @Override
+    protected double doDoubleValue() throws IOException {
+        return parser.doubleValue();
+    }
+
+    @Override
+    public BigInteger bigIntegerValue() throws IOException {
+        return parser.bigIntegerValue();
+    }
+
+    @Override
+    public BigDecimal bigDecimalValue() throws IOException {
+        return parser.bigDecimalValue();
+    }
+
+    @Override
+    public byte[] binaryValue() throws IOException {
+        return parser.binaryValue();
+    }
+
+    @Override
+    public XContentParser losslessDecimals(boolean losslessDecimals) {
+        parser.losslessDecimals(losslessDecimals);
+        return this;
+    }
+
+    @Override
+    public boolean isLosslessDecimals() {
+        return parser.isLosslessDecimals();
+    }
+
+    @Override
+    public XContentParser enableBase16Checks(boolean base16Checks) {
+        parser.enableBase16Checks(base16Checks);
+        return this;
+    }
+
+    @Override
+    public boolean isBase16Checks() {
+        return parser.isBase16Checks();
+    }
+
+    @Override
+    public long tokenOffset() {
+        return replayed != null ? -1L : parser.tokenOffset();
+    }
+
+    @Override
+    public boolean hasNumberText() {
+        return parser.hasNumberText();
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+
+    private Level rootLevel() {
+        if (includes.length == 0 && excludes.length == 0) {
+            return new Level(0, true, true, true, null, null);
+        }
+        return new Level(0, false, includes.length == 0, true, null, null);
+    }
+
+    /**
+     * Queue the held back parents of a matching field.
+     */
+    private void flush() {
+        Iterator<Level> it = levels.descendingIterator();
+        while (it.hasNext()) {
+            Level level = it.next();
+            if (!level.emitted) {
+                if (level.name != null) {
+                    pending.add(new Pending(XContentParser.Token.FIELD_NAME, level.name));
+                }
+                pending.add(new Pending(level.token, level.name));
+                level.emitted = true;
+            }
+        }
+    }
+
+    private int match(int depth, boolean included) {
+        for (String[] exclude : excludes) {
+            if (exclude.length == depth && matches(exclude, depth)) {
+                return SKIP;
+            }
+        }
+        if (included || matchesAny(includes, depth)) {
+            for (String[] exclude : excludes) {
+                if (exclude.length > depth && matches(exclude, depth)) {
+                    return PARTIAL_INCLUDED;
+                }
+            }
+            return FULL;
+        }
+        for (String[] include : includes) {
+            if (include.length > depth && matches(include, depth)) {
+                return PARTIAL;
+            }
+        }
+        return SKIP;
+    }
+
+    private boolean matchesAny(String[][] patterns, int depth) {
+        for (String[] pattern : patterns) {
+            if (pattern.length == depth && matches(pattern, depth)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matches(String[] pattern, int depth) {
+        for (int i = 0; i < depth; i++) {
+            if (!matches(pattern[i], path[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(String pattern, String name) {
+        int star = pattern.indexOf('*');
+        if (star < 0) {
+            return pattern.equals(name);
+        }
+        if (!name.regionMatches(0, pattern, 0, star)) {
+            return false;
+        }
+        int pos = star;
+        while (true) {
+            int next = pattern.indexOf('*', star + 1);
+            if (next < 0) {
+                int suffix = pattern.length() - star - 1;
+                return name.length() - suffix >= pos &&
+                        name.regionMatches(name.length() - suffix, pattern, star + 1, suffix);
+            }
+            String part = pattern.substring(star + 1, next);
+            int found = name.indexOf(part, pos);
+            if (found < 0) {
+                return false;
+            }
+            pos = found + part.length();
+            star = next;
+        }
+    }
+
+    private static String[][] compile(Collection<String> patterns) {
+        if (patterns == null) {
+            return new String[0][];
+        }
+        return patterns.stream().map(p -> p.split("\\.")).toArray(String[][]::new);
+    }
+
+    private static class Level {
+
+        private final int depth;
+
+        private final boolean full;
+
+        private final boolean included;
+
+        private final String name;
+
+        private final XContentParser.Token token;
+
+        private boolean emitted;
+
+        Level(int depth, boolean full, boolean included, boolean emitted, String name, XContentParser.Token token) {
+            this.depth = depth;
+            this.full = full;
+            this.included = included;
+            this.emitted = emitted;
+            this.name = name;
+            this.token = token;
+        }
+    }
+
+    private static class Pending {
+
+        private final XContentParser.Token token;
+
+        private final String name;
+
+        Pending(XContentParser.Token token, String name) {
+            this.token = token;
+            this.name = name;
+        }
+    }
+}
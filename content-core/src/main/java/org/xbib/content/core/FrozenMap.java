@@ -0,0 +1,223 @@
+package org.xbib.content.core;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable insertion-ordered map with a collision-free hash table, for maps which are retained after
+ * they have been built, for example parsed documents in a cache.
+ *
+ * When the map is created, hash seeds are tried until the keys are spread over the table without
+ * collisions, so a lookup mostly compares a single key. If no such seed is found within a few tries,
+ * for example because keys have equal hash codes, the best seed is taken and collisions are probed
+ * linearly. Keys and values are kept in two arrays of the exact size, and the table holds byte, short,
+ * or int positions depending on the size of the map. Keys must not be null, values may be null.
+ * The map is thread-safe if its values are.
+ */
+public final class FrozenMap extends AbstractMap<String, Object> {
+
+    private static final int MAX_SEEDS = 16;
+
+    private static final FrozenMap EMPTY = new FrozenMap(new String[0], new Object[0], 0, new byte[1]);
+
+    private final String[] keys;
+
+    private final Object[] values;
+
+    private final int seed;
+
+    private final int mask;
+
+    /**
+     * The positions of the entries plus one, by the seeded hash of their keys, 0 marks a free slot.
+     * A byte, short, or int array.
+     */
+    private final Object table;
+
+    private Set<Map.Entry<String, Object>> entrySet;
+
+    private FrozenMap(String[] keys, Object[] values, int seed, Object table) {
+        this.keys = keys;
+        this.values = values;
+        this.seed = seed;
+        this.table = table;
+        this.mask = length(table) - 1;
+    }
+
+    /**
+     * Create an immutable copy of a map, in the iteration order of the map.
+     * @param map the map
+     * @return the immutable map
+     */
+    public static FrozenMap of(Map<String, ?> map) {
+        if (map instanceof FrozenMap) {
+            return (FrozenMap) map;
+        }
+        int n = map.size();
+        if (n == 0) {
+            return EMPTY;
+        }
+        String[] keys = new String[n];
+        Object[] values = new Object[n];
+        int i = 0;
+        for (Map.Entry<String, ?> entry : map.entrySet()) {
+            if (entry.getKey() == null) {
+                throw new NullPointerException("null key");
+            }
+            keys[i] = entry.getKey();
+            values[i] = entry.getValue();
+            i++;
+        }
+        int size = Integer.highestOneBit(n * 2 - 1) << 1;
+        int mask = size - 1;
+        int[] hashes = new int[n];
+        for (i = 0; i < n; i++) {
+            hashes[i] = OpenHashMap.hash(keys[i]);
+        }
+        int bestSeed = 0;
+        int bestCollisions = Integer.MAX_VALUE;
+        boolean[] used = new boolean[size];
+        for (int s = 0; s < MAX_SEEDS && bestCollisions > 0; s++) {
+            int seed = s * 0x61C88647;
+            Arrays.fill(used, false);
+            int collisions = 0;
+            for (i = 0; i < n && collisions < bestCollisions; i++) {
+                int slot = mix(hashes[i], seed) & mask;
+                if (used[slot]) {
+                    collisions++;
+                } else {
+                    used[slot] = true;
+                }
+            }
+            if (collisions < bestCollisions) {
+                bestCollisions = collisions;
+                bestSeed = seed;
+            }
+        }
+        Object table = n < Byte.MAX_VALUE ? new byte[size] : n < Short.MAX_VALUE ? new short[size] : new int[size];
+        for (i = 0; i < n; i++) {
+            int slot = mix(hashes[i], bestSeed) & mask;
+            while (get(table, slot) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            set(table, slot, i + 1);
+        }
+        return new FrozenMap(keys, values, bestSeed, table);
+    }
+
+    @Override
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int i = indexOf(key);
+        return i >= 0 ? values[i] : null;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object remove(Object key) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return keys.length;
+                }
+
+                @Override
+                public Iterator<Map.Entry<String, Object>> iterator() {
+                    return new Iterator<>() {
+
+                        private int i;
+
+                        @Override
+                        public boolean hasNext() {
+                            return i < keys.length;
+                        }
+
+                        @Override
+                        public Map.Entry<String, Object> next() {
+                            if (i >= keys.length) {
+                                throw new NoSuchElementException();
+                            }
+                            Map.Entry<String, Object> entry = new SimpleImmutableEntry<>(keys[i], values[i]);
+                            i++;
+                            return entry;
+                        }
+                    };
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    private int indexOf(Object key) {
+        if (key == null || keys.length == 0) {
+            return -1;
+        }
+        int slot = mix(OpenHashMap.hash(key), seed) & mask;
+        int p;
+        while ((p = get(table, slot)) != 0) {
+            if (key.equals(keys[p - 1])) {
+                return p - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static int mix(int hash, int seed) {
+        int h = (hash ^ seed) * 0x85EBCA6B;
+        return h ^ (h >>> 13);
+    }
+
+    private static int length(Object table) {
+        if (table instanceof byte[]) {
+            return ((byte[]) table).length;
+        }
+        return table instanceof short[] ? ((short[]) table).length : ((int[]) table).length;
+    }
+
+    private static int get(Object table, int slot) {
+        if (table instanceof byte[]) {
+            return ((byte[]) table)[slot];
+        }
+        return table instanceof short[] ? ((short[]) table)[slot] : ((int[]) table)[slot];
+    }
+
+    private static void set(Object table, int slot, int value) {
+        if (table instanceof byte[]) {
+            ((byte[]) table)[slot] = (byte) value;
+        } else if (table instanceof short[]) {
+            ((short[]) table)[slot] = (short) value;
+        } else {
+            ((int[]) table)[slot] = value;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.xbib.content.core;
+
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An insertion-ordered map for building the maps of {@link MapFactory#compact()} and {@link MapFactory#frozen()}.
+ *
+ * The entries are kept in an {@link ArrayMap} while the map is small, and moved to an {@link OpenHashMap}
+ * when the map grows beyond {@link MapFactory#SMALL_MAP_SIZE} entries, so building a map with many fields
+ * does not scan all previous keys for each new one. The map is not thread-safe.
+ */
+final class GrowingMap extends AbstractMap<String, Object> {
+
+    private Map<String, Object> map;
+
+    GrowingMap() {
+        this.map = new ArrayMap();
+    }
+
+    /**
+     * Return the map holding the entries, an {@link ArrayMap} or an {@link OpenHashMap}.
+     * @return the map
+     */
+    Map<String, Object> map() {
+        return map;
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return map.containsKey(key);
+    }
+
+    @Override
+    public Object get(Object key) {
+        return map.get(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        if (map.size() == MapFactory.SMALL_MAP_SIZE && map instanceof ArrayMap) {
+            map = new OpenHashMap(map);
+        }
+        return map.put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        return map.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return map.entrySet();
+    }
+}
@@ -0,0 +1,405 @@
+package org.xbib.content.core;
+
+import org.xbib.content.XContent;
+import org.xbib.content.XContentParser;
+import org.xbib.content.io.BytesReference;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A read-only {@link Map} view over an object in a {@link BytesReference}.
+ *
+ * Creating the view scans the object once and records the field names and the byte offsets of
+ * the field values, nested objects and arrays are skipped. A value is decoded when it is accessed
+ * for the first time, nested objects become lazy maps again, and arrays become lazy lists.
+ * Decoded values are cached. The view is immutable and can be shared between threads,
+ * a value may be decoded more than once if threads access it concurrently.
+ *
+ * Duplicate field names are resolved like in a map, the last value wins. The field order of the
+ * content is kept.
+ */
+public final class LazyMap extends AbstractMap<String, Object> {
+
+    /**
+     * The number of fields from which on field names are looked up by a hash index.
+     */
+    private static final int INDEX_THRESHOLD = 8;
+
+    private final String[] names;
+
+    private final Map<String, Integer> index;
+
+    private final Values values;
+
+    private LazyMap(String[] names, Map<String, Integer> index, Values values) {
+        this.names = names;
+        this.index = index;
+        this.values = values;
+    }
+
+    /**
+     * Create a lazy map over content. The content type must report token offsets by
+     * {@link XContentParser#tokenOffset()}.
+     * @param xContent the content type
+     * @param bytes the content
+     * @return the lazy map
+     * @throws IOException if the content is not an object or can not be parsed
+     */
+    public static LazyMap of(XContent xContent, BytesReference bytes) throws IOException {
+        try (XContentParser parser = xContent.createParser(bytes.streamInput())) {
+            parser.nextToken();
+            return of(xContent, bytes, parser);
+        }
+    }
+
+    /**
+     * Create a lazy map from a parser over content, positioned at the start of the object.
+     * @param xContent the content type
+     * @param bytes the content
+     * @param parser the parser
+     * @return the lazy map
+     * @throws IOException if the content is not an object or can not be parsed
+     */
+    static LazyMap of(XContent xContent, BytesReference bytes, XContentParser parser) throws IOException {
+        if (parser.currentToken() != XContentParser.Token.START_OBJECT) {
+            throw new IOException("content is not an object: " + parser.currentToken());
+        }
+        return scanObject(xContent, bytes, parser);
+    }
+
+    @Override
+    public int size() {
+        return names.length;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int i = indexOf(key);
+        return i >= 0 ? values.get(i) : null;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new Iterator<>() {
+                    private int i;
+
+                    @Override
+                    public boolean hasNext() {
+                        return i < names.length;
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (i >= names.length) {
+                            throw new NoSuchElementException();
+                        }
+                        return new LazyEntry(i++);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return names.length;
+            }
+        };
+    }
+
+    private int indexOf(Object key) {
+        if (index != null) {
+            Integer i = index.get(key);
+            return i != null ? i : -1;
+        }
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static LazyMap scanObject(XContent xContent, BytesReference bytes, XContentParser parser)
+            throws IOException {
+        String[] names = new String[INDEX_THRESHOLD];
+        int[] starts = new int[INDEX_THRESHOLD];
+        int[] ends = new int[INDEX_THRESHOLD];
+        Map<String, Integer> index = null;
+        int count = 0;
+        int previous = -1;
+        XContentParser.Token t = parser.nextToken();
+        while (t == XContentParser.Token.FIELD_NAME) {
+            if (previous >= 0) {
+                ends[previous] = offset(parser);
+            }
+            String name = parser.currentName();
+            int start = offset(parser.nextToken(), parser);
+            int i;
+            if (index != null) {
+                i = index.getOrDefault(name, -1);
+            } else {
+                i = -1;
+                for (int j = 0; j < count; j++) {
+                    if (names[j].equals(name)) {
+                        i = j;
+                        break;
+                    }
+                }
+            }
+            if (i < 0) {
+                if (count == names.length) {
+                    names = Arrays.copyOf(names, count << 1);
+                    starts = Arrays.copyOf(starts, count << 1);
+                    ends = Arrays.copyOf(ends, count << 1);
+                }
+                i = count++;
+                names[i] = name;
+                if (index != null) {
+                    index.put(name, i);
+                } else if (count > INDEX_THRESHOLD) {
+                    index = new HashMap<>();
+                    for (int j = 0; j < count; j++) {
+                        index.put(names[j], j);
+                    }
+                }
+            }
+            starts[i] = start;
+            previous = i;
+            skip(parser);
+            t = parser.nextToken();
+        }
+        if (t != XContentParser.Token.END_OBJECT) {
+            throw new IOException("unexpected token in object: " + t);
+        }
+        if (previous >= 0) {
+            ends[previous] = offset(parser);
+        }
+        return new LazyMap(Arrays.copyOf(names, count), index,
+                new Values(xContent, bytes, Arrays.copyOf(starts, count), Arrays.copyOf(ends, count)));
+    }
+
+    private static List<Object> scanArray(XContent xContent, BytesReference bytes, XContentParser parser)
+            throws IOException {
+        int[] starts = new int[INDEX_THRESHOLD];
+        int[] ends = new int[INDEX_THRESHOLD];
+        int count = 0;
+        XContentParser.Token t = parser.nextToken();
+        while (t != XContentParser.Token.END_ARRAY) {
+            int start = offset(t, parser);
+            if (count > 0) {
+                ends[count - 1] = start;
+            }
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count << 1);
+                ends = Arrays.copyOf(ends, count << 1);
+            }
+            starts[count++] = start;
+            skip(parser);
+            t = parser.nextToken();
+        }
+        if (count > 0) {
+            ends[count - 1] = offset(parser);
+        }
+        return new LazyList(new Values(xContent, bytes, Arrays.copyOf(starts, count), Arrays.copyOf(ends, count)));
+    }
+
+    private static void skip(XContentParser parser) throws IOException {
+        XContentParser.Token t = parser.currentToken();
+        if (t == XContentParser.Token.START_OBJECT || t == XContentParser.Token.START_ARRAY) {
+            parser.skipChildren();
+        }
+    }
+
+    private static int offset(XContentParser.Token t, XContentParser parser) throws IOException {
+        if (t == null) {
+            throw new IOException("unexpected end of content");
+        }
+        return offset(parser);
+    }
+
+    private static int offset(XContentParser parser) throws IOException {
+        long offset = parser.tokenOffset();
+        if (offset < 0L) {
+            throw new IOException("token offsets not supported by " + parser.content().name());
+        }
+        return (int) offset;
+    }
+
+    private class LazyEntry implements Entry<String, Object> {
+
+        private final int i;
+
+        LazyEntry(int i) {
+            this.i = i;
+        }
+
+        @Override
+        public String getKey() {
+            return names[i];
+        }
+
+        @Override
+        public Object getValue() {
+            return values.get(i);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            return names[i].equals(e.getKey()) && Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            Object value = getValue();
+            return names[i].hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return names[i] + "=" + getValue();
+        }
+    }
+
+    private static final class LazyList extends AbstractList<Object> implements RandomAccess {
+
+        private final Values values;
+
+        LazyList(Values values) {
+            this.values = values;
+        }
+
+        @Override
+        public Object get(int index) {
+            return values.get(index);
+        }
+
+        @Override
+        public int size() {
+            return values.size();
+        }
+    }
+
+    /**
+     * The byte ranges of values, and the values decoded so far.
+     */
+    private static final class Values {
+
+        private static final Object NULL = new Object();
+
+        private final XContent xContent;
+
+        private final BytesReference bytes;
+
+        private final int[] starts;
+
+        private final int[] ends;
+
+        private final AtomicReferenceArray<Object> decoded;
+
+        Values(XContent xContent, BytesReference bytes, int[] starts, int[] ends) {
+            this.xContent = xContent;
+            this.bytes = bytes;
+            this.starts = starts;
+            this.ends = ends;
+            this.decoded = new AtomicReferenceArray<>(starts.length);
+        }
+
+        int size() {
+            return starts.length;
+        }
+
+        Object get(int i) {
+            Object value = decoded.get(i);
+            if (value == null) {
+                try {
+                    value = decode(i);
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("failed to parse content at offset " + starts[i], e);
+                }
+                decoded.set(i, value);
+            }
+            return value == NULL ? null : value;
+        }
+
+        private Object decode(int i) throws IOException {
+            int start = starts[i];
+            int end = ends[i];
+            // the range reaches up to the next token, drop separators so the value can be parsed on its own
+            while (end > start && isSeparator(bytes.get(end - 1))) {
+                end--;
+            }
+            BytesReference slice = bytes.slice(start, end - start);
+            try (XContentParser parser = xContent.createParser(slice.streamInput())) {
+                XContentParser.Token t = parser.nextToken();
+                if (t == null) {
+                    throw new IOException("unexpected end of content");
+                }
+                switch (t) {
+                    case START_OBJECT:
+                        return scanObject(xContent, slice, parser);
+                    case START_ARRAY:
+                        return scanArray(xContent, slice, parser);
+                    case VALUE_STRING:
+                        return parser.text();
+                    case VALUE_NUMBER:
+                        return number(parser);
+                    case VALUE_BOOLEAN:
+                        return parser.booleanValue();
+                    case VALUE_EMBEDDED_OBJECT:
+                        return parser.binaryValue();
+                    default:
+                        return NULL;
+                }
+            }
+        }
+
+        private static Object number(XContentParser parser) throws IOException {
+            switch (parser.numberType()) {
+                case INT:
+                    return parser.intValue();
+                case LONG:
+                    return parser.longValue();
+                case FLOAT:
+                    return parser.floatValue();
+                case DOUBLE:
+                    return parser.doubleValue();
+                case BIG_INTEGER:
+                    return parser.bigIntegerValue();
+                default:
+                    return parser.bigDecimalValue();
+            }
+        }
+
+        private static boolean isSeparator(byte b) {
+            return b == ',' || b == ' ' || b == '\t' || b == '\r' || b == '\n';
+        }
+    }
+}
@@ -2,7 +2,78 @@ package org.xbib.content.core;
 
 import java.util.Map;
 
+/**
+ * Creates the maps for the objects read by {@link AbstractXContentParser#map()} and
+ * {@link AbstractXContentParser#mapOrdered()}. A map is created empty, filled with the fields of an object,
+ * and then passed to {@link #complete(Map)}, which may return a more compact form of it.
+ */
 @FunctionalInterface
 public interface MapFactory {
+
+    /**
+     * The number of fields up to which {@link #compact()} keeps a map in an {@link ArrayMap}.
+     */
+    int SMALL_MAP_SIZE = 8;
+
     Map<String, Object> newMap();
+
+    /**
+     * Complete a map after all fields of an object have been put into it.
+     * @param map the map created by {@link #newMap()}
+     * @return the map to be returned by the parser
+     */
+    default Map<String, Object> complete(Map<String, Object> map) {
+        return map;
+    }
+
+    /**
+     * Return a factory for insertion-ordered maps which keeps small maps in an {@link ArrayMap} and
+     * larger maps in an {@link OpenHashMap}. A map is moved to an {@link OpenHashMap} as soon as it grows
+     * beyond {@link #SMALL_MAP_SIZE} fields while it is built. The maps are mutable.
+     * @return the factory
+     */
+    static MapFactory compact() {
+        return new MapFactory() {
+            @Override
+            public Map<String, Object> newMap() {
+                return new GrowingMap();
+            }
+
+            @Override
+            public Map<String, Object> complete(Map<String, Object> map) {
+                Map<String, Object> m = ((GrowingMap) map).map();
+                if (m instanceof ArrayMap) {
+                    ((ArrayMap) m).trim();
+                }
+                return m;
+            }
+        };
+    }
+
+    /**
+     * Return a factory for insertion-ordered {@link OpenHashMap} maps. The maps are mutable.
+     * @return the factory
+     */
+    static MapFactory openHash() {
+        return OpenHashMap::new;
+    }
+
+    /**
+     * Return a factory for immutable insertion-ordered {@link FrozenMap} maps, for parsed documents which
+     * are retained, for example in a cache. The maps are built like the maps of {@link #compact()}.
+     * @return the factory
+     */
+    static MapFactory frozen() {
+        return new MapFactory() {
+            @Override
+            public Map<String, Object> newMap() {
+                return new GrowingMap();
+            }
+
+            @Override
+            public Map<String, Object> complete(Map<String, Object> map) {
+                return FrozenMap.of(((GrowingMap) map).map());
+            }
+        };
+    }
 }
@@ -0,0 +1,289 @@
+package org.xbib.content.core;
+
+import org.xbib.content.XContent;
+import org.xbib.content.XContentBuilder;
+import org.xbib.content.XContentGenerator;
+import org.xbib.content.XContentParser;
+import org.xbib.content.io.BytesReference;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * A generator which counts the tokens written to another generator. The builder owning the generator
+ * records the document to {@link XContentMetrics}, see {@link DefaultXContentBuilder}.
+ */
+public class MeteredXContentGenerator extends AbstractXContentGenerator {
+
+    private long tokens;
+
+    /**
+     * Create a metered generator.
+     * @param generator the underlying generator
+     */
+    public MeteredXContentGenerator(XContentGenerator generator) {
+        setGenerator(generator);
+    }
+
+    /**
+     * Return the number of tokens written so far. Copied structures and raw values count as one token.
+     * @return the number of tokens
+     */
+    public long tokens() {
+        return tokens;
+    }
+
+    @Override
+    public XContent content() {
+        return generator.content();
+    }
+
+    @Override
+    public void usePrettyPrint() {
+        generator.usePrettyPrint();
+    }
+
+    @Override
+    public void writeStartArray() throws IOException {
+        tokens += 1;
+        generator.writeStartArray();
+    }
+
+    @Override
+    public void writeEndArray() throws IOException {
+        tokens += 1;
+        generator.writeEndArray();
+    }
+
+    @Override
+    public void writeStartObject() throws IOException {
+        tokens += 1;
+        generator.writeStartObject();
+    }
+
+    @Override
+    public void writeEndObject() throws IOException {
+        tokens += 1;
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void writeFieldName(String name) throws IOException {
+        tokens += 1;
+        generator.writeFieldName(name);
+    }
+
+    @Override
+    public void writeFieldName(char[] name, int offset, int len) throws IOException {
+        tokens += 1;
+        generator.writeFieldName(name, offset, len);
+    }
+
+    @Override
+    public void writeString(String text) throws IOException {
+        tokens += 1;
+        generator.writeString(text);
+    }
+
+    @Override
+    public void writeString(char[] text, int offset, int len) throws IOException {
+        tokens += 1;
+        generator.writeString(text, offset, len);
+    }
+
+    @Override
+    public void writeUTF8String(byte[] text, int offset, int length) throws IOException {
+        tokens += 1;
+        generator.writeUTF8String(text, offset, length);
+    }
+
+    @Override
+    public void writeBinary(byte[] data, int offset, int len) throws IOException {
+        tokens += 1;
+        generator.writeBinary(data, offset, len);
+    }
+
+    @Override
+    public void writeBinary(byte[] data) throws IOException {
+        tokens += 1;
+        generator.writeBinary(data);
+    }
+
+    @Override
+    public void writeNumber(int v) throws IOException {
+        tokens += 1;
+        generator.writeNumber(v);
+    }
+
+    @Override
+    public void writeNumber(long v) throws IOException {
+        tokens += 1;
+        generator.writeNumber(v);
+    }
+
+    @Override
+    public void writeNumber(double d) throws IOException {
+        tokens += 1;
+        generator.writeNumber(d);
+    }
+
+    @Override
+    public void writeNumber(char[] text, int offset, int len) throws IOException {
+        tokens += 1;
+        generator.writeNumber(text, offset, len);
+    }
+
+    @Override
+    public void writeNumber(float f) throws IOException {
+        tokens += 1;
+        generator.writeNumber(f);
+    }
+
+    @Override
+    public void writeNumber(BigInteger bi) throws IOException {
+        tokens += 1;
+        generator.writeNumber(bi);
+    }
+
+    @Override
+    public void writeNumber(BigDecimal bd) throws IOException {
+        tokens += 1;
+        generator.writeNumber(bd);
+    }
+
+    @Override
+    public void writeBoolean(boolean b) throws IOException {
+        tokens += 1;
+        generator.writeBoolean(b);
+    }
+
+    @Override
+    public void writeNull() throws IOException {
+        tokens += 1;
+        generator.writeNull();
+    }
+
+    @Override
+    public void writeStringField(String fieldName, String value) throws IOException {
+        tokens += 2;
+        generator.writeStringField(fieldName, value);
+    }
+
+    @Override
+    public void writeBooleanField(String fieldName, boolean value) throws IOException {
+        tokens += 2;
+        generator.writeBooleanField(fieldName, value);
+    }
+
+    @Override
+    public void writeNullField(String fieldName) throws IOException {
+        tokens += 2;
+        generator.writeNullField(fieldName);
+    }
+
+    @Override
+    public void writeNumberField(String fieldName, int value) throws IOException {
+        tokens += 2;
+        generator.writeNumberField(fieldName, value);
+    }
+
+    @Override
+    public void writeNumberField(String fieldName, long value) throws IOException {
+        tokens += 2;
+        generator.writeNumberField(fieldName, value);
+    }
+
+    @Override
+    public void writeNumberField(String fieldName, double value) throws IOException {
+        tokens += 2;
+        generator.writeNumberField(fieldName, value);
+    }
+
+    @Override
+    public void writeNumberField(String fieldName, float value) throws IOException {
+        tokens += 2;
+        generator.writeNumberField(fieldName, value);
+    }
+
+    @Override
+    public void writeNumberField(String fieldName, BigInteger value) throws IOException {
+        tokens += 2;
+        generator.writeNumberField(fieldName, value);
+    }
+
+    @Override
+    public void writeNumberField(String fieldName, BigDecimal value) throws IOException {
+        tokens += 2;
+        generator.writeNumberField(fieldName, value);
+    }
+
+    @Override
+    public void writeBinaryField(String fieldName, byte[] data) throws IOException {
+        tokens += 2;
+        generator.writeBinaryField(fieldName, data);
+    }
+
+    @Override
+    public void writeArrayFieldStart(String fieldName) throws IOException {
+        tokens += 2;
+        generator.writeArrayFieldStart(fieldName);
+    }
+
+    @Override
+    public void writeObjectFieldStart(String fieldName) throws IOException {
+        tokens += 2;
+        generator.writeObjectFieldStart(fieldName);
+    }
+
+    @Override
+    public void writeRawField(String fieldName, byte[] content, OutputStream outputStream) throws IOException {
+        tokens += 2;
+        generator.writeRawField(fieldName, content, outputStream);
+    }
+
+    @Override
+    public void writeRawField(String fieldName, byte[] content, int offset, int length, OutputStream outputStream)
+            throws IOException {
+        tokens += 2;
+        generator.writeRawField(fieldName, content, offset, length, outputStream);
+    }
+
+    @Override
+    public void writeRawValue(BytesReference value, OutputStream outputStream) throws IOException {
+        tokens++;
+        if (generator instanceof AbstractXContentGenerator) {
+            ((AbstractXContentGenerator) generator).writeRawValue(value, outputStream);
+        } else {
+            copyRawValue(generator, value);
+        }
+    }
+
+    @Override
+    public void writeValue(XContentBuilder builder) throws IOException {
+        tokens++;
+        generator.writeValue(builder);
+    }
+
+    @Override
+    public void copy(XContentBuilder builder, OutputStream outputStream) throws IOException {
+        tokens++;
+        generator.copy(builder, outputStream);
+    }
+
+    @Override
+    public void copyCurrentStructure(XContentParser parser) throws IOException {
+        tokens++;
+        generator.copyCurrentStructure(parser);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
@@ -0,0 +1,232 @@
+package org.xbib.content.core;
+
+import org.xbib.content.XContent;
+import org.xbib.content.XContentParser;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * A parser which counts the tokens of another parser, and records the parsed document to
+ * {@link XContentMetrics} when it is closed. The latency is measured from the creation to the close
+ * of the parser. See {@link XContentMetrics#meter(XContentParser, long)}.
+ */
+public class MeteredXContentParser extends AbstractXContentParser {
+
+    private final XContentParser parser;
+
+    private final XContentMetrics metrics;
+
+    private final LongSupplier bytes;
+
+    private final long startNanos;
+
+    private long tokens;
+
+    private boolean closed;
+
+    /**
+     * Create a metered parser.
+     * @param parser the underlying parser
+     * @param metrics the metrics
+     * @param bytes the length of the parsed content, or -1 if unknown
+     */
+    public MeteredXContentParser(XContentParser parser, XContentMetrics metrics, long bytes) {
+        this(parser, metrics, () -> bytes);
+    }
+
+    /**
+     * Create a metered parser for content of a length which is known when the parser is closed,
+     * for example the count of a stream.
+     * @param parser the underlying parser
+     * @param metrics the metrics
+     * @param bytes the number of parsed bytes, asked for when the parser is closed
+     */
+    MeteredXContentParser(XContentParser parser, XContentMetrics metrics, LongSupplier bytes) {
+        this.parser = parser;
+        this.metrics = metrics;
+        this.bytes = bytes;
+        this.startNanos = System.nanoTime();
+    }
+
+    @Override
+    public XContent content() {
+        return parser.content();
+    }
+
+    @Override
+    public XContentParser.Token nextToken() throws IOException {
+        XContentParser.Token t = parser.nextToken();
+        if (t != null && t != XContentParser.Token.NOT_AVAILABLE) {
+            tokens++;
+        }
+        return t;
+    }
+
+    @Override
+    public void skipChildren() throws IOException {
+        parser.skipChildren();
+    }
+
+    @Override
+    public XContentParser.Token currentToken() {
+        return parser.currentToken();
+    }
+
+    @Override
+    public String currentName() throws IOException {
+        return parser.currentName();
+    }
+
+    @Override
+    protected MapFactory getMapFactory() {
+        return parser instanceof AbstractXContentParser ?
+                ((AbstractXContentParser) parser).getMapFactory() : HashMap::new;
+    }
+
+    @Override
+    protected MapFactory getOrderedMapFactory() {
+        return parser instanceof AbstractXContentParser ?
+                ((AbstractXContentParser) parser).getOrderedMapFactory() : LinkedHashMap::new;
+    }
+
+    @Override
+    public String text() throws IOException {
+        return parser.text();
+    }
+
+    @Override
+    public boolean hasTextCharacters() {
+        return parser.hasTextCharacters();
+    }
+
+    @Override
+    public char[] textCharacters() throws IOException {
+        return parser.textCharacters();
+    }
+
+    @Override
+    public int textLength() throws IOException {
+        return parser.textLength();
+    }
+
+    @Override
+    public int textOffset() throws IOException {
+        return parser.textOffset();
+    }
+
+    @Override
+    public Number numberValue() throws IOException {
+        return parser.numberValue();
+    }
+
+    @Override
+    public XContentParser.NumberType numberType() throws IOException {
+        return parser.numberType();
+    }
+
+    @Override
+    public boolean estimatedNumberType() {
+        return parser.estimatedNumberType();
+    }
+
+    @Override
+    protected boolean doBooleanValue() throws IOException {
+        return parser.booleanValue();
+    }
+
+    @Override
+    protected short doShortValue() throws IOException {
+        return parser.shortValue();
+    }
+
+    @Override
+    protected int doIntValue() throws IOException {
+        return parser.intValue();
+    }
+
+    @Override
+    protected long doLongValue() throws IOException {
+        return parser.longValue();
+    }
+
+    @Override
+    protected float doFloatValue() throws IOException {
+        return parser.floatValue();
+    }
+
+    @Override
+    protected double doDoubleValue() throws IOException {
+        return parser.doubleValue();
+    }
+
+    @Override
+    public BigInteger bigIntegerValue() throws IOException {
+        return parser.bigIntegerValue();
+    }
+
+    @Override
+    public BigDecimal bigDecimalValue() throws IOException {
+        return parser.bigDecimalValue();
+    }
+
+    @Override
+    public byte[] binaryValue() throws IOException {
+        return parser.binaryValue();
+    }
+
+    @Override
+    public XContentParser losslessDecimals(boolean losslessDecimals) {
+        parser.losslessDecimals(losslessDecimals);
+        return this;
+    }
+
+    @Override
+    public boolean isLosslessDecimals() {
+        return parser.isLosslessDecimals();
+    }
+
+    @Override
+    public XContentParser enableBase16Checks(boolean base16Checks) {
+        parser.enableBase16Checks(base16Checks);
+        return this;
+    }
+
+    @Override
+    public boolean isBase16Checks() {
+        return parser.isBase16Checks();
+    }
+
+    @Override
+    public long tokenOffset() {
+        return parser.tokenOffset();
+    }
+
+    @Override
+    public boolean hasNumberText() {
+        return parser.hasNumberText();
+    }
+
+    /**
+     * Return the number of tokens read so far. Tokens of skipped children are not counted.
+     * @return the number of tokens
+     */
+    public long tokens() {
+        return tokens;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            parser.close();
+        } finally {
+            if (!closed) {
+                closed = true;
+                metrics.recordParse(Math.max(bytes.getAsLong(), 0L), tokens, System.nanoTime() - startNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.xbib.content.core;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The input side of a non-blocking parser over a Jackson parser created by
+ * {@code createNonBlockingByteArrayParser()}, shared by the non-blocking content parsers.
+ *
+ * Chunks backed by an array are passed to Jackson as they are, chunks of direct buffers are copied into
+ * an internal array, which is reused because a chunk is only accepted after the previous one was consumed.
+ * Skipping children does not block either, a skip which runs out of input is continued by the next
+ * call of {@link #nextToken()}.
+ */
+public final class NonBlockingInput {
+
+    private final JsonParser parser;
+
+    private final ByteArrayFeeder feeder;
+
+    private byte[] copy;
+
+    private int skipDepth;
+
+    /**
+     * Create the input of a non-blocking parser.
+     * @param parser the Jackson parser, which must have a byte array feeder
+     */
+    public NonBlockingInput(JsonParser parser) {
+        this.parser = parser;
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        this.copy = new byte[0];
+    }
+
+    /**
+     * Return true if all input fed so far has been consumed.
+     * @return true if more input can be fed
+     */
+    public boolean needsInput() {
+        return feeder.needMoreInput();
+    }
+
+    /**
+     * Feed a chunk of input.
+     * @param bytes the bytes
+     * @param offset the offset of the chunk
+     * @param length the length of the chunk
+     * @throws IOException if the input can not be accepted
+     */
+    public void feedInput(byte[] bytes, int offset, int length) throws IOException {
+        if (!feeder.needMoreInput()) {
+            throw new IllegalStateException("previous input not consumed yet");
+        }
+        feeder.feedInput(bytes, offset, offset + length);
+    }
+
+    /**
+     * Feed the remaining bytes of a buffer as a chunk of input.
+     * @param buffer the buffer
+     * @throws IOException if the input can not be accepted
+     */
+    public void feedInput(ByteBuffer buffer) throws IOException {
+        int length = buffer.remaining();
+        if (buffer.hasArray()) {
+            feedInput(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+        } else {
+            if (!feeder.needMoreInput()) {
+                throw new IllegalStateException("previous input not consumed yet");
+            }
+            if (copy.length < length) {
+                copy = new byte[length];
+            }
+            buffer.duplicate().get(copy, 0, length);
+            feeder.feedInput(copy, 0, length);
+        }
+        buffer.position(buffer.limit());
+    }
+
+    /**
+     * Signal that no more input will be fed.
+     */
+    public void endOfInput() {
+        feeder.endOfInput();
+    }
+
+    /**
+     * Advance to the next token, after finishing a pending skip.
+     * @return the next token, {@link JsonToken#NOT_AVAILABLE} if more input is needed, or null at the end
+     * @throws IOException if the input can not be parsed
+     */
+    public JsonToken nextToken() throws IOException {
+        if (skipDepth > 0 && !skip()) {
+            return JsonToken.NOT_AVAILABLE;
+        }
+        return parser.nextToken();
+    }
+
+    /**
+     * Skip the children of the current object or array, as far as input is available.
+     * @throws IOException if the input can not be parsed
+     */
+    public void skipChildren() throws IOException {
+        JsonToken t = parser.currentToken();
+        if (t == JsonToken.START_OBJECT || t == JsonToken.START_ARRAY) {
+            skipDepth = 1;
+            skip();
+        }
+    }
+
+    private boolean skip() throws IOException {
+        while (skipDepth > 0) {
+            JsonToken t = parser.nextToken();
+            if (t == JsonToken.NOT_AVAILABLE) {
+                return false;
+            }
+            if (t == null) {
+                skipDepth = 0;
+            } else if (t.isStructStart()) {
+                skipDepth++;
+            } else if (t.isStructEnd()) {
+                skipDepth--;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,302 @@
+package org.xbib.content.core;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An insertion-ordered hash map with open addressing.
+ *
+ * Keys and values are kept in insertion order in two arrays, and a table of int positions into these
+ * arrays is probed linearly, so there are no entry objects and no linked list as in
+ * {@link java.util.LinkedHashMap}. Removed entries leave a gap in the arrays until the next resize.
+ * Keys must not be null, values may be null. The map is not thread-safe.
+ */
+public class OpenHashMap extends AbstractMap<String, Object> {
+
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private String[] keys;
+
+    private Object[] values;
+
+    /**
+     * The positions of the entries plus one, by the hash of their keys, 0 marks a free slot.
+     */
+    private int[] table;
+
+    /**
+     * The number of used array positions, including removed entries.
+     */
+    private int count;
+
+    private int size;
+
+    private int modCount;
+
+    private Set<Map.Entry<String, Object>> entrySet;
+
+    /**
+     * Create an empty map with the default capacity.
+     */
+    public OpenHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create an empty map.
+     * @param capacity the number of entries which can be added without a resize
+     */
+    public OpenHashMap(int capacity) {
+        int n = Math.max(2, capacity);
+        this.keys = new String[n];
+        this.values = new Object[n];
+        this.table = new int[tableSize(n)];
+    }
+
+    /**
+     * Create a map with the entries of another map, in the iteration order of that map.
+     * @param map the map
+     */
+    public OpenHashMap(Map<String, ?> map) {
+        this(map.size());
+        for (Map.Entry<String, ?> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int i = indexOf(key);
+        return i >= 0 ? values[i] : null;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        Objects.requireNonNull(key);
+        int mask = table.length - 1;
+        int slot = hash(key) & mask;
+        int p;
+        while ((p = table[slot]) != 0) {
+            if (key.equals(keys[p - 1])) {
+                Object old = values[p - 1];
+                values[p - 1] = value;
+                return old;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (count == keys.length) {
+            resize();
+            return put(key, value);
+        }
+        keys[count] = key;
+        values[count] = value;
+        table[slot] = ++count;
+        size++;
+        modCount++;
+        return null;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        Object old = values[i];
+        removeAt(i);
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, 0, count, null);
+        Arrays.fill(values, 0, count, null);
+        Arrays.fill(table, 0);
+        count = 0;
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    static int hash(Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSize(int capacity) {
+        // a load factor of at most 0.5
+        return Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1;
+    }
+
+    private int indexOf(Object key) {
+        if (key == null) {
+            return -1;
+        }
+        int mask = table.length - 1;
+        int slot = hash(key) & mask;
+        int p;
+        while ((p = table[slot]) != 0) {
+            if (key.equals(keys[p - 1])) {
+                return p - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void removeAt(int i) {
+        // the slot keeps pointing to the removed position, so probe sequences stay intact
+        keys[i] = null;
+        values[i] = null;
+        size--;
+        modCount++;
+    }
+
+    private void resize() {
+        int capacity = size < count >> 1 ? count : count << 1;
+        String[] oldKeys = keys;
+        Object[] oldValues = values;
+        int oldCount = count;
+        keys = new String[capacity];
+        values = new Object[capacity];
+        table = new int[tableSize(capacity)];
+        int mask = table.length - 1;
+        count = 0;
+        for (int i = 0; i < oldCount; i++) {
+            if (oldKeys[i] != null) {
+                keys[count] = oldKeys[i];
+                values[count] = oldValues[i];
+                int slot = hash(oldKeys[i]) & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = ++count;
+            }
+        }
+        modCount++;
+    }
+
+    private class EntrySet extends AbstractSet<Map.Entry<String, Object>> {
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<Map.Entry<String, Object>> iterator() {
+            return new Iterator<>() {
+
+                private int next = skip(0);
+
+                private int last = -1;
+
+                private int expectedModCount = modCount;
+
+                @Override
+                public boolean hasNext() {
+                    return next < count;
+                }
+
+                @Override
+                public Map.Entry<String, Object> next() {
+                    if (expectedModCount != modCount) {
+                        throw new ConcurrentModificationException();
+                    }
+                    if (next >= count) {
+                        throw new NoSuchElementException();
+                    }
+                    last = next;
+                    next = skip(next + 1);
+                    return new Entry(last);
+                }
+
+                @Override
+                public void remove() {
+                    if (last < 0) {
+                        throw new IllegalStateException();
+                    }
+                    if (expectedModCount != modCount) {
+                        throw new ConcurrentModificationException();
+                    }
+                    removeAt(last);
+                    last = -1;
+                    expectedModCount = modCount;
+                }
+
+                private int skip(int i) {
+                    while (i < count && keys[i] == null) {
+                        i++;
+                    }
+                    return i;
+                }
+            };
+        }
+    }
+
+    private class Entry implements Map.Entry<String, Object> {
+
+        private final int i;
+
+        Entry(int i) {
+            this.i = i;
+        }
+
+        @Override
+        public String getKey() {
+            return keys[i];
+        }
+
+        @Override
+        public Object getValue() {
+            return values[i];
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            Object old = values[i];
+            values[i] = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Map.Entry && Objects.equals(getKey(), ((Map.Entry<?, ?>) o).getKey()) &&
+                    Objects.equals(getValue(), ((Map.Entry<?, ?>) o).getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package org.xbib.content.core;
+
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Encodes timestamps into a char buffer, without creating date-time objects or strings.
+ *
+ * Timestamps from year 0 to year 9999 are computed directly from the epoch second. Timestamps
+ * outside of this range are rare, their date and time is formatted by {@link DateTimeFormatter#ISO_INSTANT}.
+ */
+public final class TimestampEncoder {
+
+    /**
+     * The maximum number of chars written by {@link #encode(TimestampFormat, long, int, char[], int)}.
+     */
+    public static final int MAX_LENGTH = 48;
+
+    private static final long SECONDS_PER_DAY = 86400L;
+
+    /**
+     * 0000-01-01T00:00:00Z.
+     */
+    private static final long MIN_SECOND = -62167219200L;
+
+    /**
+     * 9999-12-31T23:59:59Z.
+     */
+    private static final long MAX_SECOND = 253402300799L;
+
+    private TimestampEncoder() {
+    }
+
+    /**
+     * Encode a timestamp.
+     * @param format the timestamp format
+     * @param epochSecond the seconds since the epoch
+     * @param nano the nanosecond of the second, from 0 to 999,999,999
+     * @param buf the buffer, with at least {@link #MAX_LENGTH} chars after {@code offset}
+     * @param offset the offset in the buffer
+     * @return the number of chars written
+     */
+    public static int encode(TimestampFormat format, long epochSecond, int nano, char[] buf, int offset) {
+        if (format == TimestampFormat.EPOCH_MILLIS) {
+            return encodeLong(Math.addExact(Math.multiplyExact(epochSecond, 1000L), nano / 1000000), buf, offset);
+        }
+        int pos = epochSecond >= MIN_SECOND && epochSecond <= MAX_SECOND ?
+                encodeDateTime(epochSecond, buf, offset) : encodeDateTimeFallback(epochSecond, buf, offset);
+        switch (format) {
+            case ISO_MILLIS:
+                buf[pos++] = '.';
+                pos = encodeDigits(nano / 1000000, 3, buf, pos);
+                break;
+            case ISO_MICROS:
+                buf[pos++] = '.';
+                pos = encodeDigits(nano / 1000, 6, buf, pos);
+                break;
+            default:
+                if (nano > 0) {
+                    buf[pos++] = '.';
+                    if (nano % 1000000 == 0) {
+                        pos = encodeDigits(nano / 1000000, 3, buf, pos);
+                    } else if (nano % 1000 == 0) {
+                        pos = encodeDigits(nano / 1000, 6, buf, pos);
+                    } else {
+                        pos = encodeDigits(nano, 9, buf, pos);
+                    }
+                }
+                break;
+        }
+        buf[pos++] = 'Z';
+        return pos - offset;
+    }
+
+    /**
+     * Encode the date and time of a timestamp, up to the seconds, from the civil date of the epoch day.
+     * See Howard Hinnant, "chrono-Compatible Low-Level Date Algorithms".
+     */
+    private static int encodeDateTime(long epochSecond, char[] buf, int offset) {
+        long days = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+        int secondOfDay = (int) Math.floorMod(epochSecond, SECONDS_PER_DAY);
+        long z = days + 719468L;
+        long era = (z >= 0 ? z : z - 146096L) / 146097L;
+        long doe = z - era * 146097L;
+        long yoe = (doe - doe / 1460L + doe / 36524L - doe / 146096L) / 365L;
+        long doy = doe - (365L * yoe + yoe / 4L - yoe / 100L);
+        long mp = (5L * doy + 2L) / 153L;
+        int day = (int) (doy - (153L * mp + 2L) / 5L + 1L);
+        int month = (int) (mp < 10L ? mp + 3L : mp - 9L);
+        int year = (int) (yoe + era * 400L + (month <= 2 ? 1L : 0L));
+        int pos = encodeDigits(year, 4, buf, offset);
+        buf[pos++] = '-';
+        pos = encodeDigits(month, 2, buf, pos);
+        buf[pos++] = '-';
+        pos = encodeDigits(day, 2, buf, pos);
+        buf[pos++] = 'T';
+        pos = encodeDigits(secondOfDay / 3600, 2, buf, pos);
+        buf[pos++] = ':';
+        pos = encodeDigits((secondOfDay / 60) % 60, 2, buf, pos);
+        buf[pos++] = ':';
+        return encodeDigits(secondOfDay % 60, 2, buf, pos);
+    }
+
+    private static int encodeDateTimeFallback(long epochSecond, char[] buf, int offset) {
+        String s = DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochSecond(epochSecond));
+        // strip the zone designator, it is appended after the fraction
+        int len = s.length() - 1;
+        s.getChars(0, len, buf, offset);
+        return offset + len;
+    }
+
+    private static int encodeDigits(int value, int digits, char[] buf, int offset) {
+        int v = value;
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            buf[i] = (char) ('0' + v % 10);
+            v /= 10;
+        }
+        return offset + digits;
+    }
+
+    private static int encodeLong(long value, char[] buf, int offset) {
+        if (value == Long.MIN_VALUE) {
+            String s = Long.toString(value);
+            s.getChars(0, s.length(), buf, offset);
+            return s.length();
+        }
+        int pos = offset;
+        long v = value;
+        if (v < 0) {
+            buf[pos++] = '-';
+            v = -v;
+        }
+        int start = pos;
+        do {
+            buf[pos++] = (char) ('0' + v % 10);
+            v /= 10;
+        } while (v > 0);
+        for (int i = start, j = pos - 1; i < j; i++, j--) {
+            char c = buf[i];
+            buf[i] = buf[j];
+            buf[j] = c;
+        }
+        return pos - offset;
+    }
+}
@@ -0,0 +1,28 @@
+package org.xbib.content.core;
+
+/**
+ * The formats for writing timestamps with {@link DefaultXContentBuilder}.
+ */
+public enum TimestampFormat {
+
+    /**
+     * ISO-8601 in UTC, like {@link java.time.format.DateTimeFormatter#ISO_INSTANT}. The fraction of second
+     * is omitted if zero, otherwise written with 3, 6, or 9 digits, as needed.
+     */
+    ISO_INSTANT,
+
+    /**
+     * ISO-8601 in UTC, always with millisecond precision.
+     */
+    ISO_MILLIS,
+
+    /**
+     * ISO-8601 in UTC, always with microsecond precision.
+     */
+    ISO_MICROS,
+
+    /**
+     * The number of milliseconds since the epoch.
+     */
+    EPOCH_MILLIS
+}
@@ -0,0 +1,20 @@
+package org.xbib.content.core;
+
+import java.io.IOException;
+
+/**
+ * Writes values of a type to a {@link DefaultXContentBuilder}.
+ *
+ * @param <T> the value type
+ */
+@FunctionalInterface
+public interface ValueWriter<T> {
+
+    /**
+     * Write a value.
+     * @param builder the builder
+     * @param value the value, never null
+     * @throws IOException if the value can not be written
+     */
+    void write(DefaultXContentBuilder builder, T value) throws IOException;
+}
@@ -0,0 +1,15 @@
+package org.xbib.content.core;
+
+/**
+ * A service for registering {@link ValueWriter}s of application types, such as {@code java.time} types,
+ * {@code UUID}, or domain records. Providers are found by {@link java.util.ServiceLoader} when
+ * the default {@link ValueWriterRegistry} is created.
+ */
+public interface ValueWriterProvider {
+
+    /**
+     * Register value writers.
+     * @param registry the registry
+     */
+    void register(ValueWriterRegistry registry);
+}
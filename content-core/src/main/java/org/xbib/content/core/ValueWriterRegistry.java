@@ -0,0 +1,221 @@
+package org.xbib.content.core;
+
+import org.xbib.content.ToXContent;
+import org.xbib.content.XContentBuilder;
+import org.xbib.content.XContentGenerator;
+import org.xbib.content.io.BytesReference;
+import org.xbib.content.util.geo.GeoPoint;
+import java.time.Instant;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The registry of {@link ValueWriter}s used by {@link DefaultXContentBuilder} for writing objects.
+ *
+ * A writer is either registered for an exact type, or for a type and all of its subtypes. The writer
+ * for a class is resolved once and cached in a {@link ClassValue}, so dispatching a value costs a single
+ * lookup. Exact writers take precedence over subtype writers. Subtype writers are tried in reverse order
+ * of registration, so application writers win over the built-in writers. Values without a writer are
+ * written as string.
+ *
+ * The default registry holds the built-in writers and the writers of all {@link ValueWriterProvider}
+ * services.
+ */
+public final class ValueWriterRegistry {
+
+    private static final ValueWriter<Object> TO_STRING = (builder, value) ->
+            builder.generator().writeString(value.toString());
+
+    private static final ValueWriterRegistry DEFAULT = createDefault();
+
+    private final Map<Class<?>, ValueWriter<?>> exactWriters;
+
+    private final List<Map.Entry<Class<?>, ValueWriter<?>>> subtypeWriters;
+
+    private volatile ClassValue<ValueWriter<Object>> cache;
+
+    /**
+     * Create a registry with the built-in writers.
+     */
+    public ValueWriterRegistry() {
+        this.exactWriters = new ConcurrentHashMap<>();
+        this.subtypeWriters = new CopyOnWriteArrayList<>();
+        this.cache = newCache();
+        registerBuiltinWriters();
+    }
+
+    /**
+     * Return the default registry.
+     * @return the default registry
+     */
+    public static ValueWriterRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Register a writer for values of exactly the given type.
+     * @param type the type
+     * @param writer the writer
+     * @param <T> the type parameter
+     * @return this registry
+     */
+    public <T> ValueWriterRegistry register(Class<T> type, ValueWriter<? super T> writer) {
+        exactWriters.put(type, writer);
+        cache = newCache();
+        return this;
+    }
+
+    /**
+     * Register a writer for values of the given type and all of its subtypes.
+     * @param type the type
+     * @param writer the writer
+     * @param <T> the type parameter
+     * @return this registry
+     */
+    public <T> ValueWriterRegistry registerSubtypes(Class<T> type, ValueWriter<? super T> writer) {
+        subtypeWriters.add(0, Map.entry(type, writer));
+        cache = newCache();
+        return this;
+    }
+
+    /**
+     * Return the writer for values of a class.
+     * @param type the class
+     * @return the writer
+     */
+    public ValueWriter<Object> writer(Class<?> type) {
+        return cache.get(type);
+    }
+
+    private ClassValue<ValueWriter<Object>> newCache() {
+        return new ClassValue<>() {
+            @Override
+            protected ValueWriter<Object> computeValue(Class<?> type) {
+                return resolve(type);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private ValueWriter<Object> resolve(Class<?> type) {
+        ValueWriter<?> writer = exactWriters.get(type);
+        if (writer != null) {
+            return (ValueWriter<Object>) writer;
+        }
+        for (Map.Entry<Class<?>, ValueWriter<?>> entry : subtypeWriters) {
+            if (entry.getKey().isAssignableFrom(type)) {
+                return (ValueWriter<Object>) entry.getValue();
+            }
+        }
+        return TO_STRING;
+    }
+
+    private static ValueWriterRegistry createDefault() {
+        ValueWriterRegistry registry = new ValueWriterRegistry();
+        for (ValueWriterProvider provider : ServiceLoader.load(ValueWriterProvider.class)) {
+            provider.register(registry);
+        }
+        return registry;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void registerBuiltinWriters() {
+        register(String.class, (builder, value) -> builder.generator().writeString(value));
+        register(Integer.class, (builder, value) -> builder.generator().writeNumber(value));
+        register(Long.class, (builder, value) -> builder.generator().writeNumber(value));
+        register(Float.class, (builder, value) -> builder.generator().writeNumber(value));
+        register(Double.class, (builder, value) -> builder.generator().writeNumber(value));
+        register(Short.class, (builder, value) -> builder.generator().writeNumber(value));
+        register(Boolean.class, (builder, value) -> builder.generator().writeBoolean(value));
+        register(GeoPoint.class, (builder, value) -> {
+            XContentGenerator generator = builder.generator();
+            generator.writeStartObject();
+            generator.writeNumberField("lat", value.lat());
+            generator.writeNumberField("lon", value.lon());
+            generator.writeEndObject();
+        });
+        register(byte[].class, (builder, value) -> builder.generator().writeBinary(value));
+        register(double[].class, (builder, value) -> {
+            XContentGenerator generator = builder.generator();
+            generator.writeStartArray();
+            for (double v : value) {
+                generator.writeNumber(v);
+            }
+            generator.writeEndArray();
+        });
+        register(long[].class, (builder, value) -> {
+            XContentGenerator generator = builder.generator();
+            generator.writeStartArray();
+            for (long v : value) {
+                generator.writeNumber(v);
+            }
+            generator.writeEndArray();
+        });
+        register(int[].class, (builder, value) -> {
+            XContentGenerator generator = builder.generator();
+            generator.writeStartArray();
+            for (int v : value) {
+                generator.writeNumber(v);
+            }
+            generator.writeEndArray();
+        });
+        register(float[].class, (builder, value) -> {
+            XContentGenerator generator = builder.generator();
+            generator.writeStartArray();
+            for (float v : value) {
+                generator.writeNumber(v);
+            }
+            generator.writeEndArray();
+        });
+        register(short[].class, (builder, value) -> {
+            XContentGenerator generator = builder.generator();
+            generator.writeStartArray();
+            for (float v : value) {
+                generator.writeNumber(v);
+            }
+            generator.writeEndArray();
+        });
+        register(Instant.class, (builder, value) -> builder.timestamp(value.getEpochSecond(), value.getNano()));
+        register(DefaultXContentBuilder.class, (builder, value) -> builder.value((XContentBuilder) value));
+        // subtype writers are tried in reverse order of registration
+        registerSubtypes(ToXContent.class, (builder, value) -> value.toXContent(builder, ToXContent.EMPTY_PARAMS));
+        registerSubtypes(BytesReference.class, (builder, value) -> {
+            byte[] b = value.toBytes();
+            builder.generator().writeBinary(b, 0, b.length);
+        });
+        registerSubtypes(Calendar.class, (builder, value) -> {
+            long millis = value.getTimeInMillis();
+            builder.timestamp(Math.floorDiv(millis, 1000L), (int) Math.floorMod(millis, 1000L) * 1000000);
+        });
+        registerSubtypes(Date.class, (builder, value) -> {
+            long millis = value.getTime();
+            builder.timestamp(Math.floorDiv(millis, 1000L), (int) Math.floorMod(millis, 1000L) * 1000000);
+        });
+        registerSubtypes(Object[].class, (builder, value) -> {
+            XContentGenerator generator = builder.generator();
+            generator.writeStartArray();
+            for (Object v : value) {
+                if (v != value) {
+                    builder.value(v);
+                }
+            }
+            generator.writeEndArray();
+        });
+        registerSubtypes(Iterable.class, (builder, value) -> {
+            XContentGenerator generator = builder.generator();
+            generator.writeStartArray();
+            for (Object v : (Iterable<?>) value) {
+                if (v != value) {
+                    builder.value(v);
+                }
+            }
+            generator.writeEndArray();
+        });
+        registerSubtypes(Map.class, (builder, value) -> builder.map((Map<String, Object>) value));
+    }
+}
@@ -0,0 +1,140 @@
+package org.xbib.content.core;
+
+import org.xbib.content.XContent;
+import org.xbib.content.io.BytesStreamOutput;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded pool of resettable {@link DefaultXContentBuilder} instances for one {@link XContent}.
+ *
+ * A builder is confined to the caller between {@link #acquire()} and {@link #release(DefaultXContentBuilder)},
+ * the pool itself is a bounded queue and does not use thread locals, so it can be shared by
+ * many short-lived threads. Released builders are reset to their default settings and keep their output
+ * buffer, unless the buffer has grown beyond the retention limit, then the builder is discarded.
+ */
+public class XContentBuilderPool {
+
+    /**
+     * The default number of pooled builders.
+     */
+    public static final int DEFAULT_MAX_POOLED = 64;
+
+    /**
+     * The default maximum buffer capacity retained by a pooled builder, 1 MB.
+     */
+    public static final int DEFAULT_MAX_RETAINED_BYTES = 1024 * 1024;
+
+    private final XContent xContent;
+
+    private final BlockingQueue<DefaultXContentBuilder> queue;
+
+    private final int maxRetainedBytes;
+
+    private final LongAdder created;
+
+    private final LongAdder reused;
+
+    private final LongAdder discarded;
+
+    /**
+     * Create a builder pool with default limits.
+     * @param xContent the content of the builders
+     */
+    public XContentBuilderPool(XContent xContent) {
+        this(xContent, DEFAULT_MAX_POOLED, DEFAULT_MAX_RETAINED_BYTES);
+    }
+
+    /**
+     * Create a builder pool.
+     * @param xContent the content of the builders
+     * @param maxPooled the maximum number of idle builders kept in the pool
+     * @param maxRetainedBytes the maximum buffer capacity of a builder to be kept in the pool
+     */
+    public XContentBuilderPool(XContent xContent, int maxPooled, int maxRetainedBytes) {
+        if (maxPooled <= 0) {
+            throw new IllegalArgumentException("invalid pool size " + maxPooled);
+        }
+        this.xContent = xContent;
+        this.queue = new ArrayBlockingQueue<>(maxPooled);
+        this.maxRetainedBytes = maxRetainedBytes;
+        this.created = new LongAdder();
+        this.reused = new LongAdder();
+        this.discarded = new LongAdder();
+    }
+
+    /**
+     * Take a builder from the pool, or create a new one if the pool is empty.
+     * @return an empty builder
+     * @throws IOException if the builder can not be created
+     */
+    public DefaultXContentBuilder acquire() throws IOException {
+        DefaultXContentBuilder builder = queue.poll();
+        if (builder != null) {
+            reused.increment();
+            return builder;
+        }
+        created.increment();
+        return new DefaultXContentBuilder(xContent, new BytesStreamOutput());
+    }
+
+    /**
+     * Return a builder to the pool. The builder is reset, and its canonical mode, timestamp format, and
+     * value writers are set back to their defaults. The builder must not be used by the caller afterwards.
+     * A reference obtained by {@link DefaultXContentBuilder#bytes()} shares the buffer of the builder,
+     * so copy or consume it before the release. Strings are not affected.
+     * @param builder the builder, may be null
+     * @throws IOException if the builder can not be reset
+     */
+    public void release(DefaultXContentBuilder builder) throws IOException {
+        if (builder == null) {
+            return;
+        }
+        if (builder.capacity() < 0 || builder.capacity() > maxRetainedBytes) {
+            discarded.increment();
+            builder.close();
+            return;
+        }
+        builder.restoreDefaults();
+        builder.reset();
+        if (!queue.offer(builder)) {
+            discarded.increment();
+        }
+    }
+
+    /**
+     * Return the number of idle builders in the pool.
+     * @return the number of idle builders
+     */
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * Return the number of builders created by this pool.
+     * @return the number of created builders
+     */
+    public long created() {
+        return created.sum();
+    }
+
+    /**
+     * Return the number of builders taken from the pool instead of being created, that is,
+     * the number of avoided builder allocations.
+     * @return the number of reused builders
+     */
+    public long reused() {
+        return reused.sum();
+    }
+
+    /**
+     * Return the number of released builders which were not kept in the pool.
+     * @return the number of discarded builders
+     */
+    public long discarded() {
+        return discarded.sum();
+    }
+}
@@ -0,0 +1,249 @@
+package org.xbib.content.core;
+
+import org.xbib.content.XContent;
+import org.xbib.content.XContentParser;
+import org.xbib.content.io.BytesReference;
+import org.xbib.content.io.MappedBytesReference;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Parses documents separated by the {@link XContent#streamSeparator() stream separator}, like
+ * newline-delimited JSON, in parallel on a {@link ForkJoinPool}. The content type must
+ * {@link XContent#hasStreamSeparator() have a stream separator}.
+ *
+ * The content is split into chunks at document boundaries, and the documents of each chunk are parsed
+ * by one task through {@link XContent#createParser(byte[], int, int)}. Heap content is parsed in place,
+ * documents of direct or memory-mapped content are copied to the heap one at a time.
+ * Results are returned in document order, or passed to a consumer as soon as they are available.
+ * If a document can not be parsed, the chunks which have not been parsed yet are cancelled, and the chunks
+ * in progress stop at their next document.
+ */
+public class XContentBulkParser {
+
+    /**
+     * The minimum size of a chunk, 1 MB.
+     */
+    public static final int MIN_CHUNK_SIZE = 1024 * 1024;
+
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final XContent content;
+
+    private final ForkJoinPool pool;
+
+    private final int minChunkSize;
+
+    private final byte separator;
+
+    /**
+     * Create a bulk parser on the common pool.
+     * @param content the content type
+     */
+    public XContentBulkParser(XContent content) {
+        this(content, ForkJoinPool.commonPool(), MIN_CHUNK_SIZE);
+    }
+
+    /**
+     * Create a bulk parser.
+     * @param content the content type
+     * @param pool the pool for parsing the chunks
+     * @param minChunkSize the minimum size of a chunk in bytes
+     * @throws IllegalArgumentException if the chunk size is invalid or the content type has no stream separator
+     */
+    public XContentBulkParser(XContent content, ForkJoinPool pool, int minChunkSize) {
+        if (minChunkSize <= 0) {
+            throw new IllegalArgumentException("invalid chunk size " + minChunkSize);
+        }
+        if (!content.hasStreamSeparator()) {
+            throw new IllegalArgumentException("content type " + content.name() + " has no stream separator");
+        }
+        this.content = content;
+        this.pool = pool;
+        this.minChunkSize = minChunkSize;
+        this.separator = content.streamSeparator();
+    }
+
+    /**
+     * A function applied to a parser over a single document.
+     * @param <T> the result type
+     */
+    @FunctionalInterface
+    public interface DocumentFunction<T> {
+
+        /**
+         * Apply the function.
+         * @param parser the parser, which is closed afterwards
+         * @return the result
+         * @throws IOException if the document can not be parsed
+         */
+        T apply(XContentParser parser) throws IOException;
+    }
+
+    /**
+     * Parse the documents of a file into maps, in document order. The file is memory-mapped.
+     * @param path the file path
+     * @return the maps
+     * @throws IOException if the file can not be mapped or a document can not be parsed
+     */
+    public List<Map<String, Object>> maps(Path path) throws IOException {
+        return maps(MappedBytesReference.map(path));
+    }
+
+    /**
+     * Parse documents into maps, in document order.
+     * @param bytes the content
+     * @return the maps
+     * @throws IOException if a document can not be parsed
+     */
+    public List<Map<String, Object>> maps(BytesReference bytes) throws IOException {
+        return parse(bytes, XContentParser::mapOrdered);
+    }
+
+    /**
+     * Apply a function to each document, and return the results in document order.
+     * @param bytes the content
+     * @param function the function
+     * @param <T> the result type
+     * @return the results
+     * @throws IOException if a document can not be parsed
+     */
+    public <T> List<T> parse(BytesReference bytes, DocumentFunction<T> function) throws IOException {
+        AtomicBoolean failed = new AtomicBoolean();
+        List<ForkJoinTask<List<T>>> tasks = new ArrayList<>();
+        for (int[] chunk : chunks(bytes)) {
+            tasks.add(pool.submit(() -> {
+                List<T> list = new ArrayList<>();
+                parseChunk(bytes, chunk[0], chunk[1], function, list::add, failed);
+                return list;
+            }));
+        }
+        List<T> results = new ArrayList<>();
+        try {
+            for (ForkJoinTask<List<T>> task : tasks) {
+                results.addAll(join(task));
+            }
+        } catch (IOException | RuntimeException e) {
+            cancel(tasks, failed);
+            throw e;
+        }
+        return results;
+    }
+
+    /**
+     * Apply a function to each document, and pass the results to a consumer as soon as they are available.
+     * The consumer is called concurrently, in no particular order.
+     * @param bytes the content
+     * @param function the function
+     * @param consumer the consumer of the results
+     * @param <T> the result type
+     * @throws IOException if a document can not be parsed
+     */
+    public <T> void parseUnordered(BytesReference bytes, DocumentFunction<T> function, Consumer<T> consumer)
+            throws IOException {
+        AtomicBoolean failed = new AtomicBoolean();
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int[] chunk : chunks(bytes)) {
+            tasks.add(pool.submit(() -> parseChunk(bytes, chunk[0], chunk[1], function, consumer, failed)));
+        }
+        try {
+            for (ForkJoinTask<?> task : tasks) {
+                join(task);
+            }
+        } catch (IOException | RuntimeException e) {
+            cancel(tasks, failed);
+            throw e;
+        }
+    }
+
+    /**
+     * Split content into chunks of at least the minimum chunk size, ending after a separator.
+     */
+    private List<int[]> chunks(BytesReference bytes) {
+        int length = bytes.length();
+        long target = Math.max(minChunkSize, length / ((long) pool.getParallelism() * CHUNKS_PER_THREAD));
+        List<int[]> chunks = new ArrayList<>();
+        int from = 0;
+        while (from < length) {
+            int to = length;
+            if (from + target < length) {
+                int pos = bytes.indexOf(separator, (int) (from + target), length - (int) (from + target));
+                if (pos >= 0) {
+                    to = pos + 1;
+                }
+            }
+            chunks.add(new int[] { from, to });
+            from = to;
+        }
+        return chunks;
+    }
+
+    private <T> void parseChunk(BytesReference bytes, int from, int to, DocumentFunction<T> function,
+                                Consumer<T> consumer, AtomicBoolean failed) {
+        int start = from;
+        while (start < to && !failed.get()) {
+            int pos = bytes.indexOf(separator, start, to - start);
+            int end = pos >= 0 ? pos : to;
+            int s = start;
+            int e = end;
+            if (separator == '\n') {
+                while (s < e && isWhitespace(bytes.get(s))) {
+                    s++;
+                }
+                while (e > s && isWhitespace(bytes.get(e - 1))) {
+                    e--;
+                }
+            }
+            if (e > s) {
+                try (XContentParser parser = createParser(bytes.slice(s, e - s))) {
+                    consumer.accept(function.apply(parser));
+                } catch (IOException ex) {
+                    failed.set(true);
+                    throw new UncheckedIOException("failed to parse document at offset " + s, ex);
+                } catch (RuntimeException ex) {
+                    failed.set(true);
+                    throw ex;
+                }
+            }
+            start = end + 1;
+        }
+    }
+
+    private XContentParser createParser(BytesReference document) throws IOException {
+        ByteBuffer[] buffers = document.toByteBuffers();
+        if (buffers.length == 1 && buffers[0].hasArray()) {
+            ByteBuffer buffer = buffers[0];
+            return content.createParser(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        }
+        byte[] b = document.toBytes();
+        return content.createParser(b, 0, b.length);
+    }
+
+    private static <T> T join(ForkJoinTask<T> task) throws IOException {
+        try {
+            return task.join();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void cancel(List<? extends ForkJoinTask<?>> tasks, AtomicBoolean failed) {
+        failed.set(true);
+        for (ForkJoinTask<?> task : tasks) {
+            task.cancel(false);
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+}
@@ -0,0 +1,89 @@
+package org.xbib.content.core;
+
+import org.xbib.content.XContent;
+import org.xbib.content.XContentParser;
+import org.xbib.content.io.BytesReference;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * A document read by a {@link XContentDocumentReader}, with its byte range in the input.
+ */
+public final class XContentDocument {
+
+    private final XContent content;
+
+    private final long offset;
+
+    private final BytesReference bytes;
+
+    XContentDocument(XContent content, long offset, BytesReference bytes) {
+        this.content = content;
+        this.offset = offset;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Return the content type of the document.
+     * @return the content type
+     */
+    public XContent content() {
+        return content;
+    }
+
+    /**
+     * Return the offset of the first byte of the document in the input.
+     * @return the offset
+     */
+    public long offset() {
+        return offset;
+    }
+
+    /**
+     * Return the length of the document in bytes.
+     * @return the length
+     */
+    public int length() {
+        return bytes.length();
+    }
+
+    /**
+     * Return the raw bytes of the document, for passing the document through without parsing it.
+     * @return the bytes
+     */
+    public BytesReference bytes() {
+        return bytes;
+    }
+
+    /**
+     * Create a parser over the document.
+     * @return the parser
+     * @throws IOException if the parser can not be created
+     */
+    public XContentParser createParser() throws IOException {
+        return content.createParser(bytes.streamInput());
+    }
+
+    /**
+     * Parse the document into a map.
+     * @return the map
+     * @throws IOException if the document can not be parsed
+     */
+    public Map<String, Object> map() throws IOException {
+        return createParser().mapAndClose();
+    }
+
+    /**
+     * Parse the document into a map which keeps the field order.
+     * @return the map
+     * @throws IOException if the document can not be parsed
+     */
+    public Map<String, Object> mapOrdered() throws IOException {
+        return createParser().mapOrderedAndClose();
+    }
+
+    @Override
+    public String toString() {
+        return "XContentDocument[offset=" + offset + ",length=" + bytes.length() + "]";
+    }
+}
@@ -0,0 +1,357 @@
+package org.xbib.content.core;
+
+import org.xbib.content.XContent;
+import org.xbib.content.io.BytesArray;
+import org.xbib.content.io.BytesReference;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads documents one at a time from a stream of content, either separated by the
+ * {@link XContent#streamSeparator() stream separator} of the content type, like newline-delimited JSON,
+ * or as the elements of a top-level JSON array. Only content types which
+ * {@link XContent#hasStreamSeparator() have a stream separator} can be read as delimited documents,
+ * for Smile this is {@code SmileXContent.delimitedSmileContent()}.
+ *
+ * The input is read incrementally into a buffer which holds at most one document, so memory is bounded
+ * by the size of the largest document. Each document is returned with its byte range in the input,
+ * so the raw bytes can be passed on without parsing and serializing them again.
+ *
+ * Read errors are thrown as {@link UncheckedIOException} by the iterator methods.
+ */
+public class XContentDocumentReader implements Iterator<XContentDocument>, Closeable {
+
+    /**
+     * The default maximum size of a document, 64 MB.
+     */
+    public static final int DEFAULT_MAX_DOCUMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final XContent content;
+
+    private final InputStream in;
+
+    private final boolean array;
+
+    private final byte separator;
+
+    private final int maxDocumentSize;
+
+    private byte[] buf;
+
+    private long bufOffset;
+
+    private int start;
+
+    private int pos;
+
+    private int limit;
+
+    private boolean eof;
+
+    private boolean done;
+
+    private XContentDocument next;
+
+    private boolean arrayStarted;
+
+    private boolean inElement;
+
+    private boolean inString;
+
+    private boolean escape;
+
+    private int depth;
+
+    private XContentDocumentReader(XContent content, InputStream in, boolean array, int maxDocumentSize) {
+        if (!array && !content.hasStreamSeparator()) {
+            throw new IllegalArgumentException("content type " + content.name() + " has no stream separator");
+        }
+        this.content = content;
+        this.in = in;
+        this.array = array;
+        this.separator = content.streamSeparator();
+        this.maxDocumentSize = maxDocumentSize;
+        this.buf = new byte[BUFFER_SIZE];
+    }
+
+    /**
+     * Read documents separated by the stream separator of the content type. Empty documents are skipped.
+     * @param content the content type
+     * @param in the input stream
+     * @return the reader
+     * @throws IllegalArgumentException if the content type has no stream separator
+     */
+    public static XContentDocumentReader delimited(XContent content, InputStream in) {
+        return delimited(content, in, DEFAULT_MAX_DOCUMENT_SIZE);
+    }
+
+    /**
+     * Read documents separated by the stream separator of the content type. Empty documents are skipped.
+     * @param content the content type
+     * @param in the input stream
+     * @param maxDocumentSize the maximum size of a document
+     * @return the reader
+     * @throws IllegalArgumentException if the content type has no stream separator
+     */
+    public static XContentDocumentReader delimited(XContent content, InputStream in, int maxDocumentSize) {
+        return new XContentDocumentReader(content, in, false, maxDocumentSize);
+    }
+
+    /**
+     * Read documents separated by the stream separator of the content type. Empty documents are skipped.
+     * @param content the content type
+     * @param bytes the content
+     * @return the reader
+     * @throws IllegalArgumentException if the content type has no stream separator
+     */
+    public static XContentDocumentReader delimited(XContent content, BytesReference bytes) {
+        return delimited(content, bytes.streamInput(), Math.max(bytes.length(), 1));
+    }
+
+    /**
+     * Read the elements of a top-level JSON array as documents.
+     * @param content the content type, a JSON text format
+     * @param in the input stream
+     * @return the reader
+     */
+    public static XContentDocumentReader array(XContent content, InputStream in) {
+        return array(content, in, DEFAULT_MAX_DOCUMENT_SIZE);
+    }
+
+    /**
+     * Read the elements of a top-level JSON array as documents.
+     * @param content the content type, a JSON text format
+     * @param in the input stream
+     * @param maxDocumentSize the maximum size of a document
+     * @return the reader
+     */
+    public static XContentDocumentReader array(XContent content, InputStream in, int maxDocumentSize) {
+        return new XContentDocumentReader(content, in, true, maxDocumentSize);
+    }
+
+    /**
+     * Read the elements of a top-level JSON array as documents.
+     * @param content the content type, a JSON text format
+     * @param bytes the content
+     * @return the reader
+     */
+    public static XContentDocumentReader array(XContent content, BytesReference bytes) {
+        return array(content, bytes.streamInput(), Math.max(bytes.length(), 1));
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !done) {
+            try {
+                next = array ? nextElement() : nextDelimited();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            done = next == null;
+        }
+        return next != null;
+    }
+
+    @Override
+    public XContentDocument next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        XContentDocument document = next;
+        next = null;
+        return document;
+    }
+
+    /**
+     * Return the documents as a sequential stream. Closing the stream closes this reader.
+     * @return the stream of documents
+     */
+    public Stream<XContentDocument> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+                Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    @Override
+    public void close() throws IOException {
+        done = true;
+        in.close();
+    }
+
+    private XContentDocument nextDelimited() throws IOException {
+        while (true) {
+            for (int i = pos; i < limit; i++) {
+                if (buf[i] == separator) {
+                    XContentDocument document = document(start, i);
+                    pos = i + 1;
+                    start = pos;
+                    if (document != null) {
+                        return document;
+                    }
+                }
+            }
+            pos = limit;
+            if (eof) {
+                XContentDocument document = document(start, limit);
+                start = limit;
+                return document;
+            }
+            fill();
+        }
+    }
+
+    private XContentDocument nextElement() throws IOException {
+        while (true) {
+            while (pos < limit) {
+                byte b = buf[pos];
+                if (!arrayStarted) {
+                    if (isWhitespace(b)) {
+                        start = ++pos;
+                        continue;
+                    }
+                    if (b != '[') {
+                        throw new IOException("expected '[' at offset " + (bufOffset + pos));
+                    }
+                    arrayStarted = true;
+                    start = ++pos;
+                    continue;
+                }
+                if (!inElement) {
+                    if (isWhitespace(b) || b == ',') {
+                        start = ++pos;
+                        continue;
+                    }
+                    if (b == ']') {
+                        start = ++pos;
+                        return null;
+                    }
+                    inElement = true;
+                    start = pos;
+                    depth = 0;
+                }
+                if (inString) {
+                    if (escape) {
+                        escape = false;
+                    } else if (b == '\\') {
+                        escape = true;
+                    } else if (b == '"') {
+                        inString = false;
+                        if (depth == 0) {
+                            return element(++pos);
+                        }
+                    }
+                    pos++;
+                    continue;
+                }
+                switch (b) {
+                    case '"':
+                        inString = true;
+                        break;
+                    case '{':
+                    case '[':
+                        depth++;
+                        break;
+                    case '}':
+                    case ']':
+                        if (depth == 0) {
+                            // a scalar element, ended by the end of the array
+                            return element(pos);
+                        }
+                        if (--depth == 0) {
+                            return element(++pos);
+                        }
+                        break;
+                    case ',':
+                    case ' ':
+                    case '\t':
+                    case '\r':
+                    case '\n':
+                        if (depth == 0) {
+                            return element(pos);
+                        }
+                        break;
+                    default:
+                        break;
+                }
+                pos++;
+            }
+            if (eof) {
+                if (arrayStarted) {
+                    throw new IOException("unexpected end of array at offset " + (bufOffset + limit));
+                }
+                return null;
+            }
+            fill();
+        }
+    }
+
+    private XContentDocument element(int end) {
+        inElement = false;
+        XContentDocument document = new XContentDocument(content, bufOffset + start,
+                new BytesArray(Arrays.copyOfRange(buf, start, end)));
+        start = end;
+        return document;
+    }
+
+    private XContentDocument document(int from, int to) {
+        int s = from;
+        int e = to;
+        if (separator == '\n') {
+            while (s < e && isWhitespace(buf[s])) {
+                s++;
+            }
+            while (e > s && isWhitespace(buf[e - 1])) {
+                e--;
+            }
+        }
+        if (e <= s) {
+            return null;
+        }
+        return new XContentDocument(content, bufOffset + s, new BytesArray(Arrays.copyOfRange(buf, s, e)));
+    }
+
+    private void fill() throws IOException {
+        if (start > 0) {
+            System.arraycopy(buf, start, buf, 0, limit - start);
+            bufOffset += start;
+            pos -= start;
+            limit -= start;
+            start = 0;
+        }
+        if (limit == buf.length) {
+            // room for the largest document and its separator
+            long capacity = Math.min(maxDocumentSize + 1L, Integer.MAX_VALUE - 8);
+            if (buf.length >= capacity) {
+                throw new IOException("document at offset " + bufOffset + " larger than " + maxDocumentSize);
+            }
+            buf = Arrays.copyOf(buf, (int) Math.min((long) buf.length << 1, capacity));
+        }
+        int n = in.read(buf, limit, buf.length - limit);
+        if (n < 0) {
+            eof = true;
+        } else {
+            limit += n;
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+}
@@ -0,0 +1,72 @@
+package org.xbib.content.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event for the entry points of {@link XContentHelper}. The event is only
+ * created and committed while a recording with this event enabled is running, otherwise
+ * {@link #start(String)} returns a shared disabled event, and starting and committing it costs a check
+ * of the event state.
+ */
+@Name("org.xbib.content.XContent")
+@Label("Content Operation")
+@Description("Parsing, converting, or transcoding content by XContentHelper")
+@Category({ "xbib", "Content" })
+@StackTrace(false)
+final class XContentEvent extends jdk.jfr.Event {
+
+    private static final EventType TYPE = EventType.getEventType(XContentEvent.class);
+
+    private static final XContentEvent DISABLED = new XContentEvent(null);
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Format")
+    String format;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    private XContentEvent(String operation) {
+        this.operation = operation;
+        begin();
+    }
+
+    /**
+     * Start an event, if the event is enabled in a running recording.
+     * @param operation the name of the operation
+     * @return the started event, or a shared disabled event
+     */
+    static XContentEvent start(String operation) {
+        return TYPE.isEnabled() ? new XContentEvent(operation) : DISABLED;
+    }
+
+    /**
+     * Check if this event was started while enabled.
+     * @return true if the event may be committed
+     */
+    boolean isStarted() {
+        return this != DISABLED;
+    }
+
+    /**
+     * Commit the event, if it is enabled.
+     * @param format the name of the content format, may be null
+     * @param bytes the length of the content, or -1 if unknown
+     */
+    void commit(String format, long bytes) {
+        if (this != DISABLED && shouldCommit()) {
+            this.format = format;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
@@ -4,9 +4,20 @@ import org.xbib.content.XContent;
 import org.xbib.content.XContentBuilder;
 import org.xbib.content.XContentGenerator;
 import org.xbib.content.XContentParser;
+import org.xbib.content.core.XContentMetrics.CountingInputStream;
+import org.xbib.content.core.XContentMetrics.CountingOutputStream;
 import org.xbib.content.io.BytesReference;
+import org.xbib.content.io.CompressedBytesReference;
+import org.xbib.content.io.CompressedStreamInput;
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Reader;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 
 public class XContentHelper {
@@ -17,11 +28,48 @@ public class XContentHelper {
     }
 
     public static XContentParser createParser(BytesReference bytes) throws IOException {
-        XContent content = XContentService.xContent(bytes.toBytes(), 0, bytes.length());
+        bytes = uncompressed(bytes);
+        XContent content = XContentService.xContent(bytes);
         if (content == null) {
             throw new IOException(UNKNOWN_FORMAT);
         }
-        return content.createParser(bytes.streamInput());
+        return XContentMetrics.meter(content.createParser(bytes.streamInput()), bytes.length());
+    }
+
+    /**
+     * Create a parser which passes only the fields matching include and exclude path patterns,
+     * see {@link FilteringXContentParser}.
+     * @param bytes the content
+     * @param includes the include patterns, may be null or empty
+     * @param excludes the exclude patterns, may be null or empty
+     * @return the parser
+     * @throws IOException if the content type is unknown or the parser can not be created
+     */
+    public static XContentParser createParser(BytesReference bytes, Collection<String> includes,
+                                              Collection<String> excludes) throws IOException {
+        return new FilteringXContentParser(createParser(bytes), includes, excludes);
+    }
+
+    /**
+     * Create a parser over an input stream, detecting the content type from a short prefix.
+     * Streams without mark and reset support are buffered. Compressed content, see {@link CompressedStreamInput},
+     * is decompressed while it is parsed.
+     * @param inputStream the input stream
+     * @return the parser
+     * @throws IOException if the content type is unknown or the parser can not be created
+     */
+    public static XContentParser createParser(InputStream inputStream) throws IOException {
+        CountingInputStream counting = XContentMetrics.isEnabled() ? new CountingInputStream(inputStream) : null;
+        InputStream in = counting != null ? new BufferedInputStream(counting) :
+                inputStream.markSupported() ? inputStream : new BufferedInputStream(inputStream);
+        if (CompressedStreamInput.isCompressed(in)) {
+            in = new BufferedInputStream(new CompressedStreamInput(in));
+        }
+        XContent content = XContentService.xContent(in);
+        if (content == null) {
+            throw new IOException(UNKNOWN_FORMAT);
+        }
+        return XContentMetrics.meter(content.createParser(in), counting);
     }
 
     public static XContentParser createParser(byte[] data, int offset, int length) throws IOException {
@@ -37,20 +85,26 @@ public class XContentHelper {
     }
 
     public static Map<String, ?> convertToMap(String data) {
+        XContentEvent event = XContentEvent.start("convertToMap");
+        XContent content = XContentService.xContent(data);
         try {
-            return XContentService.xContent(data).createParser(data).mapOrderedAndClose();
+            return XContentMetrics.meter(content.createParser(data), data.length()).mapOrderedAndClose();
         } catch (IOException e) {
             throw new IllegalArgumentException("failed to parse content to map", e);
+        } finally {
+            event.commit(content.name(), data.length());
         }
     }
 
     public static Map<String, ?> convertToMap(BytesReference bytes, boolean ordered) {
-        XContent content = XContentService.xContent(bytes.toBytes(), 0, bytes.length());
+        XContentEvent event = XContentEvent.start("convertToMap");
+        bytes = uncompressed(bytes);
+        XContent content = XContentService.xContent(bytes);
         if (content == null) {
             throw new IllegalArgumentException(UNKNOWN_FORMAT);
         }
         try {
-            XContentParser parser = content.createParser(bytes.streamInput());
+            XContentParser parser = XContentMetrics.meter(content.createParser(bytes.streamInput()), bytes.length());
             if (ordered) {
                 return parser.mapOrderedAndClose();
             } else {
@@ -58,6 +112,69 @@ public class XContentHelper {
             }
         } catch (IOException e) {
             throw new IllegalArgumentException("failed to parse content to map", e);
+        } finally {
+            event.commit(content.name(), bytes.length());
+        }
+    }
+
+    /**
+     * Convert content to a map, with maps created by a map factory, for example {@link MapFactory#frozen()}
+     * for documents which are retained.
+     * @param bytes the content
+     * @param mapFactory the map factory
+     * @return the map
+     */
+    public static Map<String, Object> convertToMap(BytesReference bytes, MapFactory mapFactory) {
+        try (XContentParser parser = createParser(bytes)) {
+            if (!(parser instanceof AbstractXContentParser)) {
+                return parser.mapOrdered();
+            }
+            return ((AbstractXContentParser) parser).mapFactory(mapFactory).mapOrdered();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("failed to parse content to map", e);
+        }
+    }
+
+    /**
+     * Convert content to a read-only map which decodes values on access, see {@link LazyMap}.
+     * Content types without token offsets are converted to an ordered map.
+     * @param bytes the content
+     * @return the map
+     */
+    public static Map<String, Object> convertToLazyMap(BytesReference bytes) {
+        XContentEvent event = XContentEvent.start("convertToLazyMap");
+        bytes = uncompressed(bytes);
+        XContent content = XContentService.xContent(bytes);
+        if (content == null) {
+            throw new IllegalArgumentException(UNKNOWN_FORMAT);
+        }
+        try (XContentParser parser = XContentMetrics.meter(content.createParser(bytes.streamInput()), bytes.length())) {
+            XContentParser.Token t = parser.nextToken();
+            if (t == XContentParser.Token.START_OBJECT && parser.tokenOffset() >= 0L) {
+                return LazyMap.of(content, bytes, parser);
+            }
+            return Collections.unmodifiableMap(parser.mapOrdered());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("failed to parse content to map", e);
+        } finally {
+            event.commit(content.name(), bytes.length());
+        }
+    }
+
+    /**
+     * Convert content to a map of the fields matching include and exclude path patterns.
+     * @param bytes the content
+     * @param ordered true if the map should keep the field order
+     * @param includes the include patterns, may be null or empty
+     * @param excludes the exclude patterns, may be null or empty
+     * @return the map
+     */
+    public static Map<String, ?> convertToMap(BytesReference bytes, boolean ordered,
+                                              Collection<String> includes, Collection<String> excludes) {
+        try (XContentParser parser = createParser(bytes, includes, excludes)) {
+            return ordered ? parser.mapOrdered() : parser.map();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("failed to parse content to map", e);
         }
     }
 
@@ -66,25 +183,32 @@ public class XContentHelper {
     }
 
     public static Map<String, ?> convertToMap(byte[] data, int offset, int length, boolean ordered) throws IOException {
+        XContentEvent event = XContentEvent.start("convertToMap");
         XContent content = XContentService.xContent(data, offset, length);
         if (content == null) {
             throw new IOException("no xcontent found");
         }
-        XContentParser parser = content.createParser(data, offset, length);
-        if (ordered) {
-            return parser.mapOrderedAndClose();
-        } else {
-            return parser.mapAndClose();
+        try {
+            XContentParser parser = XContentMetrics.meter(content.createParser(data, offset, length), length);
+            if (ordered) {
+                return parser.mapOrderedAndClose();
+            } else {
+                return parser.mapAndClose();
+            }
+        } finally {
+            event.commit(content.name(), length);
         }
     }
 
     public static String parseToString(BytesReference bytes,
                                         boolean prettyPrint) throws IOException {
-        XContent xContent = XContentService.xContent(bytes.toBytes(), 0, bytes.length());
+        XContentEvent event = XContentEvent.start("parseToString");
+        bytes = uncompressed(bytes);
+        XContent xContent = XContentService.xContent(bytes);
         if (xContent == null) {
             throw new IOException(UNKNOWN_FORMAT);
         }
-        try (XContentParser parser = xContent.createParser(bytes.streamInput());
+        try (XContentParser parser = XContentMetrics.meter(xContent.createParser(bytes.streamInput()), bytes.length());
              XContentBuilder builder = DefaultXContentBuilder.builder(xContent)) {
             parser.nextToken();
             if (prettyPrint) {
@@ -92,6 +216,8 @@ public class XContentHelper {
             }
             builder.copyCurrentStructure(parser);
             return builder.string();
+        } finally {
+            event.commit(xContent.name(), bytes.length());
         }
     }
 
@@ -112,6 +238,22 @@ public class XContentHelper {
         }
     }
 
+    /**
+     * Return the uncompressed bytes of compressed content, or the bytes as they are.
+     * @param bytes the bytes
+     * @return the uncompressed bytes
+     */
+    static BytesReference uncompressed(BytesReference bytes) {
+        return CompressedBytesReference.isCompressed(bytes) ? new CompressedBytesReference(bytes) : bytes;
+    }
+
+    /**
+     * Copy the current structure of a parser, a field with its value, an object, an array, or a single value.
+     * The structure is copied token by token without recursion, so deep nesting does not exhaust the stack.
+     * @param generator the generator
+     * @param parser the parser
+     * @throws IOException if copying fails
+     */
     public static void copyCurrentStructure(XContentGenerator generator,
                                             XContentParser parser) throws IOException {
         XContentParser.Token t = parser.currentToken();
@@ -119,23 +261,81 @@ public class XContentHelper {
             generator.writeFieldName(parser.currentName());
             t = parser.nextToken();
         }
-        switch (t) {
-            case START_ARRAY:
-                generator.writeStartArray();
-                while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
-                    copyCurrentStructure(generator, parser);
-                }
-                generator.writeEndArray();
-                break;
-            case START_OBJECT:
-                generator.writeStartObject();
-                while (parser.nextToken() != XContentParser.Token.END_OBJECT) {
-                    copyCurrentStructure(generator, parser);
-                }
-                generator.writeEndObject();
-                break;
-            default:
-                copyCurrentEvent(generator, parser);
+        int depth = 0;
+        while (t != null) {
+            copyCurrentEvent(generator, parser);
+            if (t == XContentParser.Token.START_OBJECT || t == XContentParser.Token.START_ARRAY) {
+                depth++;
+            } else if (t == XContentParser.Token.END_OBJECT || t == XContentParser.Token.END_ARRAY) {
+                depth--;
+            }
+            if (depth == 0) {
+                return;
+            }
+            t = parser.nextToken();
+        }
+    }
+
+    /**
+     * Copy the current structure of a parser, passing only the fields matching include and exclude
+     * path patterns. Non-matching subtrees are skipped without decoding them.
+     * @param generator the generator
+     * @param parser the parser, positioned at the start of an object or array
+     * @param includes the include patterns, may be null or empty
+     * @param excludes the exclude patterns, may be null or empty
+     * @throws IOException if copying fails
+     */
+    public static void copyCurrentStructure(XContentGenerator generator,
+                                            XContentParser parser,
+                                            Collection<String> includes,
+                                            Collection<String> excludes) throws IOException {
+        copyCurrentStructure(generator, new FilteringXContentParser(parser, includes, excludes));
+    }
+
+    /**
+     * Transcode a stream of content from one content type to another, token by token, without building
+     * maps or trees. Numbers are copied by their number type, binary values are copied as binary.
+     * If both content types are the same, the bytes are copied as they are, without parsing them.
+     * The streams are not closed. While metrics are enabled, or the {@link XContentEvent} is recorded,
+     * the bytes read and written are counted.
+     * @param source the content type of the input
+     * @param target the content type of the output
+     * @param in the input stream
+     * @param out the output stream
+     * @throws IOException if the input can not be parsed or the output can not be written
+     */
+    public static void transcode(XContent source, XContent target, InputStream in, OutputStream out)
+            throws IOException {
+        XContentEvent event = XContentEvent.start("transcode");
+        if (source == target || source.name().equals(target.name())) {
+            long n = in.transferTo(out);
+            event.commit(source.name(), n);
+            return;
+        }
+        boolean metered = XContentMetrics.isEnabled();
+        CountingInputStream countingIn = metered || event.isStarted() ? new CountingInputStream(in) : null;
+        CountingOutputStream countingOut = metered ? new CountingOutputStream(out) : null;
+        InputStream input = new NonClosingInputStream(countingIn != null ? countingIn : in);
+        OutputStream output = new NonClosingOutputStream(countingOut != null ? countingOut : out);
+        MeteredXContentGenerator meteredGenerator = null;
+        long startNanos = System.nanoTime();
+        try (XContentParser parser = XContentMetrics.meter(source.createParser(input), countingIn);
+             XContentGenerator generator = target.createGenerator(output)) {
+            XContentGenerator g = generator;
+            if (countingOut != null) {
+                meteredGenerator = new MeteredXContentGenerator(generator);
+                g = meteredGenerator;
+            }
+            while (parser.nextToken() != null) {
+                copyCurrentEvent(g, parser);
+            }
+        } finally {
+            event.commit(source.name(), countingIn != null ? countingIn.count() : -1L);
+        }
+        if (meteredGenerator != null) {
+            // the generator is closed, so all bytes are written
+            XContentMetrics.of(target.name()).recordGenerate(countingOut.count(), meteredGenerator.tokens(), 0,
+                    System.nanoTime() - startNanos);
         }
     }
 
@@ -186,6 +386,9 @@ public class XContentHelper {
                     case DOUBLE:
                         if (parser.isLosslessDecimals()) {
                             generator.writeNumber(parser.bigDecimalValue());
+                        } else if (parser.hasNumberText() && generator.writesNumberText()) {
+                            // from text to text, the digits are copied without converting them
+                            generator.writeNumber(parser.textCharacters(), parser.textOffset(), parser.textLength());
                         } else {
                             generator.writeNumber(parser.doubleValue());
                         }
@@ -214,6 +417,36 @@ public class XContentHelper {
         }
     }
 
+    private static class NonClosingInputStream extends FilterInputStream {
+
+        NonClosingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public void close() {
+            // the caller closes the stream
+        }
+    }
+
+    private static class NonClosingOutputStream extends FilterOutputStream {
+
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            // the caller closes the stream
+            out.flush();
+        }
+    }
+
     static byte[] parseBase16(String s) {
         final int len = s.length();
         if (len % 2 != 0) {
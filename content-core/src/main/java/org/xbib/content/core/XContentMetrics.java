@@ -0,0 +1,408 @@
+package org.xbib.content.core;
+
+import org.xbib.content.XContentParser;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the parsing and generating cost of one content format, for example {@code json}.
+ *
+ * Metrics are disabled by default, and enabled by the system property {@code org.xbib.content.metrics}
+ * or by {@link #setEnabled(boolean)}. While disabled, parsers and builders are created without
+ * instrumentation, and the only cost is a check of the enabled flag when they are created.
+ * While enabled, the parsers created by {@link XContentHelper} and the builders created by
+ * {@link DefaultXContentBuilder} are wrapped by {@link MeteredXContentParser} and
+ * {@link MeteredXContentGenerator}, which count bytes, tokens, documents, and buffer reallocations,
+ * and record the latency of each document in a histogram with power of two buckets of nanoseconds.
+ *
+ * Counters are updated without locks and can be read at any time, for example by a periodic reporter.
+ */
+public final class XContentMetrics {
+
+    /**
+     * The number of latency histogram buckets. Bucket {@code i} counts latencies of less than
+     * {@code 2^i} nanoseconds which are not counted in a lower bucket.
+     */
+    public static final int BUCKETS = 64;
+
+    private static final Map<String, XContentMetrics> metrics = new ConcurrentHashMap<>();
+
+    private static volatile boolean enabled = Boolean.getBoolean("org.xbib.content.metrics");
+
+    private final String format;
+
+    private final LongAdder bytesIn;
+
+    private final LongAdder bytesOut;
+
+    private final LongAdder tokensParsed;
+
+    private final LongAdder tokensGenerated;
+
+    private final LongAdder documentsParsed;
+
+    private final LongAdder documentsGenerated;
+
+    private final LongAdder reallocations;
+
+    private final AtomicLongArray parseLatencies;
+
+    private final AtomicLongArray generateLatencies;
+
+    private volatile long startNanos;
+
+    private XContentMetrics(String format) {
+        this.format = format;
+        this.bytesIn = new LongAdder();
+        this.bytesOut = new LongAdder();
+        this.tokensParsed = new LongAdder();
+        this.tokensGenerated = new LongAdder();
+        this.documentsParsed = new LongAdder();
+        this.documentsGenerated = new LongAdder();
+        this.reallocations = new LongAdder();
+        this.parseLatencies = new AtomicLongArray(BUCKETS);
+        this.generateLatencies = new AtomicLongArray(BUCKETS);
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Check if metrics are enabled.
+     * @return true if metrics are enabled
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enable or disable metrics. Parsers and builders created before are not affected.
+     * @param b true if metrics should be enabled
+     */
+    public static void setEnabled(boolean b) {
+        enabled = b;
+    }
+
+    /**
+     * Return the metrics of a content format.
+     * @param format the name of the content format
+     * @return the metrics
+     */
+    public static XContentMetrics of(String format) {
+        return metrics.computeIfAbsent(format, XContentMetrics::new);
+    }
+
+    /**
+     * Return the metrics of all content formats which were used while metrics were enabled.
+     * @return the metrics by content format name
+     */
+    public static Map<String, XContentMetrics> all() {
+        return Collections.unmodifiableMap(new TreeMap<>(metrics));
+    }
+
+    /**
+     * Wrap a parser for metrics, if metrics are enabled.
+     * @param parser the parser
+     * @param bytes the length of the parsed content, or -1 if unknown
+     * @return the metered parser, or the parser if metrics are disabled
+     */
+    public static XContentParser meter(XContentParser parser, long bytes) {
+        return enabled ? new MeteredXContentParser(parser, of(parser.content().name()), bytes) : parser;
+    }
+
+    /**
+     * Wrap a parser of a stream for metrics, if metrics are enabled and the stream is counted.
+     * @param parser the parser
+     * @param in the counted stream the parser reads from, or null
+     * @return the metered parser, or the parser if metrics are disabled or the stream is not counted
+     */
+    static XContentParser meter(XContentParser parser, CountingInputStream in) {
+        return enabled && in != null ? new MeteredXContentParser(parser, of(parser.content().name()), in::count) : parser;
+    }
+
+    /**
+     * Return the name of the content format.
+     * @return the name
+     */
+    public String format() {
+        return format;
+    }
+
+    /**
+     * Record a parsed document.
+     * @param bytes the number of parsed bytes
+     * @param tokens the number of parsed tokens
+     * @param nanos the parse latency in nanoseconds
+     */
+    public void recordParse(long bytes, long tokens, long nanos) {
+        bytesIn.add(bytes);
+        tokensParsed.add(tokens);
+        documentsParsed.increment();
+        parseLatencies.incrementAndGet(bucket(nanos));
+    }
+
+    /**
+     * Record a generated document.
+     * @param bytes the number of generated bytes
+     * @param tokens the number of generated tokens
+     * @param reallocations the number of reallocations of the output buffer
+     * @param nanos the generate latency in nanoseconds
+     */
+    public void recordGenerate(long bytes, long tokens, int reallocations, long nanos) {
+        bytesOut.add(bytes);
+        tokensGenerated.add(tokens);
+        this.reallocations.add(reallocations);
+        documentsGenerated.increment();
+        generateLatencies.incrementAndGet(bucket(nanos));
+    }
+
+    /**
+     * Return the number of parsed bytes.
+     * @return the number of bytes
+     */
+    public long bytesIn() {
+        return bytesIn.sum();
+    }
+
+    /**
+     * Return the number of generated bytes.
+     * @return the number of bytes
+     */
+    public long bytesOut() {
+        return bytesOut.sum();
+    }
+
+    /**
+     * Return the number of parsed tokens.
+     * @return the number of tokens
+     */
+    public long tokensParsed() {
+        return tokensParsed.sum();
+    }
+
+    /**
+     * Return the number of generated tokens.
+     * @return the number of tokens
+     */
+    public long tokensGenerated() {
+        return tokensGenerated.sum();
+    }
+
+    /**
+     * Return the number of parsed documents.
+     * @return the number of documents
+     */
+    public long documentsParsed() {
+        return documentsParsed.sum();
+    }
+
+    /**
+     * Return the number of generated documents.
+     * @return the number of documents
+     */
+    public long documentsGenerated() {
+        return documentsGenerated.sum();
+    }
+
+    /**
+     * Return the number of output buffer reallocations of generated documents.
+     * @return the number of reallocations
+     */
+    public long reallocations() {
+        return reallocations.sum();
+    }
+
+    /**
+     * Return the number of parsed and generated documents per second since these metrics were created
+     * or reset.
+     * @return the documents per second
+     */
+    public double documentsPerSecond() {
+        long nanos = System.nanoTime() - startNanos;
+        return nanos > 0L ? (documentsParsed() + documentsGenerated()) * 1e9 / nanos : 0.0d;
+    }
+
+    /**
+     * Return the parse latency histogram.
+     * @return the counts of the {@link #BUCKETS} buckets
+     */
+    public long[] parseLatencies() {
+        return snapshot(parseLatencies);
+    }
+
+    /**
+     * Return the generate latency histogram.
+     * @return the counts of the {@link #BUCKETS} buckets
+     */
+    public long[] generateLatencies() {
+        return snapshot(generateLatencies);
+    }
+
+    /**
+     * Return an upper bound of a percentile of the parse latencies.
+     * @param percentile the percentile, between 0 and 100
+     * @return the upper bound of the bucket containing the percentile in nanoseconds, or 0 if empty
+     */
+    public long parseLatency(double percentile) {
+        return percentile(parseLatencies(), percentile);
+    }
+
+    /**
+     * Return an upper bound of a percentile of the generate latencies.
+     * @param percentile the percentile, between 0 and 100
+     * @return the upper bound of the bucket containing the percentile in nanoseconds, or 0 if empty
+     */
+    public long generateLatency(double percentile) {
+        return percentile(generateLatencies(), percentile);
+    }
+
+    /**
+     * Reset all counters.
+     */
+    public void reset() {
+        bytesIn.reset();
+        bytesOut.reset();
+        tokensParsed.reset();
+        tokensGenerated.reset();
+        documentsParsed.reset();
+        documentsGenerated.reset();
+        reallocations.reset();
+        for (int i = 0; i < BUCKETS; i++) {
+            parseLatencies.set(i, 0L);
+            generateLatencies.set(i, 0L);
+        }
+        startNanos = System.nanoTime();
+    }
+
+    @Override
+    public String toString() {
+        return format + "[bytesIn=" + bytesIn() + ",bytesOut=" + bytesOut() +
+                ",tokensParsed=" + tokensParsed() + ",tokensGenerated=" + tokensGenerated() +
+                ",documentsParsed=" + documentsParsed() + ",documentsGenerated=" + documentsGenerated() +
+                ",reallocations=" + reallocations() + ",parseP99=" + parseLatency(99.0d) +
+                ",generateP99=" + generateLatency(99.0d) + "]";
+    }
+
+    private static int bucket(long nanos) {
+        return nanos <= 0L ? 0 : Math.min(BUCKETS - 1, Long.SIZE - Long.numberOfLeadingZeros(nanos));
+    }
+
+    private static long[] snapshot(AtomicLongArray array) {
+        long[] counts = new long[array.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = array.get(i);
+        }
+        return counts;
+    }
+
+    private static long percentile(long[] counts, double percentile) {
+        long total = 0L;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0L) {
+            return 0L;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100.0d);
+        long n = 0L;
+        for (int i = 0; i < counts.length; i++) {
+            n += counts[i];
+            if (n >= rank && counts[i] > 0L) {
+                return i == BUCKETS - 1 ? Long.MAX_VALUE : 1L << i;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * An input stream which counts the bytes read from another stream. Mark and reset are not supported,
+     * so no byte is counted twice.
+     */
+    static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        long count() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {
+            // not supported
+        }
+
+        @Override
+        public synchronized void reset() throws IOException {
+            throw new IOException("mark not supported");
+        }
+    }
+
+    /**
+     * An output stream which counts the bytes written to another stream.
+     */
+    static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        long count() {
+            return count;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -2,24 +2,55 @@ package org.xbib.content.core;
 
 import org.xbib.content.XContent;
 import org.xbib.content.XContentBuilder;
-import org.xbib.content.io.BytesArray;
+import org.xbib.content.io.BytesReference;
+import org.xbib.content.io.CompressedBytesReference;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
 
 public class XContentService {
 
+    /**
+     * The number of leading bytes examined for detecting the content type.
+     */
+    private static final int DETECTION_LENGTH = 20;
+
+    private static final XContent[] EMPTY = new XContent[0];
+
     private static final Map<String, XContent> xcontents = new HashMap<>();
 
+    private static final List<XContent> xcontentList = new ArrayList<>();
+
+    /**
+     * The content types to try, indexed by the first significant byte of the content.
+     */
+    private static final XContent[][] dispatch = new XContent[256][];
+
     static {
         ServiceLoader<XContent> loader = ServiceLoader.load(XContent.class);
         for (XContent xContent : loader) {
             if (!xcontents.containsKey(xContent.name())) {
                 xcontents.put(xContent.name(), xContent);
+                xcontentList.add(xContent);
+            }
+        }
+        List<List<XContent>> lists = new ArrayList<>(dispatch.length);
+        for (int i = 0; i < dispatch.length; i++) {
+            lists.add(new ArrayList<>());
+        }
+        for (XContent xContent : xcontentList) {
+            for (byte b : xContent.leadingBytes()) {
+                lists.get(b & 0xff).add(xContent);
             }
         }
+        for (int i = 0; i < dispatch.length; i++) {
+            dispatch[i] = lists.get(i).toArray(EMPTY);
+        }
     }
 
     private XContentService() {
@@ -30,16 +61,94 @@ public class XContentService {
     }
 
     public static XContent xContent(String charSequence) {
-        BytesArray bytesArray = new BytesArray(charSequence.getBytes(StandardCharsets.UTF_8));
-        return xContent(bytesArray.toBytes(), 0, bytesArray.length());
+        String prefix = charSequence.length() > DETECTION_LENGTH ?
+                charSequence.substring(0, DETECTION_LENGTH) : charSequence;
+        byte[] b = prefix.getBytes(StandardCharsets.UTF_8);
+        return xContent(b, 0, b.length);
+    }
+
+    /**
+     * Detect the content type of a bytes reference. Only a short prefix of the bytes
+     * is examined, so the reference may be backed by direct or memory-mapped buffers.
+     * Compressed content, see {@link CompressedBytesReference}, is detected by its uncompressed bytes.
+     * @param bytes the bytes reference
+     * @return the content, or null if no content type matches
+     */
+    public static XContent xContent(BytesReference bytes) {
+        if (CompressedBytesReference.isCompressed(bytes) && !(bytes instanceof CompressedBytesReference)) {
+            return xContent(new CompressedBytesReference(bytes));
+        }
+        int length = Math.min(bytes.length(), DETECTION_LENGTH);
+        byte[] b = new byte[length];
+        for (int i = 0; i < length; i++) {
+            b[i] = bytes.get(i);
+        }
+        return xContent(b, 0, length);
     }
 
+    /**
+     * Detect the content type of an input stream. The stream must support mark and reset, and
+     * is reset to its current position after a short prefix has been examined.
+     * @param inputStream the input stream
+     * @return the content, or null if no content type matches
+     * @throws IOException if the input stream can not be read
+     */
+    public static XContent xContent(InputStream inputStream) throws IOException {
+        if (!inputStream.markSupported()) {
+            throw new IllegalArgumentException("input stream does not support mark and reset");
+        }
+        byte[] b = new byte[DETECTION_LENGTH];
+        int length = 0;
+        inputStream.mark(DETECTION_LENGTH);
+        try {
+            while (length < b.length) {
+                int n = inputStream.read(b, length, b.length - length);
+                if (n < 0) {
+                    break;
+                }
+                length += n;
+            }
+        } finally {
+            inputStream.reset();
+        }
+        return xContent(b, 0, length);
+    }
+
+    /**
+     * Detect the content type of bytes. The first significant byte, after a byte order mark
+     * and white space, selects the candidate content types, and only those are asked to
+     * confirm. If none confirms, all content types are tried.
+     * @param data the data
+     * @param offset the offset
+     * @param length the length
+     * @return the content, or null if no content type matches
+     */
     public static XContent xContent(byte[] data, int offset, int length) {
-        for (XContent xcontent : xcontents.values()) {
+        int end = offset + Math.min(length, DETECTION_LENGTH);
+        int pos = skipWhitespace(data, offset, end);
+        if (pos < end) {
+            for (XContent xContent : dispatch[data[pos] & 0xff]) {
+                if (xContent.isXContent(data, pos, offset + length - pos)) {
+                    return xContent;
+                }
+            }
+        }
+        for (XContent xcontent : xcontentList) {
             if (xcontent.isXContent(data, offset, length)) {
                 return xcontent;
             }
         }
         return null;
     }
+
+    private static int skipWhitespace(byte[] data, int offset, int end) {
+        int pos = offset;
+        if (end - pos >= 3 && data[pos] == (byte) 0xef && data[pos + 1] == (byte) 0xbb && data[pos + 2] == (byte) 0xbf) {
+            pos += 3;
+        }
+        while (pos < end && (data[pos] == ' ' || data[pos] == '\t' || data[pos] == '\r' || data[pos] == '\n')) {
+            pos++;
+        }
+        return pos;
+    }
 }
@@ -0,0 +1,171 @@
+package org.xbib.content.io;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An adaptive initial size for {@link BytesStreamOutput} buffers of one kind of document.
+ *
+ * The final sizes of recent documents are recorded in a window, and new buffers are created with the size
+ * of a percentile of the window, so documents of a stable size are written without growing the buffer.
+ * Policies are shared by the name of their kind, for example a call site or a document type, by
+ * {@link #of(String)}. Recording is lock-free and the percentile is recomputed periodically, so a policy
+ * can be used by many threads.
+ */
+public class BufferSizePolicy {
+
+    /**
+     * The default percentile of recorded sizes for the initial buffer size.
+     */
+    public static final int DEFAULT_PERCENTILE = 90;
+
+    /**
+     * The default number of recorded sizes in the window.
+     */
+    public static final int DEFAULT_WINDOW = 128;
+
+    /**
+     * The default maximum initial buffer size, 16 MB, so a few huge documents do not cause huge allocations
+     * for every following document.
+     */
+    public static final int DEFAULT_MAX_SIZE = 16 * 1024 * 1024;
+
+    private static final Map<String, BufferSizePolicy> policies = new ConcurrentHashMap<>();
+
+    private final int percentile;
+
+    private final int maxSize;
+
+    private final AtomicIntegerArray window;
+
+    private final AtomicLong samples;
+
+    private final LongAdder reallocations;
+
+    private final LongAdder reallocationsAvoided;
+
+    private volatile int initialSize;
+
+    /**
+     * Create a policy with the default percentile, window, and maximum size.
+     */
+    public BufferSizePolicy() {
+        this(DEFAULT_PERCENTILE, DEFAULT_WINDOW, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Create a policy.
+     * @param percentile the percentile of recorded sizes for the initial buffer size, between 1 and 100
+     * @param window the number of recorded sizes in the window
+     * @param maxSize the maximum initial buffer size
+     */
+    public BufferSizePolicy(int percentile, int window, int maxSize) {
+        if (percentile < 1 || percentile > 100) {
+            throw new IllegalArgumentException("invalid percentile " + percentile);
+        }
+        if (window <= 0) {
+            throw new IllegalArgumentException("invalid window " + window);
+        }
+        this.percentile = percentile;
+        this.maxSize = Math.max(maxSize, BytesStreamOutput.DEFAULT_BUFFER_SIZE);
+        this.window = new AtomicIntegerArray(window);
+        this.samples = new AtomicLong();
+        this.reallocations = new LongAdder();
+        this.reallocationsAvoided = new LongAdder();
+        this.initialSize = BytesStreamOutput.DEFAULT_BUFFER_SIZE;
+    }
+
+    /**
+     * Return the shared policy for a kind of document, created with default settings on first use.
+     * @param kind the kind of document
+     * @return the policy
+     */
+    public static BufferSizePolicy of(String kind) {
+        return policies.computeIfAbsent(kind, k -> new BufferSizePolicy());
+    }
+
+    /**
+     * Create a buffer with the current initial size.
+     * @return the buffer
+     */
+    public BytesStreamOutput newOutput() {
+        return new BytesStreamOutput(initialSize);
+    }
+
+    /**
+     * Return the current initial buffer size.
+     * @return the initial size in bytes
+     */
+    public int initialSize() {
+        return initialSize;
+    }
+
+    /**
+     * Record the final size of a document written to a buffer, and the number of times the buffer had to grow.
+     * @param output the buffer
+     */
+    public void record(BytesStreamOutput output) {
+        record(output.size(), output.reallocations());
+    }
+
+    /**
+     * Record the final size of a document, and the number of times its buffer had to grow.
+     * @param size the size in bytes
+     * @param reallocations the number of reallocations of the buffer
+     */
+    public void record(int size, int reallocations) {
+        long n = samples.getAndIncrement();
+        int length = window.length();
+        window.set((int) (n % length), size);
+        this.reallocations.add(reallocations);
+        int avoided = BytesStreamOutput.growths(BytesStreamOutput.DEFAULT_BUFFER_SIZE, size) - reallocations;
+        if (avoided > 0) {
+            reallocationsAvoided.add(avoided);
+        }
+        // recompute on every sample while the window fills, then after an eighth of the window
+        if (n < length || n % Math.max(1, length >> 3) == 0) {
+            initialSize = estimate((int) Math.min(n + 1, length));
+        }
+    }
+
+    /**
+     * Return the number of recorded documents.
+     * @return the number of documents
+     */
+    public long samples() {
+        return samples.get();
+    }
+
+    /**
+     * Return the number of buffer reallocations of the recorded documents.
+     * @return the number of reallocations
+     */
+    public long reallocations() {
+        return reallocations.sum();
+    }
+
+    /**
+     * Return the number of buffer reallocations which the recorded documents would have needed with the
+     * default initial buffer size, but did not need with the adaptive size.
+     * @return the number of avoided reallocations
+     */
+    public long reallocationsAvoided() {
+        return reallocationsAvoided.sum();
+    }
+
+    private int estimate(int count) {
+        int[] sizes = new int[count];
+        for (int i = 0; i < count; i++) {
+            sizes[i] = window.get(i);
+        }
+        Arrays.sort(sizes);
+        int size = sizes[Math.max(0, (count * percentile + 99) / 100 - 1)];
+        // round up to full kilobytes
+        long rounded = ((long) size + 1023) & ~1023L;
+        return (int) Math.max(BytesStreamOutput.DEFAULT_BUFFER_SIZE, Math.min(rounded, maxSize));
+    }
+}
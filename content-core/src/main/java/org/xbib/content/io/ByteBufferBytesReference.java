@@ -0,0 +1,169 @@
+package org.xbib.content.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A {@link BytesReference} over a {@link ByteBuffer}, for example a direct or a memory-mapped buffer.
+ * The content of the buffer is never copied to the heap as a whole, except by {@link #toBytes()}.
+ * The position and limit of the given buffer are not modified.
+ */
+public class ByteBufferBytesReference implements BytesReference {
+
+    private static final String EMPTY_STRING = "";
+
+    private static final int TRANSFER_SIZE = 8192;
+
+    private final ByteBuffer buffer;
+
+    private final int length;
+
+    /**
+     * Create a {@link ByteBufferBytesReference} over the remaining bytes of a buffer.
+     * @param buffer the buffer
+     */
+    public ByteBufferBytesReference(ByteBuffer buffer) {
+        this.buffer = buffer.slice();
+        this.length = this.buffer.remaining();
+    }
+
+    @Override
+    public byte get(int index) {
+        return buffer.get(index);
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public int indexOf(byte b, int from, int len) {
+        if (from < 0 || len < 0 || (from + len) > length) {
+            throw new IllegalArgumentException("can't search a buffer with length [" + length +
+                    "], with parameters from [" + from + "], length [" + len + "]");
+        }
+        for (int i = from; i < from + len; i++) {
+            if (buffer.get(i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public BytesReference slice(int from, int length) {
+        if (from < 0 || length < 0 || (from + length) > this.length) {
+            throw new IllegalArgumentException("can't slice a buffer with length [" + this.length +
+                    "], with slice parameters from [" + from + "], length [" + length + "]");
+        }
+        return new ByteBufferBytesReference(buffer.duplicate().position(from).limit(from + length));
+    }
+
+    @Override
+    public byte[] toBytes() {
+        byte[] b = new byte[length];
+        buffer.duplicate().get(b);
+        return b;
+    }
+
+    @Override
+    public String toUtf8() {
+        if (length == 0) {
+            return EMPTY_STRING;
+        }
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset(), length, StandardCharsets.UTF_8);
+        }
+        return StandardCharsets.UTF_8.decode(buffer.duplicate()).toString();
+    }
+
+    @Override
+    public InputStream streamInput() {
+        return new ByteBufferStreamInput(buffer.duplicate());
+    }
+
+    @Override
+    public void streamOutput(OutputStream outputStream) throws IOException {
+        if (buffer.hasArray()) {
+            outputStream.write(buffer.array(), buffer.arrayOffset(), length);
+            return;
+        }
+        ByteBuffer b = buffer.duplicate();
+        byte[] chunk = new byte[Math.min(TRANSFER_SIZE, length)];
+        while (b.hasRemaining()) {
+            int n = Math.min(chunk.length, b.remaining());
+            b.get(chunk, 0, n);
+            outputStream.write(chunk, 0, n);
+        }
+    }
+
+    @Override
+    public ByteBuffer[] toByteBuffers() {
+        return new ByteBuffer[] { buffer.duplicate() };
+    }
+
+    private static class ByteBufferStreamInput extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferStreamInput(ByteBuffer buffer) {
+            this.buffer = buffer;
+            buffer.mark();
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (off < 0 || len < 0 || len > b.length - off) {
+                throw new IndexOutOfBoundsException();
+            }
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            if (n <= 0) {
+                return 0;
+            }
+            int skipped = (int) Math.min(n, buffer.remaining());
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {
+            buffer.mark();
+        }
+
+        @Override
+        public synchronized void reset() {
+            buffer.reset();
+        }
+    }
+}
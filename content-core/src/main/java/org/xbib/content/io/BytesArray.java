@@ -2,6 +2,7 @@ package org.xbib.content.io;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
@@ -60,13 +61,14 @@ public class BytesArray implements BytesReference {
     }
 
     @Override
-    public int indexOf(byte b, int offset, int len) {
-        if (offset < 0 || (offset + length) > this.length) {
-            throw new IllegalArgumentException();
+    public int indexOf(byte b, int from, int len) {
+        if (from < 0 || len < 0 || (from + len) > this.length) {
+            throw new IllegalArgumentException("can't search a buffer with length [" + this.length +
+                    "], with parameters from [" + from + "], length [" + len + "]");
         }
-        for (int i = offset; i < offset + len; i++) {
+        for (int i = offset + from; i < offset + from + len; i++) {
             if (bytes[i] == b) {
-                return i;
+                return i - offset;
             }
         }
         return -1;
@@ -106,4 +108,9 @@ public class BytesArray implements BytesReference {
     public void streamOutput(OutputStream os) throws IOException {
         os.write(bytes, offset, length);
     }
+
+    @Override
+    public ByteBuffer[] toByteBuffers() {
+        return new ByteBuffer[] { ByteBuffer.wrap(bytes, offset, length) };
+    }
 }
@@ -1,7 +1,11 @@
 package org.xbib.content.io;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * A reference to bytes.
@@ -28,7 +32,7 @@ public interface BytesReference {
      * @param b the byte
      * @param offset offset
      * @param len len
-     * @return -1 if not found, otherwise the position, counting from offset
+     * @return -1 if not found, otherwise the position, counting from the start of this reference
      */
     int indexOf(byte b, int offset, int len);
 
@@ -55,7 +59,54 @@ public interface BytesReference {
      */
     String toUtf8();
 
-    BytesStreamInput streamInput();
+    /**
+     * Returns an input stream over the bytes.
+     *
+     * @return input stream
+     */
+    InputStream streamInput();
 
+    /**
+     * Writes the bytes to an output stream.
+     *
+     * @param outputStream the output stream
+     * @throws IOException if write fails
+     */
     void streamOutput(OutputStream outputStream) throws IOException;
+
+    /**
+     * Returns the bytes as a sequence of byte buffers, without copying.
+     * Each call returns fresh buffers which may be consumed by the caller.
+     *
+     * @return byte buffers
+     */
+    default ByteBuffer[] toByteBuffers() {
+        return new ByteBuffer[] { ByteBuffer.wrap(toBytes()) };
+    }
+
+    /**
+     * Writes the bytes to a channel, using a gathering write if the channel supports it.
+     *
+     * @param channel the channel
+     * @throws IOException if write fails
+     */
+    default void streamOutput(WritableByteChannel channel) throws IOException {
+        ByteBuffer[] buffers = toByteBuffers();
+        if (channel instanceof GatheringByteChannel) {
+            GatheringByteChannel gatheringByteChannel = (GatheringByteChannel) channel;
+            int i = 0;
+            while (i < buffers.length) {
+                gatheringByteChannel.write(buffers, i, buffers.length - i);
+                while (i < buffers.length && !buffers[i].hasRemaining()) {
+                    i++;
+                }
+            }
+        } else {
+            for (ByteBuffer buffer : buffers) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        }
+    }
 }
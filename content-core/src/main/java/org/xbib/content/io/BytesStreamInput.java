@@ -36,8 +36,7 @@ public class BytesStreamInput extends InputStream {
 
     @Override
     public int read() throws IOException {
-        int i = (int) pos++;
-        return pos < count ? buf[i] & 0xff : -1;
+        return pos < count ? buf[(int) pos++] & 0xff : -1;
     }
 
     @Override
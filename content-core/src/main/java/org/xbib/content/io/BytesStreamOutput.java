@@ -12,7 +12,7 @@ public class BytesStreamOutput extends OutputStream {
     /**
      * Small default buffer size, to reduce heap pressure.
      */
-    private static final int DEFAULT_BUFFER_SIZE = 1024;
+    static final int DEFAULT_BUFFER_SIZE = 1024;
 
     private static final boolean JRE_IS_64BIT;
 
@@ -33,6 +33,11 @@ public class BytesStreamOutput extends OutputStream {
      */
     private int count;
 
+    /**
+     * The number of times the buffer has grown since creation or the last reset.
+     */
+    private int reallocations;
+
     /**
      * Create a new {@code BytesStreamOutput} with default buffer size.
      */
@@ -77,7 +82,7 @@ public class BytesStreamOutput extends OutputStream {
     public void write(int b) throws IOException {
         int newcount = count + 1;
         if (newcount > buf.length) {
-            buf = Arrays.copyOf(buf, oversize(newcount));
+            grow(newcount);
         }
         buf[count] = (byte) b;
         count = newcount;
@@ -101,7 +106,7 @@ public class BytesStreamOutput extends OutputStream {
         }
         int newcount = count + length;
         if (newcount > buf.length) {
-            buf = Arrays.copyOf(buf, oversize(newcount));
+            grow(newcount);
         }
         System.arraycopy(b, offset, buf, count, length);
         count = newcount;
@@ -114,7 +119,7 @@ public class BytesStreamOutput extends OutputStream {
     public void skip(int length) {
         int newcount = count + length;
         if (newcount > buf.length) {
-            buf = Arrays.copyOf(buf, oversize(newcount));
+            grow(newcount);
         }
         count = newcount;
     }
@@ -129,6 +134,7 @@ public class BytesStreamOutput extends OutputStream {
 
     public void reset() {
         count = 0;
+        reallocations = 0;
     }
 
     @Override
@@ -160,6 +166,47 @@ public class BytesStreamOutput extends OutputStream {
         return count;
     }
 
+    /**
+     * Returns the capacity of the buffer.
+     *
+     * @return the number of bytes which can be written without growing the buffer
+     */
+    public int capacity() {
+        return buf.length;
+    }
+
+    /**
+     * Returns the number of times the buffer has grown since creation or the last {@link #reset()}.
+     *
+     * @return the number of reallocations
+     */
+    public int reallocations() {
+        return reallocations;
+    }
+
+    private void grow(int minTargetSize) {
+        buf = Arrays.copyOf(buf, oversize(minTargetSize));
+        reallocations++;
+    }
+
+    /**
+     * Returns the number of times a buffer of a given capacity grows while bytes are written
+     * up to a given size, if the bytes are written one at a time.
+     *
+     * @param capacity the initial capacity
+     * @param size the size
+     * @return the number of reallocations
+     */
+    static int growths(int capacity, int size) {
+        int n = 0;
+        int c = capacity;
+        while (c < size) {
+            c = oversize(c + 1);
+            n++;
+        }
+        return n;
+    }
+
     /**
      * Returns an array size &gt;= minTargetSize, generally
      * over-allocating exponentially to achieve amortized
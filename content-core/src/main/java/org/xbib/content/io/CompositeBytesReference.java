@@ -0,0 +1,256 @@
+package org.xbib.content.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A {@link BytesReference} chaining several references, without copying them into one array.
+ * Access, search, and slicing work across the boundaries of the chained references.
+ */
+public class CompositeBytesReference implements BytesReference {
+
+    private static final String EMPTY_STRING = "";
+
+    private final BytesReference[] references;
+
+    private final int[] offsets;
+
+    private final int length;
+
+    /**
+     * Create a {@link CompositeBytesReference} from references.
+     * @param references the references
+     */
+    public CompositeBytesReference(BytesReference... references) {
+        this.references = references;
+        this.offsets = new int[references.length];
+        long len = 0L;
+        for (int i = 0; i < references.length; i++) {
+            offsets[i] = (int) len;
+            len += references[i].length();
+            if (len > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("overflow, composite length larger than " + Integer.MAX_VALUE);
+            }
+        }
+        this.length = (int) len;
+    }
+
+    /**
+     * Create a {@link CompositeBytesReference} from a list of references.
+     * @param references the references
+     */
+    public CompositeBytesReference(List<BytesReference> references) {
+        this(references.toArray(new BytesReference[0]));
+    }
+
+    @Override
+    public byte get(int index) {
+        int i = referenceIndex(index);
+        return references[i].get(index - offsets[i]);
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public int indexOf(byte b, int from, int len) {
+        if (from < 0 || len < 0 || (from + len) > length) {
+            throw new IllegalArgumentException("can't search a buffer with length [" + length +
+                    "], with parameters from [" + from + "], length [" + len + "]");
+        }
+        if (len == 0) {
+            return -1;
+        }
+        int end = from + len;
+        for (int i = referenceIndex(from); i < references.length && offsets[i] < end; i++) {
+            BytesReference reference = references[i];
+            int start = Math.max(from, offsets[i]) - offsets[i];
+            int stop = Math.min(end - offsets[i], reference.length());
+            if (stop > start) {
+                int pos = reference.indexOf(b, start, stop - start);
+                if (pos >= 0) {
+                    return offsets[i] + pos;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public BytesReference slice(int from, int length) {
+        if (from < 0 || length < 0 || (from + length) > this.length) {
+            throw new IllegalArgumentException("can't slice a buffer with length [" + this.length +
+                    "], with slice parameters from [" + from + "], length [" + length + "]");
+        }
+        if (length == 0) {
+            return new BytesArray(new byte[0]);
+        }
+        int end = from + length;
+        int first = referenceIndex(from);
+        int last = referenceIndex(end - 1);
+        if (first == last) {
+            return references[first].slice(from - offsets[first], length);
+        }
+        List<BytesReference> list = new ArrayList<>(last - first + 1);
+        for (int i = first; i <= last; i++) {
+            int start = Math.max(from, offsets[i]) - offsets[i];
+            int stop = Math.min(end - offsets[i], references[i].length());
+            list.add(references[i].slice(start, stop - start));
+        }
+        return new CompositeBytesReference(list);
+    }
+
+    @Override
+    public byte[] toBytes() {
+        byte[] b = new byte[length];
+        int pos = 0;
+        for (ByteBuffer buffer : toByteBuffers()) {
+            int n = buffer.remaining();
+            buffer.get(b, pos, n);
+            pos += n;
+        }
+        return b;
+    }
+
+    @Override
+    public String toUtf8() {
+        if (length == 0) {
+            return EMPTY_STRING;
+        }
+        return new String(toBytes(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public InputStream streamInput() {
+        return new CompositeStreamInput();
+    }
+
+    @Override
+    public void streamOutput(OutputStream outputStream) throws IOException {
+        for (BytesReference reference : references) {
+            reference.streamOutput(outputStream);
+        }
+    }
+
+    @Override
+    public ByteBuffer[] toByteBuffers() {
+        List<ByteBuffer> list = new ArrayList<>(references.length);
+        for (BytesReference reference : references) {
+            list.addAll(Arrays.asList(reference.toByteBuffers()));
+        }
+        return list.toArray(new ByteBuffer[0]);
+    }
+
+    /**
+     * Find the index of the reference holding the byte at the given position.
+     * Empty references are skipped.
+     * @param index the position
+     * @return the reference index
+     */
+    private int referenceIndex(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index " + index + " out of bounds for length " + length);
+        }
+        int i = Arrays.binarySearch(offsets, index);
+        if (i < 0) {
+            return -i - 2;
+        }
+        while (i < references.length - 1 && references[i].length() == 0) {
+            i++;
+        }
+        return i;
+    }
+
+    private class CompositeStreamInput extends InputStream {
+
+        private int current;
+
+        private InputStream in;
+
+        private int remaining = length;
+
+        @Override
+        public int read() throws IOException {
+            while (remaining > 0) {
+                if (in == null) {
+                    in = references[current].streamInput();
+                }
+                int b = in.read();
+                if (b >= 0) {
+                    remaining--;
+                    return b;
+                }
+                next();
+            }
+            return -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (off < 0 || len < 0 || len > b.length - off) {
+                throw new IndexOutOfBoundsException();
+            }
+            if (len == 0) {
+                return 0;
+            }
+            while (remaining > 0) {
+                if (in == null) {
+                    in = references[current].streamInput();
+                }
+                int n = in.read(b, off, len);
+                if (n > 0) {
+                    remaining -= n;
+                    return n;
+                }
+                next();
+            }
+            return -1;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = 0L;
+            while (skipped < n && remaining > 0) {
+                if (in == null) {
+                    in = references[current].streamInput();
+                }
+                long s = in.skip(n - skipped);
+                if (s > 0) {
+                    skipped += s;
+                    remaining -= (int) s;
+                } else {
+                    next();
+                }
+            }
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return remaining;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (in != null) {
+                in.close();
+            }
+        }
+
+        private void next() throws IOException {
+            if (in != null) {
+                in.close();
+                in = null;
+            }
+            current++;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package org.xbib.content.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * A {@link BytesReference} over the uncompressed bytes of content written by {@link CompressedStreamOutput}.
+ *
+ * The block index is read from the end of the compressed content, so random access by {@link #get(int)}
+ * or {@link #slice(int, int)} decompresses only the blocks which contain the requested bytes. The most
+ * recently decompressed block is cached. {@link #streamInput()} decompresses the blocks one at a time
+ * while they are read. The uncompressed length is limited to {@link Integer#MAX_VALUE} bytes.
+ *
+ * Instances are safe for use by multiple threads.
+ */
+public class CompressedBytesReference implements BytesReference {
+
+    private final BytesReference compressed;
+
+    private final int blockSize;
+
+    private final long[] offsets;
+
+    private final int length;
+
+    private volatile Block cached;
+
+    /**
+     * Create a reference over compressed content.
+     * @param compressed the compressed content
+     * @throws IllegalArgumentException if the content is not complete compressed content
+     */
+    public CompressedBytesReference(BytesReference compressed) {
+        if (!isCompressed(compressed)) {
+            throw new IllegalArgumentException("not compressed content");
+        }
+        int n = compressed.length();
+        int footer = n - CompressedStreamOutput.FOOTER_LENGTH;
+        for (int i = 0; i < CompressedStreamOutput.MAGIC.length; i++) {
+            if (compressed.get(n - CompressedStreamOutput.MAGIC.length + i) != CompressedStreamOutput.MAGIC[i]) {
+                throw new IllegalArgumentException("compressed content without trailer");
+            }
+        }
+        this.compressed = compressed;
+        this.blockSize = readInt(compressed, CompressedStreamOutput.MAGIC.length);
+        int blockCount = readInt(compressed, footer);
+        long uncompressedLength = readLong(compressed, footer + 4);
+        if (uncompressedLength > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("uncompressed length " + uncompressedLength + " larger than " +
+                    Integer.MAX_VALUE);
+        }
+        this.length = (int) uncompressedLength;
+        this.offsets = new long[blockCount];
+        int index = footer - blockCount * 8;
+        for (int i = 0; i < blockCount; i++) {
+            offsets[i] = readLong(compressed, index + i * 8);
+        }
+    }
+
+    /**
+     * Check if bytes start with the header of compressed content.
+     * @param bytes the bytes
+     * @return true if the bytes start with compressed content
+     */
+    public static boolean isCompressed(BytesReference bytes) {
+        if (bytes.length() < CompressedStreamOutput.HEADER_LENGTH + CompressedStreamOutput.FOOTER_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < CompressedStreamOutput.MAGIC.length; i++) {
+            if (bytes.get(i) != CompressedStreamOutput.MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return the number of compressed blocks.
+     * @return the number of blocks
+     */
+    public int blockCount() {
+        return offsets.length;
+    }
+
+    /**
+     * Return the size of a block before compression. All blocks but the last have this size.
+     * @return the block size
+     */
+    public int blockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Return the compressed content.
+     * @return the compressed content
+     */
+    public BytesReference compressed() {
+        return compressed;
+    }
+
+    @Override
+    public byte get(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index " + index + " length " + length);
+        }
+        return block(index / blockSize)[index % blockSize];
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public int indexOf(byte b, int offset, int len) {
+        if (offset < 0 || len < 0 || offset + len > length) {
+            throw new IndexOutOfBoundsException("indexOf [" + offset + "," + (offset + len) + "] length " + length);
+        }
+        int pos = offset;
+        int end = offset + len;
+        while (pos < end) {
+            byte[] block = block(pos / blockSize);
+            int start = pos % blockSize;
+            int stop = Math.min(block.length, start + end - pos);
+            for (int i = start; i < stop; i++) {
+                if (block[i] == b) {
+                    return pos + i - start;
+                }
+            }
+            pos += stop - start;
+        }
+        return -1;
+    }
+
+    /**
+     * Return a slice of the uncompressed bytes. Only the blocks containing the slice are decompressed,
+     * and the slice is copied out of them.
+     * @param from the start of the slice
+     * @param length the length of the slice
+     * @return the slice
+     */
+    @Override
+    public BytesReference slice(int from, int length) {
+        if (from < 0 || length < 0 || from + length > this.length) {
+            throw new IndexOutOfBoundsException("slice [" + from + "," + (from + length) + "] length " + this.length);
+        }
+        return new BytesArray(copy(from, length));
+    }
+
+    @Override
+    public byte[] toBytes() {
+        return copy(0, length);
+    }
+
+    @Override
+    public String toUtf8() {
+        return new String(toBytes(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public InputStream streamInput() {
+        try {
+            return new CompressedStreamInput(compressed.streamInput());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void streamOutput(OutputStream outputStream) throws IOException {
+        for (int i = 0; i < offsets.length; i++) {
+            byte[] block = block(i);
+            outputStream.write(block, 0, block.length);
+        }
+    }
+
+    private byte[] copy(int from, int len) {
+        byte[] b = new byte[len];
+        int pos = from;
+        int end = from + len;
+        while (pos < end) {
+            byte[] block = block(pos / blockSize);
+            int start = pos % blockSize;
+            int n = Math.min(block.length - start, end - pos);
+            System.arraycopy(block, start, b, pos - from, n);
+            pos += n;
+        }
+        return b;
+    }
+
+    private byte[] block(int i) {
+        Block block = cached;
+        if (block != null && block.index == i) {
+            return block.bytes;
+        }
+        byte[] bytes = decompress(i);
+        cached = new Block(i, bytes);
+        return bytes;
+    }
+
+    private byte[] decompress(int i) {
+        int offset = (int) offsets[i];
+        int compressedLength = readInt(compressed, offset);
+        int uncompressedLength = readInt(compressed, offset + 4);
+        byte[] bytes = new byte[uncompressedLength];
+        Inflater inflater = new Inflater();
+        try {
+            int n = 0;
+            for (ByteBuffer buffer : compressed.slice(offset + 8, compressedLength).toByteBuffers()) {
+                if (n == uncompressedLength || inflater.finished()) {
+                    break;
+                }
+                inflater.setInput(buffer);
+                while (n < uncompressedLength && !inflater.finished()) {
+                    int k = inflater.inflate(bytes, n, uncompressedLength - n);
+                    if (k == 0) {
+                        break;
+                    }
+                    n += k;
+                }
+            }
+            if (n != uncompressedLength) {
+                throw new IllegalStateException("corrupt block " + i + ", expected " + uncompressedLength +
+                        " bytes but got " + n);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("corrupt block " + i, e);
+        } finally {
+            inflater.end();
+        }
+        return bytes;
+    }
+
+    private static int readInt(BytesReference bytes, int offset) {
+        return ((bytes.get(offset) & 0xff) << 24) | ((bytes.get(offset + 1) & 0xff) << 16) |
+                ((bytes.get(offset + 2) & 0xff) << 8) | (bytes.get(offset + 3) & 0xff);
+    }
+
+    private static long readLong(BytesReference bytes, int offset) {
+        return ((long) readInt(bytes, offset) << 32) | (readInt(bytes, offset + 4) & 0xFFFFFFFFL);
+    }
+
+    private static final class Block {
+
+        private final int index;
+
+        private final byte[] bytes;
+
+        Block(int index, byte[] bytes) {
+            this.index = index;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package org.xbib.content.io;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * An input stream over content written by {@link CompressedStreamOutput}. Blocks are read and
+ * decompressed one at a time, when the bytes of the previous block have been consumed.
+ */
+public class CompressedStreamInput extends InputStream {
+
+    private final DataInputStream in;
+
+    private final Inflater inflater;
+
+    private final int blockSize;
+
+    private byte[] compressed;
+
+    private final byte[] block;
+
+    private int pos;
+
+    private int limit;
+
+    private boolean eof;
+
+    /**
+     * Create a decompressing input stream.
+     * @param in the underlying input stream, positioned at the header of the compressed content
+     * @throws IOException if the header can not be read or is not the header of compressed content
+     */
+    public CompressedStreamInput(InputStream in) throws IOException {
+        this.in = new DataInputStream(in);
+        byte[] magic = new byte[CompressedStreamOutput.MAGIC.length];
+        this.in.readFully(magic);
+        if (!isMagic(magic, 0)) {
+            throw new IOException("not compressed content");
+        }
+        this.blockSize = this.in.readInt();
+        if (blockSize <= 0) {
+            throw new IOException("invalid block size " + blockSize);
+        }
+        this.inflater = new Inflater();
+        this.compressed = new byte[0];
+        this.block = new byte[blockSize];
+    }
+
+    /**
+     * Check if an input stream starts with the header of compressed content. The stream must support
+     * mark and reset, and is reset to its current position.
+     * @param in the input stream
+     * @return true if the stream starts with compressed content
+     * @throws IOException if the stream can not be read
+     */
+    public static boolean isCompressed(InputStream in) throws IOException {
+        byte[] b = new byte[CompressedStreamOutput.MAGIC.length];
+        in.mark(b.length);
+        try {
+            int n = in.readNBytes(b, 0, b.length);
+            return n == b.length && isMagic(b, 0);
+        } finally {
+            in.reset();
+        }
+    }
+
+    static boolean isMagic(byte[] b, int offset) {
+        for (int i = 0; i < CompressedStreamOutput.MAGIC.length; i++) {
+            if (b[offset + i] != CompressedStreamOutput.MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (pos == limit && !nextBlock()) {
+            return -1;
+        }
+        return block[pos++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (pos == limit && !nextBlock()) {
+            return -1;
+        }
+        int n = Math.min(len, limit - pos);
+        System.arraycopy(block, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return limit - pos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        in.close();
+    }
+
+    private boolean nextBlock() throws IOException {
+        if (eof) {
+            return false;
+        }
+        int compressedLength = in.readInt();
+        if (compressedLength < 0) {
+            // the end of the blocks, the index and the footer are not needed for reading the stream
+            eof = true;
+            return false;
+        }
+        int length = in.readInt();
+        if (length <= 0 || length > blockSize) {
+            throw new IOException("invalid block length " + length);
+        }
+        if (compressed.length < compressedLength) {
+            compressed = new byte[compressedLength];
+        }
+        in.readFully(compressed, 0, compressedLength);
+        inflater.reset();
+        inflater.setInput(compressed, 0, compressedLength);
+        try {
+            int n = 0;
+            while (n < length && !inflater.finished()) {
+                int k = inflater.inflate(block, n, length - n);
+                if (k == 0) {
+                    break;
+                }
+                n += k;
+            }
+            if (n != length) {
+                throw new IOException("corrupt block, expected " + length + " bytes but got " + n);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("corrupt block", e);
+        }
+        pos = 0;
+        limit = length;
+        return true;
+    }
+}
@@ -0,0 +1,178 @@
+package org.xbib.content.io;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * An output stream which compresses the bytes written through it into independently compressed blocks.
+ *
+ * The output starts with a header of the {@link #MAGIC magic bytes} and the block size. Each block is
+ * written as its compressed length, its uncompressed length, and the bytes compressed by {@link Deflater}.
+ * A compressed length of -1 ends the blocks, followed by an index with the offset of each block, and a
+ * footer with the number of blocks, the uncompressed length, and the magic bytes again. Readers can stream
+ * the blocks one after the other by {@link CompressedStreamInput}, or read the index from the end and
+ * decompress single blocks by {@link CompressedBytesReference}.
+ *
+ * The trailer is written by {@link #finish()} or {@link #close()}, output without a trailer can not be read.
+ */
+public class CompressedStreamOutput extends OutputStream {
+
+    /**
+     * The magic bytes at the start and at the end of compressed content.
+     */
+    static final byte[] MAGIC = { (byte) 0xB1, 'X', 'C', 'Z' };
+
+    /**
+     * The length of the header, the magic bytes and the block size.
+     */
+    static final int HEADER_LENGTH = 8;
+
+    /**
+     * The length of the footer, the block count, the uncompressed length, and the magic bytes.
+     */
+    static final int FOOTER_LENGTH = 16;
+
+    /**
+     * The default size of a block before compression, 64 KB.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+    private final DataOutputStream out;
+
+    private final Deflater deflater;
+
+    private final byte[] block;
+
+    private byte[] compressed;
+
+    private int count;
+
+    private long[] offsets;
+
+    private int blockCount;
+
+    private long position;
+
+    private long length;
+
+    private boolean finished;
+
+    /**
+     * Create a compressing output stream with the default block size and compression level.
+     * @param out the underlying output stream
+     * @throws IOException if the header can not be written
+     */
+    public CompressedStreamOutput(OutputStream out) throws IOException {
+        this(out, DEFAULT_BLOCK_SIZE, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Create a compressing output stream.
+     * @param out the underlying output stream
+     * @param blockSize the size of a block before compression
+     * @param level the compression level of {@link Deflater}
+     * @throws IOException if the header can not be written
+     */
+    public CompressedStreamOutput(OutputStream out, int blockSize, int level) throws IOException {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("invalid block size " + blockSize);
+        }
+        this.out = new DataOutputStream(out);
+        this.deflater = new Deflater(level);
+        this.block = new byte[blockSize];
+        this.compressed = new byte[blockSize + (blockSize >> 3) + 64];
+        this.offsets = new long[16];
+        this.out.write(MAGIC);
+        this.out.writeInt(blockSize);
+        this.position = HEADER_LENGTH;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == block.length) {
+            writeBlock();
+        }
+        block[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        int pos = off;
+        int end = off + len;
+        while (pos < end) {
+            if (count == block.length) {
+                writeBlock();
+            }
+            int n = Math.min(block.length - count, end - pos);
+            System.arraycopy(b, pos, block, count, n);
+            count += n;
+            pos += n;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Write the last block and the trailer, without closing the underlying output stream.
+     * @throws IOException if the output can not be written
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        if (count > 0) {
+            writeBlock();
+        }
+        out.writeInt(-1);
+        for (int i = 0; i < blockCount; i++) {
+            out.writeLong(offsets[i]);
+        }
+        out.writeInt(blockCount);
+        out.writeLong(length);
+        out.write(MAGIC);
+        out.flush();
+        deflater.end();
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (finished) {
+            throw new IOException("stream finished");
+        }
+        deflater.reset();
+        deflater.setInput(block, 0, count);
+        deflater.finish();
+        int n = 0;
+        while (!deflater.finished()) {
+            if (n == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length << 1);
+            }
+            n += deflater.deflate(compressed, n, compressed.length - n);
+        }
+        if (blockCount == offsets.length) {
+            offsets = Arrays.copyOf(offsets, blockCount << 1);
+        }
+        offsets[blockCount++] = position;
+        out.writeInt(n);
+        out.writeInt(count);
+        out.write(compressed, 0, n);
+        position += 8 + n;
+        length += count;
+        count = 0;
+    }
+}
@@ -0,0 +1,100 @@
+package org.xbib.content.io;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.Checksum;
+
+/**
+ * An output stream which hashes the bytes written through it, with a {@link XxHash64} and optionally
+ * a SHA-256 digest, so content can be hashed while it is generated instead of in a second pass.
+ */
+public class HashingOutputStream extends FilterOutputStream {
+
+    private final Checksum checksum;
+
+    private final MessageDigest digest;
+
+    /**
+     * Create a hashing output stream without SHA-256 digest.
+     * @param out the underlying output stream
+     */
+    public HashingOutputStream(OutputStream out) {
+        this(out, false);
+    }
+
+    /**
+     * Create a hashing output stream.
+     * @param out the underlying output stream
+     * @param sha256 true if a SHA-256 digest should be computed
+     */
+    public HashingOutputStream(OutputStream out, boolean sha256) {
+        super(out);
+        this.checksum = new XxHash64();
+        try {
+            this.digest = sha256 ? MessageDigest.getInstance("SHA-256") : null;
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Return the underlying output stream.
+     * @return the output stream
+     */
+    public OutputStream getOutputStream() {
+        return out;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        checksum.update(b);
+        if (digest != null) {
+            digest.update((byte) b);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        checksum.update(b, off, len);
+        if (digest != null) {
+            digest.update(b, off, len);
+        }
+    }
+
+    /**
+     * Return the 64-bit xxHash of the bytes written so far.
+     * @return the hash
+     */
+    public long hash() {
+        return checksum.getValue();
+    }
+
+    /**
+     * Return the SHA-256 digest of the bytes written since the last call of this method or {@link #reset()}.
+     * Computing the digest resets it.
+     * @return the digest
+     * @throws IllegalStateException if no digest is computed by this stream
+     */
+    public byte[] digest() {
+        if (digest == null) {
+            throw new IllegalStateException("no digest computed");
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Reset the hash and the digest, for example when the underlying stream is reset.
+     */
+    public void reset() {
+        checksum.reset();
+        if (digest != null) {
+            digest.reset();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.xbib.content.io;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link BytesReference} over a memory-mapped file region. The region is mapped read-only
+ * in chunks, and the chunks are chained as a {@link CompositeBytesReference}, so the file content
+ * is paged in by the operating system and never copied to the heap as a whole.
+ *
+ * A {@link BytesReference} is limited to {@link Integer#MAX_VALUE} bytes. Larger files are mapped
+ * by {@link #mapRegions(FileChannel, long, long, int)} into a list of consecutive references.
+ *
+ * The mapping stays valid after the channel is closed, and is released by the garbage collector
+ * when the reference is no longer reachable.
+ */
+public class MappedBytesReference extends CompositeBytesReference {
+
+    /**
+     * The default size of a mapped chunk, 256 MB.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 256 * 1024 * 1024;
+
+    private MappedBytesReference(List<BytesReference> chunks) {
+        super(chunks);
+    }
+
+    /**
+     * Map a file, which must not be larger than {@link Integer#MAX_VALUE} bytes.
+     * @param path the file path
+     * @return the mapped bytes reference
+     * @throws IOException if the file can not be mapped
+     */
+    public static MappedBytesReference map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return map(channel, 0L, channel.size(), DEFAULT_CHUNK_SIZE);
+        }
+    }
+
+    /**
+     * Map a file region, which must not be larger than {@link Integer#MAX_VALUE} bytes.
+     * @param channel the file channel
+     * @param position the position of the region in the file
+     * @param size the size of the region
+     * @param chunkSize the size of a mapped chunk
+     * @return the mapped bytes reference
+     * @throws IOException if the region can not be mapped
+     */
+    public static MappedBytesReference map(FileChannel channel, long position, long size, int chunkSize)
+            throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("region of size " + size + " larger than " + Integer.MAX_VALUE +
+                    ", use mapRegions()");
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("invalid chunk size " + chunkSize);
+        }
+        List<BytesReference> chunks = new ArrayList<>();
+        long pos = position;
+        long end = position + size;
+        while (pos < end) {
+            long n = Math.min(chunkSize, end - pos);
+            chunks.add(new ByteBufferBytesReference(channel.map(FileChannel.MapMode.READ_ONLY, pos, n)));
+            pos += n;
+        }
+        return new MappedBytesReference(chunks);
+    }
+
+    /**
+     * Map a file region of any size into consecutive references of at most {@code regionSize} bytes.
+     * @param channel the file channel
+     * @param position the position of the region in the file
+     * @param size the size of the region
+     * @param regionSize the maximum size of each returned reference
+     * @return the list of mapped bytes references
+     * @throws IOException if the region can not be mapped
+     */
+    public static List<MappedBytesReference> mapRegions(FileChannel channel, long position, long size, int regionSize)
+            throws IOException {
+        if (regionSize <= 0) {
+            throw new IllegalArgumentException("invalid region size " + regionSize);
+        }
+        List<MappedBytesReference> list = new ArrayList<>();
+        long pos = position;
+        long end = position + size;
+        while (pos < end) {
+            long n = Math.min(regionSize, end - pos);
+            list.add(map(channel, pos, n, Math.min(regionSize, DEFAULT_CHUNK_SIZE)));
+            pos += n;
+        }
+        return list;
+    }
+}
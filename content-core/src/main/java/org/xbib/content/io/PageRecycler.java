@@ -0,0 +1,91 @@
+package org.xbib.content.io;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A bounded, thread-safe pool of fixed-size byte pages.
+ *
+ * Pages are handed out by {@link #obtain()} and given back by {@link #release(byte[])}.
+ * If the pool is empty, a fresh page is allocated. If the pool is full, released pages
+ * are dropped and left to the garbage collector, so the retained memory never exceeds
+ * {@code pageSize * maxPages} bytes.
+ */
+public final class PageRecycler {
+
+    /**
+     * The default page size, 16 KB.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 16 * 1024;
+
+    /**
+     * The default number of pages kept in the pool, 1024 pages (16 MB with default page size).
+     */
+    public static final int DEFAULT_MAX_PAGES = 1024;
+
+    private static final PageRecycler DEFAULT = new PageRecycler(DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES);
+
+    private final int pageSize;
+
+    private final BlockingQueue<byte[]> pages;
+
+    /**
+     * Create a new page recycler.
+     * @param pageSize the size of a page in bytes
+     * @param maxPages the maximum number of pages kept in the pool
+     */
+    public PageRecycler(int pageSize, int maxPages) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("invalid page size " + pageSize);
+        }
+        if (maxPages <= 0) {
+            throw new IllegalArgumentException("invalid maximum number of pages " + maxPages);
+        }
+        this.pageSize = pageSize;
+        this.pages = new ArrayBlockingQueue<>(maxPages);
+    }
+
+    /**
+     * Return the shared default page recycler.
+     * @return the default page recycler
+     */
+    public static PageRecycler getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Return the page size.
+     * @return the page size in bytes
+     */
+    public int pageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Return the number of pages currently available in the pool.
+     * @return the number of pooled pages
+     */
+    public int available() {
+        return pages.size();
+    }
+
+    /**
+     * Obtain a page from the pool, or allocate a new one if the pool is empty.
+     * The content of a recycled page is undefined.
+     * @return a page
+     */
+    public byte[] obtain() {
+        byte[] page = pages.poll();
+        return page != null ? page : new byte[pageSize];
+    }
+
+    /**
+     * Give a page back to the pool. Pages of a foreign size are ignored.
+     * @param page the page
+     */
+    public void release(byte[] page) {
+        if (page != null && page.length == pageSize) {
+            pages.offer(page);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package org.xbib.content.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A {@link BytesReference} over a sequence of fixed-size pages, as written by
+ * a {@link PagedBytesStreamOutput}. The pages are not copied or flattened.
+ */
+public class PagedBytesReference implements BytesReference {
+
+    private static final String EMPTY_STRING = "";
+
+    private final byte[][] pages;
+
+    private final int pageSize;
+
+    private final int offset;
+
+    private final int length;
+
+    /**
+     * Create a {@link PagedBytesReference} over pages.
+     * @param pages the pages, all of them of {@code pageSize} length
+     * @param pageSize the page size
+     * @param offset the offset into the first page
+     * @param length the length
+     */
+    public PagedBytesReference(byte[][] pages, int pageSize, int offset, int length) {
+        this.pages = pages;
+        this.pageSize = pageSize;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public byte get(int index) {
+        int pos = offset + index;
+        return pages[pos / pageSize][pos % pageSize];
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public int indexOf(byte b, int from, int len) {
+        if (from < 0 || len < 0 || (from + len) > length) {
+            throw new IllegalArgumentException("can't search a buffer with length [" + length +
+                    "], with parameters from [" + from + "], length [" + len + "]");
+        }
+        int pos = offset + from;
+        int end = pos + len;
+        while (pos < end) {
+            byte[] page = pages[pos / pageSize];
+            int start = pos % pageSize;
+            int stop = Math.min(pageSize, start + end - pos);
+            for (int i = start; i < stop; i++) {
+                if (page[i] == b) {
+                    return pos + (i - start) - offset;
+                }
+            }
+            pos += stop - start;
+        }
+        return -1;
+    }
+
+    @Override
+    public BytesReference slice(int from, int length) {
+        if (from < 0 || length < 0 || (from + length) > this.length) {
+            throw new IllegalArgumentException("can't slice a buffer with length [" + this.length +
+                    "], with slice parameters from [" + from + "], length [" + length + "]");
+        }
+        int pos = offset + from;
+        int start = pos % pageSize;
+        if (start + length <= pageSize) {
+            return new BytesArray(pages[pos / pageSize], start, length);
+        }
+        return new PagedBytesReference(pages, pageSize, pos, length);
+    }
+
+    @Override
+    public byte[] toBytes() {
+        byte[] b = new byte[length];
+        int pos = offset;
+        int copied = 0;
+        while (copied < length) {
+            int start = pos % pageSize;
+            int n = Math.min(pageSize - start, length - copied);
+            System.arraycopy(pages[pos / pageSize], start, b, copied, n);
+            copied += n;
+            pos += n;
+        }
+        return b;
+    }
+
+    @Override
+    public String toUtf8() {
+        if (length == 0) {
+            return EMPTY_STRING;
+        }
+        return new String(toBytes(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public InputStream streamInput() {
+        return new PagedStreamInput();
+    }
+
+    @Override
+    public void streamOutput(OutputStream os) throws IOException {
+        int pos = offset;
+        int written = 0;
+        while (written < length) {
+            int start = pos % pageSize;
+            int n = Math.min(pageSize - start, length - written);
+            os.write(pages[pos / pageSize], start, n);
+            written += n;
+            pos += n;
+        }
+    }
+
+    @Override
+    public ByteBuffer[] toByteBuffers() {
+        if (length == 0) {
+            return new ByteBuffer[0];
+        }
+        int first = offset / pageSize;
+        int last = (offset + length - 1) / pageSize;
+        ByteBuffer[] buffers = new ByteBuffer[last - first + 1];
+        int pos = offset;
+        int remaining = length;
+        for (int i = 0; i < buffers.length; i++) {
+            int start = pos % pageSize;
+            int n = Math.min(pageSize - start, remaining);
+            buffers[i] = ByteBuffer.wrap(pages[first + i], start, n);
+            pos += n;
+            remaining -= n;
+        }
+        return buffers;
+    }
+
+    private class PagedStreamInput extends InputStream {
+
+        private int pos;
+
+        private int mark;
+
+        @Override
+        public int read() {
+            return pos < length ? get(pos++) & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (off < 0 || len < 0 || len > b.length - off) {
+                throw new IndexOutOfBoundsException();
+            }
+            if (pos >= length) {
+                return -1;
+            }
+            int n = Math.min(len, length - pos);
+            int copied = 0;
+            while (copied < n) {
+                int p = offset + pos;
+                int start = p % pageSize;
+                int chunk = Math.min(pageSize - start, n - copied);
+                System.arraycopy(pages[p / pageSize], start, b, off + copied, chunk);
+                copied += chunk;
+                pos += chunk;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            if (n <= 0) {
+                return 0;
+            }
+            int skipped = (int) Math.min(n, length - pos);
+            pos += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return length - pos;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {
+            mark = pos;
+        }
+
+        @Override
+        public synchronized void reset() {
+            pos = mark;
+        }
+    }
+}
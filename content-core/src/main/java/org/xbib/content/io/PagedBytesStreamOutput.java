@@ -0,0 +1,198 @@
+package org.xbib.content.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * A stream of bytes written into fixed-size pages obtained from a {@link PageRecycler}.
+ *
+ * Growing the stream adds pages instead of copying a contiguous buffer, and {@link #bytes()}
+ * exposes the pages as a {@link BytesReference} without flattening them. Closing the stream
+ * returns all pages to the recycler, so references obtained by {@link #bytes()} must not be used
+ * after {@link #close()}. Generators close their target when they are closed, so hand them the
+ * {@link #nonClosingView()} of this stream.
+ */
+public class PagedBytesStreamOutput extends BytesStreamOutput {
+
+    private static final int INITIAL_PAGES = 8;
+
+    private final PageRecycler recycler;
+
+    private final int pageSize;
+
+    private byte[][] pages;
+
+    private int pageCount;
+
+    private int count;
+
+    /**
+     * Create a new {@code PagedBytesStreamOutput} with the default page recycler.
+     */
+    public PagedBytesStreamOutput() {
+        this(PageRecycler.getDefault());
+    }
+
+    /**
+     * Create a new {@code PagedBytesStreamOutput} with the given page recycler.
+     * @param recycler the page recycler
+     */
+    public PagedBytesStreamOutput(PageRecycler recycler) {
+        super(0);
+        this.recycler = recycler;
+        this.pageSize = recycler.pageSize();
+        this.pages = new byte[INITIAL_PAGES][];
+    }
+
+    @Override
+    public long position() {
+        return count;
+    }
+
+    @Override
+    public void seek(long position) {
+        if (position > Integer.MAX_VALUE) {
+            throw new UnsupportedOperationException();
+        }
+        seek((int) position);
+    }
+
+    @Override
+    public void seek(int pos) {
+        ensureCapacity(pos);
+        count = pos;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == pageCount * pageSize) {
+            addPage();
+        }
+        pages[count / pageSize][count % pageSize] = (byte) b;
+        count++;
+    }
+
+    @Override
+    public void write(byte[] b, int offset, int length) throws IOException {
+        if (length == 0) {
+            return;
+        }
+        if ((long) count + length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("overflow, stream output larger than " + Integer.MAX_VALUE);
+        }
+        ensureCapacity(count + length);
+        int written = 0;
+        while (written < length) {
+            int start = count % pageSize;
+            int n = Math.min(pageSize - start, length - written);
+            System.arraycopy(b, offset + written, pages[count / pageSize], start, n);
+            written += n;
+            count += n;
+        }
+    }
+
+    @Override
+    public void skip(int length) {
+        ensureCapacity(count + length);
+        count += length;
+    }
+
+    @Override
+    public void reset() {
+        count = 0;
+    }
+
+    @Override
+    public void flush() {
+        // nothing to do there
+    }
+
+    /**
+     * Return all pages to the page recycler. The stream can be written to again afterwards.
+     */
+    @Override
+    public void close() {
+        for (int i = 0; i < pageCount; i++) {
+            recycler.release(pages[i]);
+            pages[i] = null;
+        }
+        pageCount = 0;
+        count = 0;
+    }
+
+    /**
+     * Return a {@link BytesReference} to the pages of this output stream. A single page
+     * is returned as {@link BytesArray}, more pages as {@link PagedBytesReference}.
+     * @return the bytes reference
+     */
+    @Override
+    public BytesReference bytes() {
+        if (count <= pageSize) {
+            return pageCount == 0 ? new BytesArray(new byte[0]) : new BytesArray(pages[0], 0, count);
+        }
+        return new PagedBytesReference(pages, pageSize, 0, count);
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public int capacity() {
+        return pageCount * pageSize;
+    }
+
+    /**
+     * Return the number of pages held by this stream.
+     * @return the number of pages
+     */
+    public int pageCount() {
+        return pageCount;
+    }
+
+    /**
+     * Return a view of this stream that ignores {@code close()}. Writes go to this stream.
+     * @return the non-closing view
+     */
+    public OutputStream nonClosingView() {
+        return new NonClosingOutputStream();
+    }
+
+    private void ensureCapacity(int capacity) {
+        while (capacity > pageCount * pageSize) {
+            addPage();
+        }
+    }
+
+    private void addPage() {
+        if (pageCount == pages.length) {
+            pages = Arrays.copyOf(pages, pages.length << 1);
+        }
+        pages[pageCount++] = recycler.obtain();
+    }
+
+    private class NonClosingOutputStream extends OutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            PagedBytesStreamOutput.this.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int offset, int length) throws IOException {
+            PagedBytesStreamOutput.this.write(b, offset, length);
+        }
+
+        @Override
+        public void flush() {
+            // nothing to do there
+        }
+
+        @Override
+        public void close() {
+            // the pages are released by closing the paged stream itself
+        }
+    }
+}
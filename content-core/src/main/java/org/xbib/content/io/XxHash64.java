@@ -0,0 +1,159 @@
+package org.xbib.content.io;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.zip.Checksum;
+
+/**
+ * A streaming implementation of the 64-bit xxHash, a fast non-cryptographic hash function.
+ *
+ * Bytes can be passed in any chunks, the hash of the bytes does not depend on how they were split.
+ * Instances are not thread-safe.
+ */
+public final class XxHash64 implements Checksum {
+
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final long seed;
+
+    private final byte[] buffer;
+
+    private int buffered;
+
+    private long total;
+
+    private long v1;
+
+    private long v2;
+
+    private long v3;
+
+    private long v4;
+
+    /**
+     * Create a hash with seed 0.
+     */
+    public XxHash64() {
+        this(0L);
+    }
+
+    /**
+     * Create a hash.
+     * @param seed the seed
+     */
+    public XxHash64(long seed) {
+        this.seed = seed;
+        this.buffer = new byte[32];
+        reset();
+    }
+
+    @Override
+    public void update(int b) {
+        buffer[buffered++] = (byte) b;
+        total++;
+        if (buffered == 32) {
+            stripe(buffer, 0);
+            buffered = 0;
+        }
+    }
+
+    @Override
+    public void update(byte[] b, int off, int len) {
+        total += len;
+        int pos = off;
+        int end = off + len;
+        if (buffered > 0) {
+            int n = Math.min(32 - buffered, len);
+            System.arraycopy(b, pos, buffer, buffered, n);
+            buffered += n;
+            pos += n;
+            if (buffered < 32) {
+                return;
+            }
+            stripe(buffer, 0);
+            buffered = 0;
+        }
+        while (end - pos >= 32) {
+            stripe(b, pos);
+            pos += 32;
+        }
+        if (pos < end) {
+            System.arraycopy(b, pos, buffer, 0, end - pos);
+            buffered = end - pos;
+        }
+    }
+
+    @Override
+    public long getValue() {
+        long h;
+        if (total >= 32) {
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h = merge(h, v1);
+            h = merge(h, v2);
+            h = merge(h, v3);
+            h = merge(h, v4);
+        } else {
+            h = seed + PRIME5;
+        }
+        h += total;
+        int pos = 0;
+        while (buffered - pos >= 8) {
+            h ^= round(0L, (long) LONG.get(buffer, pos));
+            h = Long.rotateLeft(h, 27) * PRIME1 + PRIME4;
+            pos += 8;
+        }
+        if (buffered - pos >= 4) {
+            h ^= ((int) INT.get(buffer, pos) & 0xFFFFFFFFL) * PRIME1;
+            h = Long.rotateLeft(h, 23) * PRIME2 + PRIME3;
+            pos += 4;
+        }
+        while (pos < buffered) {
+            h ^= (buffer[pos++] & 0xFFL) * PRIME5;
+            h = Long.rotateLeft(h, 11) * PRIME1;
+        }
+        h ^= h >>> 33;
+        h *= PRIME2;
+        h ^= h >>> 29;
+        h *= PRIME3;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    @Override
+    public void reset() {
+        v1 = seed + PRIME1 + PRIME2;
+        v2 = seed + PRIME2;
+        v3 = seed;
+        v4 = seed - PRIME1;
+        buffered = 0;
+        total = 0L;
+    }
+
+    private void stripe(byte[] b, int off) {
+        v1 = round(v1, (long) LONG.get(b, off));
+        v2 = round(v2, (long) LONG.get(b, off + 8));
+        v3 = round(v3, (long) LONG.get(b, off + 16));
+        v4 = round(v4, (long) LONG.get(b, off + 24));
+    }
+
+    private static long round(long acc, long input) {
+        return Long.rotateLeft(acc + input * PRIME2, 31) * PRIME1;
+    }
+
+    private static long merge(long h, long v) {
+        return (h ^ round(0L, v)) * PRIME1 + PRIME4;
+    }
+}
@@ -0,0 +1,97 @@
+package org.xbib.content.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.xbib.content.core.ArrayMap;
+import org.xbib.content.core.FrozenMap;
+import org.xbib.content.core.OpenHashMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class CompactMapTest {
+
+    @Test
+    public void testArrayMap() {
+        randomOperations(new ArrayMap(), 20);
+    }
+
+    @Test
+    public void testOpenHashMap() {
+        randomOperations(new OpenHashMap(), 500);
+    }
+
+    @Test
+    public void testFrozenMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < 300; i++) {
+            map.put("key" + i, i % 7 == 0 ? null : i);
+            FrozenMap frozenMap = FrozenMap.of(map);
+            assertEquals(map, frozenMap);
+            assertEquals(new ArrayList<>(map.keySet()), new ArrayList<>(frozenMap.keySet()));
+            for (String key : map.keySet()) {
+                assertTrue(frozenMap.containsKey(key));
+            }
+            assertFalse(frozenMap.containsKey("key" + (i + 1)));
+        }
+        // equal hash codes
+        map.clear();
+        map.put("Aa", 1);
+        map.put("BB", 2);
+        map.put("AaAa", 3);
+        map.put("BBBB", 4);
+        map.put("AaBB", 5);
+        FrozenMap frozenMap = FrozenMap.of(map);
+        assertEquals(map, frozenMap);
+        assertEquals(5, frozenMap.get("AaBB"));
+        assertNull(frozenMap.get("BBAa"));
+        assertThrows(UnsupportedOperationException.class, () -> frozenMap.put("a", 1));
+        assertEquals(0, FrozenMap.of(new LinkedHashMap<>()).size());
+    }
+
+    private static void randomOperations(Map<String, Object> map, int keys) {
+        Map<String, Object> expected = new LinkedHashMap<>();
+        Random random = new Random(42L);
+        for (int i = 0; i < 20000; i++) {
+            String key = "k" + random.nextInt(keys);
+            int op = random.nextInt(10);
+            if (op < 6) {
+                Object value = random.nextInt(5) == 0 ? null : i;
+                assertEquals(expected.put(key, value), map.put(key, value));
+            } else if (op < 8) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else if (op < 9) {
+                assertEquals(expected.containsKey(key), map.containsKey(key));
+                assertEquals(expected.get(key), map.get(key));
+            } else {
+                Iterator<Map.Entry<String, Object>> it = map.entrySet().iterator();
+                Iterator<Map.Entry<String, Object>> expectedIt = expected.entrySet().iterator();
+                while (expectedIt.hasNext()) {
+                    Map.Entry<String, Object> entry = it.next();
+                    assertEquals(expectedIt.next(), entry);
+                    if (random.nextInt(50) == 0) {
+                        it.remove();
+                        expectedIt.remove();
+                    }
+                }
+                assertFalse(it.hasNext());
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        assertEquals(expected, map);
+        List<String> keyList = new ArrayList<>(map.keySet());
+        assertEquals(new ArrayList<>(expected.keySet()), keyList);
+        map.clear();
+        assertTrue(map.isEmpty());
+        map.put("a", 1);
+        assertEquals(Map.of("a", 1), map);
+    }
+}
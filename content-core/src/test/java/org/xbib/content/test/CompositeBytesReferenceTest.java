@@ -0,0 +1,47 @@
+package org.xbib.content.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.xbib.content.io.BytesArray;
+import org.xbib.content.io.BytesReference;
+import org.xbib.content.io.CompositeBytesReference;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+public class CompositeBytesReferenceTest {
+
+    @Test
+    public void testComposite() throws IOException {
+        BytesReference bytes = new CompositeBytesReference(new BytesArray("{\"a\":".getBytes(StandardCharsets.UTF_8)),
+                new BytesArray(new byte[0]),
+                new BytesArray("xx1,\"b\"".getBytes(StandardCharsets.UTF_8), 2, 5),
+                new BytesArray(":2}".getBytes(StandardCharsets.UTF_8)));
+        String s = "{\"a\":1,\"b\":2}";
+        assertEquals(s.length(), bytes.length());
+        assertEquals(s, bytes.toUtf8());
+        assertEquals('1', bytes.get(5));
+        assertEquals(s.indexOf(':', 6), bytes.indexOf((byte) ':', 6, s.length() - 6));
+        assertEquals(-1, bytes.indexOf((byte) 'x', 0, s.length()));
+        assertEquals(s.substring(3, 12), bytes.slice(3, 9).toUtf8());
+        assertEquals("\"b\"", bytes.slice(7, 3).toUtf8());
+        try (InputStream in = bytes.streamInput()) {
+            assertArrayEquals(s.getBytes(StandardCharsets.UTF_8), in.readAllBytes());
+        }
+        try (InputStream in = bytes.streamInput()) {
+            StringBuilder sb = new StringBuilder();
+            int c;
+            while ((c = in.read()) != -1) {
+                sb.append((char) c);
+            }
+            assertEquals(s, sb.toString());
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bytes.streamOutput(Channels.newChannel(out));
+        assertEquals(s, out.toString(StandardCharsets.UTF_8));
+    }
+}
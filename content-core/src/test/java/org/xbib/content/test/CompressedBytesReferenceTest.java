@@ -0,0 +1,138 @@
+package org.xbib.content.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.xbib.content.io.BytesArray;
+import org.xbib.content.io.BytesReference;
+import org.xbib.content.io.CompressedBytesReference;
+import org.xbib.content.io.CompressedStreamInput;
+import org.xbib.content.io.CompressedStreamOutput;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+public class CompressedBytesReferenceTest {
+
+    @Test
+    public void testRandomAccess() throws IOException {
+        byte[] b = content(10000);
+        BytesReference bytes = new CompressedBytesReference(compress(b, 1000));
+        assertEquals(b.length, bytes.length());
+        assertEquals(10, ((CompressedBytesReference) bytes).blockCount());
+        Random random = new Random(42L);
+        for (int i = 0; i < 1000; i++) {
+            int index = random.nextInt(b.length);
+            assertEquals(b[index], bytes.get(index));
+        }
+        assertArrayEquals(b, bytes.toBytes());
+        byte[] slice = new byte[2500];
+        System.arraycopy(b, 1900, slice, 0, slice.length);
+        assertArrayEquals(slice, bytes.slice(1900, 2500).toBytes());
+        assertEquals(new String(b, StandardCharsets.US_ASCII).indexOf('z', 4321),
+                bytes.indexOf((byte) 'z', 4321, b.length - 4321));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bytes.streamOutput(out);
+        assertArrayEquals(b, out.toByteArray());
+    }
+
+    @Test
+    public void testStream() throws IOException {
+        byte[] b = content(100000);
+        BytesReference compressed = compress(b, CompressedStreamOutput.DEFAULT_BLOCK_SIZE);
+        assertTrue(compressed.length() < b.length);
+        assertTrue(CompressedBytesReference.isCompressed(compressed));
+        assertFalse(CompressedBytesReference.isCompressed(new BytesArray(b)));
+        InputStream in = new BufferedInputStream(compressed.streamInput());
+        assertTrue(CompressedStreamInput.isCompressed(in));
+        try (InputStream input = new CompressedStreamInput(in)) {
+            assertArrayEquals(b, input.readAllBytes());
+        }
+        try (InputStream input = new CompressedBytesReference(compressed).streamInput()) {
+            assertArrayEquals(b, input.readAllBytes());
+        }
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        BytesReference bytes = new CompressedBytesReference(compress(new byte[0], 16));
+        assertEquals(0, bytes.length());
+        assertEquals(0, bytes.toBytes().length);
+    }
+
+    @Test
+    public void testTruncated() throws IOException {
+        BytesReference compressed = compress(content(1000), 100);
+        assertThrows(IllegalArgumentException.class,
+                () -> new CompressedBytesReference(compressed.slice(0, compressed.length() - 1)));
+    }
+
+    @Test
+    public void testIndexOfBounds() throws IOException {
+        BytesReference bytes = new CompressedBytesReference(compress(content(1000), 100));
+        assertEquals(-1, bytes.indexOf((byte) 'a', 1000, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> bytes.indexOf((byte) 'a', -1, 10));
+        assertThrows(IndexOutOfBoundsException.class, () -> bytes.indexOf((byte) 'a', 990, 11));
+        assertThrows(IndexOutOfBoundsException.class, () -> bytes.indexOf((byte) 'a', 10, -1));
+    }
+
+    @Test
+    public void testCorruptBlock() throws IOException {
+        // a single block with trailing garbage after the deflate stream, claiming one byte more than it holds
+        byte[] b = compress(content(100), 100).toBytes();
+        int header = 8;
+        int compressedLength = readInt(b, header);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(b, 0, header);
+        writeInt(out, compressedLength + 1);
+        writeInt(out, readInt(b, header + 4) + 1);
+        out.write(b, header + 8, compressedLength);
+        out.write(0);
+        out.write(b, header + 8 + compressedLength, b.length - header - 8 - compressedLength);
+        BytesReference bytes = new CompressedBytesReference(new BytesArray(out.toByteArray()));
+        assertThrows(IllegalStateException.class, () -> bytes.get(0));
+        assertThrows(IOException.class, () -> {
+            try (InputStream input = bytes.streamInput()) {
+                input.readAllBytes();
+            }
+        });
+    }
+
+    private static int readInt(byte[] b, int offset) {
+        return ((b[offset] & 0xff) << 24) | ((b[offset + 1] & 0xff) << 16) |
+                ((b[offset + 2] & 0xff) << 8) | (b[offset + 3] & 0xff);
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int v) {
+        out.write(v >>> 24);
+        out.write(v >>> 16);
+        out.write(v >>> 8);
+        out.write(v);
+    }
+
+    private static byte[] content(int length) {
+        Random random = new Random(length);
+        byte[] b = new byte[length];
+        for (int i = 0; i < length; i++) {
+            b[i] = (byte) ('a' + random.nextInt(26));
+        }
+        return b;
+    }
+
+    private static BytesReference compress(byte[] b, int blockSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CompressedStreamOutput output = new CompressedStreamOutput(out, blockSize, Deflater.BEST_SPEED)) {
+            output.write(b);
+        }
+        return new BytesArray(out.toByteArray());
+    }
+}
@@ -0,0 +1,60 @@
+package org.xbib.content.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.xbib.content.io.BytesArray;
+import org.xbib.content.io.BytesReference;
+import org.xbib.content.io.PageRecycler;
+import org.xbib.content.io.PagedBytesReference;
+import org.xbib.content.io.PagedBytesStreamOutput;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+public class PagedBytesStreamOutputTest {
+
+    @Test
+    public void testSinglePage() throws IOException {
+        PageRecycler recycler = new PageRecycler(16, 4);
+        try (PagedBytesStreamOutput output = new PagedBytesStreamOutput(recycler)) {
+            output.write(new byte[] { 1, 2, 3 }, 0, 3);
+            BytesReference bytes = output.bytes();
+            assertTrue(bytes instanceof BytesArray);
+            assertArrayEquals(new byte[] { 1, 2, 3 }, bytes.toBytes());
+        }
+        assertEquals(1, recycler.available());
+    }
+
+    @Test
+    public void testMultiplePages() throws IOException {
+        PageRecycler recycler = new PageRecycler(16, 8);
+        byte[] b = new byte[100];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = (byte) i;
+        }
+        try (PagedBytesStreamOutput output = new PagedBytesStreamOutput(recycler)) {
+            output.write(b, 0, 50);
+            for (int i = 50; i < b.length; i++) {
+                output.write(b[i]);
+            }
+            assertEquals(7, output.pageCount());
+            BytesReference bytes = output.bytes();
+            assertTrue(bytes instanceof PagedBytesReference);
+            assertEquals(100, bytes.length());
+            assertArrayEquals(b, bytes.toBytes());
+            assertEquals(42, bytes.get(42));
+            assertEquals(40, bytes.indexOf((byte) 40, 10, 50));
+            assertArrayEquals(new byte[] { 14, 15, 16, 17 }, bytes.slice(14, 4).toBytes());
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            bytes.streamOutput(out);
+            assertArrayEquals(b, out.toByteArray());
+            try (InputStream in = bytes.streamInput()) {
+                assertArrayEquals(b, in.readAllBytes());
+            }
+        }
+        assertEquals(7, recycler.available());
+    }
+}
@@ -0,0 +1,65 @@
+package org.xbib.content.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.xbib.content.core.TimestampEncoder;
+import org.xbib.content.core.TimestampFormat;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+public class TimestampEncoderTest {
+
+    @Test
+    public void testIsoInstant() {
+        Random random = new Random(42L);
+        long min = Instant.parse("0000-01-01T00:00:00Z").getEpochSecond();
+        long max = Instant.parse("9999-12-31T23:59:59Z").getEpochSecond();
+        for (int i = 0; i < 100000; i++) {
+            long seconds = min + (long) (random.nextDouble() * (max - min));
+            int nano;
+            switch (i % 4) {
+                case 0:
+                    nano = 0;
+                    break;
+                case 1:
+                    nano = random.nextInt(1000) * 1000000;
+                    break;
+                case 2:
+                    nano = random.nextInt(1000000) * 1000;
+                    break;
+                default:
+                    nano = random.nextInt(1000000000);
+                    break;
+            }
+            Instant instant = Instant.ofEpochSecond(seconds, nano);
+            assertEquals(DateTimeFormatter.ISO_INSTANT.format(instant), encode(TimestampFormat.ISO_INSTANT, instant));
+        }
+    }
+
+    @Test
+    public void testFormats() {
+        Instant instant = Instant.parse("2020-02-29T23:59:58.123456789Z");
+        assertEquals("2020-02-29T23:59:58.123Z", encode(TimestampFormat.ISO_MILLIS, instant));
+        assertEquals("2020-02-29T23:59:58.123456Z", encode(TimestampFormat.ISO_MICROS, instant));
+        assertEquals(Long.toString(instant.toEpochMilli()), encode(TimestampFormat.EPOCH_MILLIS, instant));
+        Instant before = Instant.parse("1969-12-31T23:59:59.999Z");
+        assertEquals("1969-12-31T23:59:59.999Z", encode(TimestampFormat.ISO_MILLIS, before));
+        assertEquals("-1", encode(TimestampFormat.EPOCH_MILLIS, before));
+        assertEquals("1970-01-01T00:00:00.000000Z", encode(TimestampFormat.ISO_MICROS, Instant.EPOCH));
+    }
+
+    @Test
+    public void testOutOfRange() {
+        Instant instant = Instant.parse("+12345-01-02T03:04:05.600Z");
+        assertEquals(DateTimeFormatter.ISO_INSTANT.format(instant), encode(TimestampFormat.ISO_INSTANT, instant));
+        assertEquals("+12345-01-02T03:04:05.600000Z", encode(TimestampFormat.ISO_MICROS, instant));
+    }
+
+    private static String encode(TimestampFormat format, Instant instant) {
+        char[] buf = new char[TimestampEncoder.MAX_LENGTH];
+        int len = TimestampEncoder.encode(format, instant.getEpochSecond(), instant.getNano(), buf, 0);
+        return new String(buf, 0, len);
+    }
+}
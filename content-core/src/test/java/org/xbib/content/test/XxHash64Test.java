@@ -0,0 +1,50 @@
+package org.xbib.content.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.xbib.content.io.XxHash64;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+public class XxHash64Test {
+
+    @Test
+    public void testVectors() {
+        assertEquals(0xEF46DB3751D8E999L, hash(""));
+        assertEquals(0xD24EC4F1A98C6E5BL, hash("a"));
+        assertEquals(0x44BC2CF5AD770999L, hash("abc"));
+        assertEquals(0xFBCEA83C8A378BF1L, hash("Nobody inspects the spammish repetition"));
+    }
+
+    @Test
+    public void testChunks() {
+        byte[] b = new byte[1000];
+        new Random(42L).nextBytes(b);
+        XxHash64 hash = new XxHash64();
+        hash.update(b, 0, b.length);
+        long expected = hash.getValue();
+        Random random = new Random(43L);
+        for (int i = 0; i < 100; i++) {
+            hash.reset();
+            int pos = 0;
+            while (pos < b.length) {
+                if (random.nextInt(4) == 0) {
+                    hash.update(b[pos++]);
+                } else {
+                    int n = Math.min(random.nextInt(70), b.length - pos);
+                    hash.update(b, pos, n);
+                    pos += n;
+                }
+            }
+            assertEquals(expected, hash.getValue());
+        }
+    }
+
+    private static long hash(String s) {
+        XxHash64 hash = new XxHash64();
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        hash.update(b, 0, b.length);
+        return hash.getValue();
+    }
+}
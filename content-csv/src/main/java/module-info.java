@@ -1,3 +1,7 @@
+import org.xbib.content.XContent;
+
 module org.xbib.content.csv {
     exports org.xbib.content.csv;
+    requires transitive org.xbib.content.core;
+    provides XContent with org.xbib.content.csv.CsvXContent;
 }
@@ -8,13 +8,32 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
+ * A generator of CSV, which writes into an internal character buffer and passes the buffer to the writer
+ * when it is full, on {@link #flush()}, and on {@link #close()}.
  *
+ * A value is scanned once to decide if it must be quoted, and unquoted values are copied into the buffer
+ * in bulk. Numbers are formatted into the buffer without creating strings. Rows are either written value
+ * by value, where a row ends after as many values as there are keys, or by {@link #writeRow(Object...)},
+ * which ends the row after its values.
  */
 public class CSVGenerator implements CSVConstants, Closeable, Flushable {
 
-    private static final String LF = System.getProperty("line.separator");
+    private static final char[] LINE_SEPARATOR = System.lineSeparator().toCharArray();
 
-    private Writer writer;
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * The maximum number of characters of a long, including the sign.
+     */
+    private static final int MAX_LONG_LENGTH = 20;
+
+    private final Writer writer;
+
+    private final char[] buf;
+
+    private final StringBuilder scratch;
+
+    private int pos;
 
     private int col;
 
@@ -24,6 +43,8 @@ public class CSVGenerator implements CSVConstants, Closeable, Flushable {
 
     public CSVGenerator(Writer writer) {
         this.writer = writer;
+        this.buf = new char[BUFFER_SIZE];
+        this.scratch = new StringBuilder(32);
         this.col = 0;
         this.keys = new ArrayList<>();
     }
@@ -41,18 +62,70 @@ public class CSVGenerator implements CSVConstants, Closeable, Flushable {
     }
 
     public CSVGenerator write(String value) throws IOException {
-        if (col > 0) {
-            writer.write(COMMA);
-        }
+        separator();
         if (value != null) {
-            writer.write(escape(value));
+            writeEscaped(value);
         }
-        col++;
-        if (col > keys.size()) {
-            writer.write(LF);
-            row++;
-            col = 0;
+        return next();
+    }
+
+    public CSVGenerator write(int value) throws IOException {
+        separator();
+        writeLong(value);
+        return next();
+    }
+
+    public CSVGenerator write(long value) throws IOException {
+        separator();
+        writeLong(value);
+        return next();
+    }
+
+    public CSVGenerator write(double value) throws IOException {
+        separator();
+        writeDouble(value);
+        return next();
+    }
+
+    /**
+     * Write a row. Values are written by their type, null values are written as empty values.
+     * The row ends after the values.
+     * @param values the values
+     * @return this generator
+     * @throws IOException if the row can not be written
+     */
+    public CSVGenerator writeRow(Object... values) throws IOException {
+        for (Object value : values) {
+            separator();
+            writeObject(value);
+            col++;
         }
+        endRow();
+        return this;
+    }
+
+    /**
+     * Write rows, see {@link #writeRow(Object...)}.
+     * @param rows the rows
+     * @return this generator
+     * @throws IOException if the rows can not be written
+     */
+    public CSVGenerator writeRows(Iterable<? extends Object[]> rows) throws IOException {
+        for (Object[] values : rows) {
+            writeRow(values);
+        }
+        return this;
+    }
+
+    /**
+     * End the current row.
+     * @return this generator
+     * @throws IOException if the row can not be written
+     */
+    public CSVGenerator endRow() throws IOException {
+        put(LINE_SEPARATOR, 0, LINE_SEPARATOR.length);
+        row++;
+        col = 0;
         return this;
     }
 
@@ -66,34 +139,148 @@ public class CSVGenerator implements CSVConstants, Closeable, Flushable {
 
     @Override
     public void close() throws IOException {
+        flushBuffer();
         writer.close();
     }
 
     @Override
     public void flush() throws IOException {
+        flushBuffer();
         writer.flush();
     }
 
-    private String escape(String value) {
-        if (value.indexOf(QUOTE) < 0
-                && value.indexOf(ESCAPE_CHARACTER) < 0
-                && value.indexOf(COMMA) < 0
-                && value.indexOf(TAB) < 0
-                && !value.contains(LF)) {
-           return value;
+    private CSVGenerator next() throws IOException {
+        col++;
+        if (col >= keys.size()) {
+            endRow();
         }
+        return this;
+    }
+
+    private void separator() throws IOException {
+        if (col > 0) {
+            put(COMMA);
+        }
+    }
+
+    private void writeObject(Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            writeLong(((Number) value).longValue());
+        } else if (value instanceof Double) {
+            writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            scratch.setLength(0);
+            scratch.append((float) (Float) value);
+            put(scratch);
+        } else {
+            writeEscaped(value.toString());
+        }
+    }
+
+    private void writeEscaped(String value) throws IOException {
         int length = value.length();
-        StringBuilder sb = new StringBuilder(length + 2);
-        sb.append(QUOTE);
-        for (int i = 0; i < length; i++) {
+        int i = 0;
+        while (i < length) {
             char ch = value.charAt(i);
-            if (ch == QUOTE) {
-                sb.append(QUOTE);
+            if (ch <= COMMA && (ch == QUOTE || ch == COMMA || ch == TAB || ch == LF || ch == CR)) {
+                break;
+            }
+            i++;
+        }
+        if (i == length) {
+            put(value, 0, length);
+            return;
+        }
+        put(QUOTE);
+        int start = 0;
+        for (; i < length; i++) {
+            if (value.charAt(i) == QUOTE) {
+                // write the quote twice
+                put(value, start, i + 1 - start);
+                start = i;
+            }
+        }
+        put(value, start, length - start);
+        put(QUOTE);
+    }
+
+    private void writeLong(long value) throws IOException {
+        if (buf.length - pos < MAX_LONG_LENGTH) {
+            flushBuffer();
+        }
+        if (value == Long.MIN_VALUE) {
+            put(Long.toString(value), 0, MAX_LONG_LENGTH);
+            return;
+        }
+        long v = value;
+        if (v < 0) {
+            buf[pos++] = '-';
+            v = -v;
+        }
+        int digits = 1;
+        for (long n = v; n >= 10; n /= 10) {
+            digits++;
+        }
+        int p = pos + digits;
+        pos = p;
+        do {
+            buf[--p] = (char) ('0' + (int) (v % 10));
+            v /= 10;
+        } while (v > 0);
+    }
+
+    private void writeDouble(double value) throws IOException {
+        scratch.setLength(0);
+        scratch.append(value);
+        put(scratch);
+    }
+
+    private void put(char c) throws IOException {
+        if (pos == buf.length) {
+            flushBuffer();
+        }
+        buf[pos++] = c;
+    }
+
+    private void put(StringBuilder sb) throws IOException {
+        int length = sb.length();
+        if (buf.length - pos < length) {
+            flushBuffer();
+        }
+        sb.getChars(0, length, buf, pos);
+        pos += length;
+    }
+
+    private void put(String s, int offset, int length) throws IOException {
+        int off = offset;
+        int len = length;
+        while (len > 0) {
+            if (pos == buf.length) {
+                flushBuffer();
             }
-            sb.append(ch);
+            int n = Math.min(len, buf.length - pos);
+            s.getChars(off, off + n, buf, pos);
+            pos += n;
+            off += n;
+            len -= n;
         }
-        sb.append(QUOTE);
-        return sb.toString();
     }
 
+    private void put(char[] chars, int offset, int length) throws IOException {
+        if (buf.length - pos < length) {
+            flushBuffer();
+        }
+        System.arraycopy(chars, offset, buf, pos, length);
+        pos += length;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (pos > 0) {
+            writer.write(buf, 0, pos);
+            pos = 0;
+        }
+    }
 }
@@ -2,13 +2,24 @@ package org.xbib.content.csv;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.Reader;
 
 /**
+ * A lexer which reads blocks of characters into a private window and scans the window directly.
  *
+ * Runs of ordinary characters, up to the next delimiter, escape, quote, or line end, are found in a tight
+ * loop over the window, without a call and without a lock per character. Unquoted tokens which lie within
+ * the window are returned as ranges of the window, and are only copied when the row value is created.
+ * Only escaped characters, doubled quotes, and tokens which cross a refill of the window are copied to
+ * the string builder of the token.
  */
 class CSVLexer implements CSVConstants, Closeable {
 
-    private final CSVLookAheadReader reader;
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+
+    private final char[] buf;
 
     private final char delimiter;
 
@@ -22,9 +33,26 @@ class CSVLexer implements CSVConstants, Closeable {
 
     private final boolean ignoreEmptyLines;
 
-    CSVLexer(CSVLookAheadReader reader, char delimiter, char escape, char quoteChar, char commentStart,
+    private int pos;
+
+    private int limit;
+
+    /**
+     * The last read character, -2 before the first read, -1 after the end of input.
+     */
+    private int lastChar = -2;
+
+    private long eolCounter;
+
+    /**
+     * The token which is read, so that its window range can be saved before the window is refilled.
+     */
+    private CSVToken csvToken;
+
+    CSVLexer(Reader reader, char delimiter, char escape, char quoteChar, char commentStart,
              boolean ignoreSurroundingSpaces, boolean ignoreEmptyLines) {
         this.reader = reader;
+        this.buf = new char[BUFFER_SIZE];
         this.delimiter = delimiter;
         this.escape = escape;
         this.quoteChar = quoteChar;
@@ -34,13 +62,14 @@ class CSVLexer implements CSVConstants, Closeable {
     }
 
     CSVToken nextToken(final CSVToken csvToken) throws IOException {
-        int lastChar = reader.getLastChar();
-        int c = reader.read();
+        this.csvToken = csvToken;
+        int lastChar = this.lastChar;
+        int c = read();
         boolean eol = readEndOfLine(c);
         if (ignoreEmptyLines) {
             while (eol && isStartOfLine(lastChar)) {
                 lastChar = c;
-                c = reader.read();
+                c = read();
                 eol = readEndOfLine(c);
                 if (isEndOfFile(c)) {
                     csvToken.type = CSVToken.Type.EOF;
@@ -53,7 +82,7 @@ class CSVLexer implements CSVConstants, Closeable {
             return csvToken;
         }
         if (isStartOfLine(lastChar) && isCommentStart(c)) {
-            final String line = reader.readLine();
+            final String line = readLine();
             if (line == null) {
                 csvToken.type = CSVToken.Type.EOF;
                 return csvToken;
@@ -66,7 +95,7 @@ class CSVLexer implements CSVConstants, Closeable {
         while (csvToken.type == CSVToken.Type.INVALID) {
             if (ignoreSurroundingSpaces) {
                 while (isWhitespace(c) && !eol) {
-                    c = reader.read();
+                    c = read();
                     eol = readEndOfLine(c);
                 }
             }
@@ -102,18 +131,31 @@ class CSVLexer implements CSVConstants, Closeable {
             } else if (isEscape(ch)) {
                 final int unescaped = readEscape();
                 if (unescaped == -1) {
-                    csvToken.content.append((char) ch).append((char) reader.getLastChar());
+                    csvToken.append((char) ch);
+                    csvToken.append((char) lastChar);
                 } else {
-                    csvToken.content.append((char) unescaped);
+                    csvToken.append((char) unescaped);
                 }
-                ch = reader.read();
+                ch = read();
             } else {
-                csvToken.content.append((char) ch);
-                ch = reader.read();
+                // ch is the last read character of the window, scan the ordinary characters following it
+                final int start = pos - 1;
+                int i = pos;
+                while (i < limit) {
+                    final char x = buf[i];
+                    if (x == delimiter || x == LF || x == CR || x == escape) {
+                        break;
+                    }
+                    i++;
+                }
+                csvToken.append(buf, start, i - start);
+                pos = i;
+                lastChar = buf[i - 1];
+                ch = read();
             }
         }
         if (ignoreSurroundingSpaces) {
-            trimTrailingSpaces(csvToken.content);
+            csvToken.trimTrailingSpaces();
         }
         return csvToken;
     }
@@ -122,21 +164,22 @@ class CSVLexer implements CSVConstants, Closeable {
         final long startLineNumber = getCurrentLineNumber();
         int c;
         while (true) {
-            c = reader.read();
+            c = read();
             if (isEscape(c)) {
                 final int unescaped = readEscape();
                 if (unescaped == -1) {
-                    csvToken.content.append((char) c).append((char) reader.getLastChar());
+                    csvToken.append((char) c);
+                    csvToken.append((char) lastChar);
                 } else {
-                    csvToken.content.append((char) unescaped);
+                    csvToken.append((char) unescaped);
                 }
             } else if (isQuoteChar(c)) {
-                if (isQuoteChar(reader.lookAhead())) {
-                    c = reader.read();
-                    csvToken.content.append((char) c);
+                if (isQuoteChar(lookAhead())) {
+                    c = read();
+                    csvToken.append((char) c);
                 } else {
                     while (true) {
-                        c = reader.read();
+                        c = read();
                         if (isDelimiter(c)) {
                             csvToken.type = CSVToken.Type.TOKEN;
                             return csvToken;
@@ -159,17 +202,97 @@ class CSVLexer implements CSVConstants, Closeable {
                         + startLineNumber
                         + ") EOF reached before encapsulated token finished");
             } else {
-                csvToken.content.append((char) c);
+                // line ends stop the scan so that they are counted by read()
+                final int start = pos - 1;
+                int i = pos;
+                while (i < limit) {
+                    final char x = buf[i];
+                    if (x == quoteChar || x == escape || x == LF || x == CR) {
+                        break;
+                    }
+                    i++;
+                }
+                csvToken.append(buf, start, i - start);
+                pos = i;
+                lastChar = buf[i - 1];
             }
         }
     }
 
+    /**
+     * Set the number of lines before the input, for input which starts in the middle of a file.
+     * @param lines the number of lines
+     */
+    void setLineOffset(long lines) {
+        this.eolCounter = lines;
+    }
+
     long getCurrentLineNumber() {
-        return reader.getCurrentLineNumber();
+        if (lastChar == CR || lastChar == LF || lastChar == -2 || lastChar == -1) {
+            return eolCounter;
+        }
+        return eolCounter + 1;
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) {
+            lastChar = -1;
+            return -1;
+        }
+        final char c = buf[pos++];
+        if (c == CR || (c == LF && lastChar != CR)) {
+            eolCounter++;
+        }
+        lastChar = c;
+        return c;
+    }
+
+    private int lookAhead() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buf[pos];
+    }
+
+    private String readLine() throws IOException {
+        if (pos == limit && !fill()) {
+            lastChar = -1;
+            return null;
+        }
+        final StringBuilder sb = new StringBuilder();
+        while (pos < limit || fill()) {
+            final int start = pos;
+            while (pos < limit && buf[pos] != LF && buf[pos] != CR) {
+                pos++;
+            }
+            sb.append(buf, start, pos - start);
+            if (pos < limit) {
+                if (buf[pos++] == CR && lookAhead() == LF) {
+                    pos++;
+                }
+                break;
+            }
+        }
+        lastChar = LF;
+        eolCounter++;
+        return sb.toString();
+    }
+
+    private boolean fill() throws IOException {
+        if (csvToken != null) {
+            csvToken.copyWindow();
+        }
+        int n;
+        do {
+            n = reader.read(buf, 0, buf.length);
+        } while (n == 0);
+        pos = 0;
+        limit = Math.max(n, 0);
+        return n > 0;
     }
 
     private int readEscape() throws IOException {
-        final int ch = reader.read();
+        final int ch = read();
         switch (ch) {
             case 'r':
                 return CR;
@@ -197,20 +320,10 @@ class CSVLexer implements CSVConstants, Closeable {
         }
     }
 
-    private void trimTrailingSpaces(final StringBuilder buffer) {
-        int length = buffer.length();
-        while (length > 0 && Character.isWhitespace(buffer.charAt(length - 1))) {
-            length = length - 1;
-        }
-        if (length != buffer.length()) {
-            buffer.setLength(length);
-        }
-    }
-
     private boolean readEndOfLine(final int ch) throws IOException {
         int c = ch;
-        if (c == CR && reader.lookAhead() == LF) {
-            c = reader.read();
+        if (c == CR && lookAhead() == LF) {
+            c = read();
         }
         return c == LF || c == CR;
     }
@@ -252,6 +365,7 @@ class CSVLexer implements CSVConstants, Closeable {
 
     @Override
     public void close() throws IOException {
+        lastChar = -1;
         reader.close();
     }
 }
@@ -0,0 +1,287 @@
+package org.xbib.content.csv;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * A reader which parses a CSV file in chunks on several threads.
+ *
+ * The file is memory-mapped and scanned once for record boundaries by a small state machine, which follows
+ * quotes, doubled quotes, escapes, and comment lines like the lexer does, so that a chunk never starts
+ * within a quoted field with line breaks. The scan also counts the line ends before each chunk, so rows
+ * and parse errors report the line numbers of the file. Chunks are parsed by a pool of threads while the
+ * scan continues, and the number of chunks in flight is bounded.
+ *
+ * In ordered mode, which is the default, rows are passed to the consumer in file order on the calling
+ * thread. In unordered mode, rows are passed to the consumer on the parsing threads as soon as they are
+ * parsed, so the consumer must be thread-safe.
+ *
+ * The charset must be ASCII compatible, for example UTF-8 or ISO-8859-1, and the delimiter must be an
+ * ASCII character, so that the bytes of delimiters, quotes, and line ends can be found without decoding.
+ */
+public class CSVParallelReader implements CSVConstants {
+
+    private static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    private static final int SCAN_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final int ROW_START = 0;
+
+    private static final int FIELD_START = 1;
+
+    private static final int UNQUOTED = 2;
+
+    private static final int QUOTED = 3;
+
+    private static final int QUOTE_IN_QUOTED = 4;
+
+    private static final int AFTER_QUOTE = 5;
+
+    private static final int COMMENT = 6;
+
+    private final Path path;
+
+    private char delimiter;
+
+    private Charset charset;
+
+    private int chunkSize;
+
+    private int threads;
+
+    private boolean ordered;
+
+    public CSVParallelReader(Path path) {
+        this.path = path;
+        this.delimiter = COMMA;
+        this.charset = StandardCharsets.UTF_8;
+        this.chunkSize = DEFAULT_CHUNK_SIZE;
+        this.threads = Runtime.getRuntime().availableProcessors();
+        this.ordered = true;
+    }
+
+    public CSVParallelReader delimiter(char delimiter) {
+        if (delimiter > 0x7f) {
+            throw new IllegalArgumentException("delimiter must be an ASCII character");
+        }
+        this.delimiter = delimiter;
+        return this;
+    }
+
+    public CSVParallelReader charset(Charset charset) {
+        this.charset = charset;
+        return this;
+    }
+
+    /**
+     * Set the chunk size. A chunk is extended to the end of its last record.
+     * @param chunkSize the minimum number of bytes of a chunk
+     * @return this reader
+     */
+    public CSVParallelReader chunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunk size must be positive");
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    public CSVParallelReader threads(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * Set the mode.
+     * @param ordered true if rows are passed in file order on the calling thread, false if rows are passed
+     *                on the parsing threads in any order
+     * @return this reader
+     */
+    public CSVParallelReader ordered(boolean ordered) {
+        this.ordered = ordered;
+        return this;
+    }
+
+    /**
+     * Read all rows of the file.
+     * @param consumer the consumer of the rows
+     * @throws IOException if the file can not be read or is not valid CSV
+     */
+    public void read(Consumer<List<String>> consumer) throws IOException {
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        Deque<Future<List<List<String>>>> futures = new ArrayDeque<>();
+        int maxInFlight = threads * 2;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long chunkStart = 0L;
+            long chunkLines = 0L;
+            long lines = 0L;
+            int state = ROW_START;
+            boolean escaped = false;
+            int prev = -1;
+            for (long segmentStart = 0L; segmentStart < size; segmentStart += SCAN_SEGMENT_SIZE) {
+                int length = (int) Math.min(SCAN_SEGMENT_SIZE, size - segmentStart);
+                ByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, segmentStart, length);
+                for (int i = 0; i < length; i++) {
+                    int b = segment.get(i);
+                    long position = segmentStart + i;
+                    if (state == ROW_START && position - chunkStart >= chunkSize && !(prev == CR && b == LF)) {
+                        futures.add(executorService.submit(parse(channel, chunkStart, position, chunkLines,
+                                consumer)));
+                        if (futures.size() >= maxInFlight) {
+                            complete(futures.removeFirst(), consumer);
+                        }
+                        chunkStart = position;
+                        chunkLines = lines;
+                    }
+                    if (b == CR || (b == LF && prev != CR)) {
+                        lines++;
+                    }
+                    prev = b;
+                    if (escaped) {
+                        escaped = false;
+                        continue;
+                    }
+                    state = next(state, b);
+                    escaped = state < 0;
+                    if (escaped) {
+                        state = -state;
+                    }
+                }
+            }
+            if (chunkStart < size) {
+                futures.add(executorService.submit(parse(channel, chunkStart, size, chunkLines, consumer)));
+            }
+            while (!futures.isEmpty()) {
+                complete(futures.removeFirst(), consumer);
+            }
+        } finally {
+            for (Future<List<List<String>>> future : futures) {
+                future.cancel(true);
+            }
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * The next scan state after a byte. A negative state means that the following byte is escaped.
+     */
+    private int next(int state, int b) {
+        switch (state) {
+            case COMMENT:
+                return b == LF || b == CR ? ROW_START : COMMENT;
+            case QUOTED:
+                if (b == '\\') {
+                    return -QUOTED;
+                }
+                return b == QUOTE ? QUOTE_IN_QUOTED : QUOTED;
+            case QUOTE_IN_QUOTED:
+                if (b == QUOTE) {
+                    return QUOTED;
+                }
+                return next(AFTER_QUOTE, b);
+            case AFTER_QUOTE:
+                if (b == delimiter) {
+                    return FIELD_START;
+                }
+                return b == LF || b == CR ? ROW_START : AFTER_QUOTE;
+            case UNQUOTED:
+                if (b == delimiter) {
+                    return FIELD_START;
+                } else if (b == LF || b == CR) {
+                    return ROW_START;
+                }
+                return b == '\\' ? -UNQUOTED : UNQUOTED;
+            case ROW_START:
+                if (b == '#') {
+                    return COMMENT;
+                }
+                return next(FIELD_START, b);
+            default:
+                if (b == delimiter) {
+                    return FIELD_START;
+                } else if (b == LF || b == CR) {
+                    return ROW_START;
+                } else if (b == QUOTE) {
+                    return QUOTED;
+                } else if (b == '\\') {
+                    return -UNQUOTED;
+                }
+                return b >= 0 && Character.isWhitespace(b) ? FIELD_START : UNQUOTED;
+        }
+    }
+
+    private Callable<List<List<String>>> parse(FileChannel channel, long start, long end, long lines,
+                                               Consumer<List<String>> consumer) throws IOException {
+        if (end - start > Integer.MAX_VALUE) {
+            throw new IOException("(line " + (lines + 1) + ") record too large");
+        }
+        return () -> {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            CharBuffer chars = charset.decode(buffer);
+            CSVLexer lexer = new CSVLexer(new CharArrayReader(chars.array(), chars.arrayOffset(), chars.limit()),
+                    delimiter, '\\', QUOTE, '#', true, true);
+            lexer.setLineOffset(lines);
+            CSVRowCursor cursor = new CSVRowCursor(lexer);
+            List<List<String>> rows = ordered ? new ArrayList<>() : null;
+            while (cursor.next()) {
+                List<String> row = new ArrayList<>(cursor.size());
+                for (int i = 0; i < cursor.size(); i++) {
+                    row.add(cursor.getString(i));
+                }
+                if (ordered) {
+                    rows.add(row);
+                } else {
+                    consumer.accept(row);
+                }
+            }
+            return rows;
+        };
+    }
+
+    private void complete(Future<List<List<String>>> future, Consumer<List<String>> consumer) throws IOException {
+        List<List<String>> rows;
+        try {
+            rows = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw new IOException(cause.getMessage(), cause);
+            } else if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+        if (rows != null) {
+            rows.forEach(consumer);
+        }
+    }
+}
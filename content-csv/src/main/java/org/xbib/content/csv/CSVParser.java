@@ -2,8 +2,8 @@ package org.xbib.content.csv;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
 
@@ -16,18 +16,26 @@ public class CSVParser {
 
     private final List<String> row;
 
-    private final CSVToken reusableCSVToken;
+    private final CSVRowCursor rows;
 
     public CSVParser(Reader reader) throws IOException {
-        lexer = new CSVLexer(new CSVLookAheadReader(reader), ',', '\\', '"', '#', true, true);
-        row = new LinkedList<>();
-        reusableCSVToken = new CSVToken();
+        this(reader, ',');
     }
 
     public CSVParser(Reader reader, char sep) throws IOException {
-        lexer = new CSVLexer(new CSVLookAheadReader(reader), sep, '\\', '"', '#', true, true);
-        row = new LinkedList<>();
-        reusableCSVToken = new CSVToken();
+        lexer = new CSVLexer(reader, sep, '\\', '"', '#', true, true);
+        row = new ArrayList<>();
+        rows = new CSVRowCursor(lexer);
+    }
+
+    /**
+     * Return a cursor over the remaining rows, which reads fields without creating strings.
+     * The cursor and the iterator of this parser must not be used together.
+     * @param columns the columns to read, or none for all columns
+     * @return the cursor
+     */
+    public CSVRowCursor cursor(int... columns) {
+        return new CSVRowCursor(lexer, columns);
     }
 
     public void close() throws IOException {
@@ -77,36 +85,11 @@ public class CSVParser {
 
     protected List<String> nextRow() throws IOException {
         row.clear();
-        StringBuilder sb = null;
-        do {
-            reusableCSVToken.reset();
-            lexer.nextToken(reusableCSVToken);
-            String s = reusableCSVToken.content.toString();
-            switch (reusableCSVToken.type) {
-                case TOKEN:
-                case EORECORD:
-                    row.add(s);
-                    break;
-                case EOF:
-                    if (reusableCSVToken.isReady) {
-                        row.add(s);
-                    }
-                    break;
-                case INVALID:
-                    throw new IOException("(line " + getCurrentLineNumber() + ") invalid parse sequence");
-                case COMMENT:
-                    if (sb == null) {
-                        sb = new StringBuilder();
-                    } else {
-                        sb.append(CSVConstants.LF);
-                    }
-                    sb.append(reusableCSVToken.content);
-                    reusableCSVToken.type = CSVToken.Type.TOKEN;
-                    break;
-                default:
-                    throw new IllegalStateException("unexpected token type: " + reusableCSVToken.type);
+        if (rows.next()) {
+            for (int i = 0; i < rows.size(); i++) {
+                row.add(rows.getString(i));
             }
-        } while (reusableCSVToken.type == CSVToken.Type.TOKEN);
+        }
         return row;
     }
 
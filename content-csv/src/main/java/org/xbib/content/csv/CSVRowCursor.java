@@ -0,0 +1,302 @@
+package org.xbib.content.csv;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A cursor over the rows of a CSV input, which reads fields without creating strings.
+ *
+ * The fields of the current row are copied into a character array of the cursor, which is reused for all
+ * rows. Fields are returned as {@link CharSequence} views and parsed as numbers directly from this array,
+ * so reading a row does not allocate once the arrays have grown to the widest row. If a projection is
+ * given, the fields of the other columns are scanned but not copied, and must not be accessed.
+ * Views and values are only valid until the next call of {@link #next()}. The cursor is not thread-safe.
+ *
+ * <pre>
+ * CSVRowCursor cursor = new CSVParser(reader).cursor(0, 3);
+ * while (cursor.next()) {
+ *     long id = cursor.getLong(0);
+ *     CharSequence title = cursor.get(3);
+ * }
+ * </pre>
+ */
+public final class CSVRowCursor {
+
+    private static final int INITIAL_COLUMNS = 16;
+
+    private static final int INITIAL_CHARS = 256;
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+
+    private final CSVLexer lexer;
+
+    private final CSVToken token;
+
+    /**
+     * The projected columns, or null if all columns are read.
+     */
+    private final boolean[] projection;
+
+    private char[] chars;
+
+    private int[] starts;
+
+    private int[] ends;
+
+    private Field[] fields;
+
+    private int size;
+
+    private int length;
+
+    CSVRowCursor(CSVLexer lexer, int... columns) {
+        this.lexer = lexer;
+        this.token = new CSVToken();
+        this.projection = projection(columns);
+        this.chars = new char[INITIAL_CHARS];
+        this.starts = new int[INITIAL_COLUMNS];
+        this.ends = new int[INITIAL_COLUMNS];
+        this.fields = new Field[INITIAL_COLUMNS];
+    }
+
+    /**
+     * Move to the next row. Comment lines and, by default, empty lines are skipped.
+     * @return true if there is a row, false at the end of the input
+     * @throws IOException if the input can not be read or is not valid CSV
+     */
+    public boolean next() throws IOException {
+        size = 0;
+        length = 0;
+        do {
+            token.reset();
+            token.skip = !isProjected(size);
+            lexer.nextToken(token);
+            switch (token.type) {
+                case TOKEN:
+                case EORECORD:
+                    add();
+                    break;
+                case EOF:
+                    if (token.isReady) {
+                        add();
+                    }
+                    break;
+                case INVALID:
+                    throw new IOException("(line " + getLineNumber() + ") invalid parse sequence");
+                case COMMENT:
+                    token.type = CSVToken.Type.TOKEN;
+                    break;
+                default:
+                    throw new IllegalStateException("unexpected token type: " + token.type);
+            }
+        } while (token.type == CSVToken.Type.TOKEN);
+        return size > 0;
+    }
+
+    /**
+     * Return the number of fields of the current row, including the fields of columns which are not projected.
+     * @return the number of fields
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check if a column is read by this cursor.
+     * @param column the column
+     * @return true if the column is projected
+     */
+    public boolean isProjected(int column) {
+        return projection == null || (column < projection.length && projection[column]);
+    }
+
+    /**
+     * Return a view of a field. The view is reused for the column, and reflects the current row.
+     * @param column the column
+     * @return the field
+     */
+    public CharSequence get(int column) {
+        check(column);
+        Field field = fields[column];
+        if (field == null) {
+            field = new Field(column);
+            fields[column] = field;
+        }
+        return field;
+    }
+
+    /**
+     * Return a field as a string.
+     * @param column the column
+     * @return the field
+     */
+    public String getString(int column) {
+        check(column);
+        return new String(chars, starts[column], ends[column] - starts[column]);
+    }
+
+    /**
+     * Parse a field as an int.
+     * @param column the column
+     * @return the value
+     * @throws NumberFormatException if the field is not an int
+     */
+    public int getInt(int column) {
+        return Integer.parseInt(get(column), 0, ends[column] - starts[column], 10);
+    }
+
+    /**
+     * Parse a field as a long.
+     * @param column the column
+     * @return the value
+     * @throws NumberFormatException if the field is not a long
+     */
+    public long getLong(int column) {
+        return Long.parseLong(get(column), 0, ends[column] - starts[column], 10);
+    }
+
+    /**
+     * Parse a field as a double. Plain decimals with up to 15 digits are parsed without creating a string,
+     * other forms are parsed by {@link Double#parseDouble(String)}.
+     * @param column the column
+     * @return the value
+     * @throws NumberFormatException if the field is not a double
+     */
+    public double getDouble(int column) {
+        check(column);
+        int i = starts[column];
+        int end = ends[column];
+        boolean negative = false;
+        if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+            negative = chars[i] == '-';
+            i++;
+        }
+        long mantissa = 0L;
+        int digits = 0;
+        int scale = -1;
+        for (; i < end; i++) {
+            char ch = chars[i];
+            if (ch >= '0' && ch <= '9') {
+                mantissa = mantissa * 10 + (ch - '0');
+                digits++;
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if (ch == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                break;
+            }
+        }
+        if (i < end || digits == 0 || digits >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(getString(column));
+        }
+        // the mantissa and the power of ten are exact doubles, so the quotient is correctly rounded
+        double d = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+        return negative ? -d : d;
+    }
+
+    /**
+     * Return the line number of the input after the current row.
+     * @return the line number
+     */
+    public long getLineNumber() {
+        return lexer.getCurrentLineNumber();
+    }
+
+    char[] chars() {
+        return chars;
+    }
+
+    int start(int column) {
+        check(column);
+        return starts[column];
+    }
+
+    int length(int column) {
+        check(column);
+        return ends[column] - starts[column];
+    }
+
+    private void add() {
+        if (size == starts.length) {
+            int n = size * 2;
+            starts = Arrays.copyOf(starts, n);
+            ends = Arrays.copyOf(ends, n);
+            fields = Arrays.copyOf(fields, n);
+        }
+        if (token.skip) {
+            starts[size] = -1;
+            ends[size] = -1;
+        } else {
+            int n = token.length();
+            if (length + n > chars.length) {
+                chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + n));
+            }
+            token.getChars(chars, length);
+            starts[size] = length;
+            length += n;
+            ends[size] = length;
+        }
+        size++;
+    }
+
+    private void check(int column) {
+        Objects.checkIndex(column, size);
+        if (starts[column] < 0) {
+            throw new IllegalArgumentException("column " + column + " is not projected");
+        }
+    }
+
+    private static boolean[] projection(int[] columns) {
+        if (columns == null || columns.length == 0) {
+            return null;
+        }
+        int max = 0;
+        for (int column : columns) {
+            if (column < 0) {
+                throw new IllegalArgumentException("negative column " + column);
+            }
+            max = Math.max(max, column);
+        }
+        boolean[] projection = new boolean[max + 1];
+        for (int column : columns) {
+            projection[column] = true;
+        }
+        return projection;
+    }
+
+    private final class Field implements CharSequence {
+
+        private final int column;
+
+        Field(int column) {
+            this.column = column;
+        }
+
+        @Override
+        public int length() {
+            return ends[column] - starts[column];
+        }
+
+        @Override
+        public char charAt(int index) {
+            Objects.checkIndex(index, length());
+            return chars[starts[column] + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            Objects.checkFromToIndex(start, end, length());
+            return new String(chars, starts[column] + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, starts[column], length());
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package org.xbib.content.csv;
 
 /**
- *
+ * A token of the lexer. The characters of a token are either a range of the read window of the lexer,
+ * which is only valid until the next token is read, or, for quoted and escaped tokens and tokens which
+ * cross a refill of the window, a copy in a string builder.
  */
 final class CSVToken {
 
@@ -21,10 +23,93 @@ final class CSVToken {
 
     boolean isReady;
 
+    /**
+     * If true, the characters of the token are not kept, for columns which are not projected.
+     */
+    boolean skip;
+
+    private char[] window;
+
+    private int offset;
+
+    private int length;
+
     void reset() {
         content.setLength(0);
+        window = null;
+        length = 0;
         type = Type.INVALID;
         isReady = false;
+        skip = false;
+    }
+
+    void append(char c) {
+        if (skip) {
+            return;
+        }
+        copyWindow();
+        content.append(c);
+    }
+
+    void append(char[] buf, int off, int len) {
+        if (skip) {
+            return;
+        }
+        if (window == null && content.length() == 0) {
+            window = buf;
+            offset = off;
+            length = len;
+        } else if (window == buf && offset + length == off) {
+            length += len;
+        } else {
+            copyWindow();
+            content.append(buf, off, len);
+        }
+    }
+
+    /**
+     * Copy the window range to the content, before the window is overwritten.
+     */
+    void copyWindow() {
+        if (window != null) {
+            content.append(window, offset, length);
+            window = null;
+            length = 0;
+        }
     }
 
+    void trimTrailingSpaces() {
+        if (window != null) {
+            while (length > 0 && Character.isWhitespace(window[offset + length - 1])) {
+                length--;
+            }
+        } else {
+            int len = content.length();
+            while (len > 0 && Character.isWhitespace(content.charAt(len - 1))) {
+                len--;
+            }
+            content.setLength(len);
+        }
+    }
+
+    int length() {
+        return window != null ? length : content.length();
+    }
+
+    void getChars(char[] dest, int destOffset) {
+        if (window != null) {
+            System.arraycopy(window, offset, dest, destOffset, length);
+        } else {
+            content.getChars(0, content.length(), dest, destOffset);
+        }
+    }
+
+    String value() {
+        return window != null ? new String(window, offset, length) : content.toString();
+    }
+
+    @Override
+    public String toString() {
+        return type + "[" + value() + "]";
+    }
 }
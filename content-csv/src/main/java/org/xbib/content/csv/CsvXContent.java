@@ -0,0 +1,142 @@
+package org.xbib.content.csv;
+
+import org.xbib.content.XContent;
+import org.xbib.content.XContentBuilder;
+import org.xbib.content.XContentGenerator;
+import org.xbib.content.XContentParser;
+import org.xbib.content.core.DefaultXContentBuilder;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * A CSV content implementation.
+ *
+ * The parser streams the rows of the CSV input as a sequence of values, one per row. If the content has
+ * a header, either from the first row of the input or from a list of columns, a row is an object whose
+ * field names are the column names, otherwise a row is an array. All values are strings.
+ *
+ * The generator writes a row for each object, or each array of values, at the top level or in a top level
+ * array. Nested objects are flattened into columns with dotted names, and arrays into columns with the
+ * element index, for example {@code title.main} and {@code subjects.0}. The columns are the configured
+ * columns, or else the columns of the first row, and are written as a header row if the content has
+ * a header. Values of columns which are not in the header are dropped.
+ *
+ * CSV content is not detected by {@link org.xbib.content.core.XContentService}, it must be selected by name.
+ */
+public class CsvXContent implements XContent {
+
+    private static final CsvXContent csvXContent = new CsvXContent();
+
+    private final char delimiter;
+
+    private final boolean header;
+
+    private final List<String> columns;
+
+    /**
+     * Create CSV content with a comma delimiter and a header row.
+     */
+    public CsvXContent() {
+        this(CSVConstants.COMMA, true, null);
+    }
+
+    /**
+     * Create CSV content.
+     * @param delimiter the delimiter
+     * @param header true if the first row is a header row
+     * @param columns the column names, or null for the columns of the header row or the first generated row
+     */
+    public CsvXContent(char delimiter, boolean header, List<String> columns) {
+        this.delimiter = delimiter;
+        this.header = header;
+        this.columns = columns != null ? List.copyOf(columns) : null;
+    }
+
+    public static CsvXContent csvContent() {
+        return csvXContent;
+    }
+
+    public static XContentBuilder contentBuilder() throws IOException {
+        return DefaultXContentBuilder.builder(csvXContent);
+    }
+
+    public static XContentBuilder contentBuilder(OutputStream outputStream) throws IOException {
+        return DefaultXContentBuilder.builder(csvXContent, outputStream);
+    }
+
+    @Override
+    public String name() {
+        return "csv";
+    }
+
+    /**
+     * The rows of CSV content are not documents, they share the header, and quoted values may contain
+     * line ends.
+     * @return false
+     */
+    @Override
+    public boolean hasStreamSeparator() {
+        return false;
+    }
+
+    public char delimiter() {
+        return delimiter;
+    }
+
+    public boolean hasHeader() {
+        return header;
+    }
+
+    public List<String> columns() {
+        return columns;
+    }
+
+    @Override
+    public boolean isXContent(byte[] data, int offset, int length) {
+        return false;
+    }
+
+    @Override
+    public XContentGenerator createGenerator(OutputStream outputStream) throws IOException {
+        return new CsvXContentGenerator(this, new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public XContentGenerator createGenerator(Writer writer) throws IOException {
+        return new CsvXContentGenerator(this, writer);
+    }
+
+    @Override
+    public XContentParser createParser(InputStream inputStream) throws IOException {
+        return createParser(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public XContentParser createParser(Reader reader) throws IOException {
+        return new CsvXContentParser(this, reader);
+    }
+
+    @Override
+    public XContentParser createParser(String content) throws IOException {
+        return createParser(new StringReader(content));
+    }
+
+    @Override
+    public XContentParser createParser(byte[] bytes) throws IOException {
+        return createParser(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public XContentParser createParser(byte[] bytes, int offset, int length) throws IOException {
+        return createParser(new ByteArrayInputStream(bytes, offset, length));
+    }
+}
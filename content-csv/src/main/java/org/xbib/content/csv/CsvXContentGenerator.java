@@ -0,0 +1,447 @@
+package org.xbib.content.csv;
+
+import org.xbib.content.XContent;
+import org.xbib.content.XContentBuilder;
+import org.xbib.content.XContentParser;
+import org.xbib.content.core.AbstractXContentGenerator;
+import org.xbib.content.core.DefaultXContentBuilder;
+import org.xbib.content.core.XContentHelper;
+import org.xbib.content.io.BytesArray;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A generator which flattens content into CSV rows. See {@link CsvXContent} for the mapping of objects
+ * and arrays to rows and columns.
+ *
+ * The values of a row are collected by their flattened names and written when the row ends. Object rows
+ * are written in the order of the columns, array rows are written in the order of their values.
+ * Values are quoted if they contain the delimiter, a quote, an escape character, or a line end, or if they
+ * would otherwise be trimmed or read as a comment, so that {@link CsvXContentParser} reads them back as
+ * they were written.
+ */
+public class CsvXContentGenerator extends AbstractXContentGenerator {
+
+    private static final char LINE_SEPARATOR = '\n';
+
+    private static final int ROOT_ARRAY = 0;
+
+    private static final int ROW_LIST = 1;
+
+    private static final int OBJECT_ROW = 2;
+
+    private static final int ARRAY_ROW = 3;
+
+    private static final int OBJECT = 4;
+
+    private static final int ARRAY = 5;
+
+    private final CsvXContent content;
+
+    private final Writer writer;
+
+    private final char delimiter;
+
+    private final List<String> names;
+
+    private final List<String> values;
+
+    private List<String> columns;
+
+    private Map<String, Integer> index;
+
+    private String[] row;
+
+    private boolean headerWritten;
+
+    private int[] kinds;
+
+    private String[] prefixes;
+
+    private int[] counts;
+
+    private int depth;
+
+    private String fieldName;
+
+    public CsvXContentGenerator(CsvXContent content, Writer writer) {
+        this.content = content;
+        this.writer = writer;
+        this.delimiter = content.delimiter();
+        this.names = new ArrayList<>();
+        this.values = new ArrayList<>();
+        this.kinds = new int[8];
+        this.prefixes = new String[8];
+        this.counts = new int[8];
+        if (content.columns() != null) {
+            setColumns(content.columns());
+        }
+    }
+
+    @Override
+    public XContent content() {
+        return content;
+    }
+
+    @Override
+    public void usePrettyPrint() {
+        // CSV has no pretty print
+    }
+
+    @Override
+    public void writeStartObject() throws IOException {
+        if (depth == 0 || (depth == 1 && isRowList())) {
+            push(OBJECT_ROW, "");
+        } else {
+            push(OBJECT, nextName());
+        }
+    }
+
+    @Override
+    public void writeEndObject() throws IOException {
+        end();
+    }
+
+    @Override
+    public void writeStartArray() throws IOException {
+        if (depth == 0) {
+            push(ROOT_ARRAY, "");
+        } else if (depth == 1 && isRowList()) {
+            kinds[0] = ROW_LIST;
+            push(ARRAY_ROW, "");
+        } else {
+            push(ARRAY, nextName());
+        }
+    }
+
+    @Override
+    public void writeEndArray() throws IOException {
+        end();
+    }
+
+    @Override
+    public void writeFieldName(String name) {
+        this.fieldName = name;
+    }
+
+    @Override
+    public void writeFieldName(char[] name, int offset, int len) {
+        this.fieldName = new String(name, offset, len);
+    }
+
+    @Override
+    public void writeString(String text) throws IOException {
+        value(text);
+    }
+
+    @Override
+    public void writeString(char[] text, int offset, int len) throws IOException {
+        value(new String(text, offset, len));
+    }
+
+    @Override
+    public void writeUTF8String(byte[] text, int offset, int length) throws IOException {
+        value(new String(text, offset, length, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void writeBinary(byte[] data, int offset, int len) throws IOException {
+        value(Base64.getEncoder().encodeToString(Arrays.copyOfRange(data, offset, offset + len)));
+    }
+
+    @Override
+    public void writeBinary(byte[] data) throws IOException {
+        value(Base64.getEncoder().encodeToString(data));
+    }
+
+    @Override
+    public void writeNumber(int v) throws IOException {
+        value(Integer.toString(v));
+    }
+
+    @Override
+    public void writeNumber(long v) throws IOException {
+        value(Long.toString(v));
+    }
+
+    @Override
+    public void writeNumber(double d) throws IOException {
+        value(Double.toString(d));
+    }
+
+    @Override
+    public void writeNumber(float f) throws IOException {
+        value(Float.toString(f));
+    }
+
+    @Override
+    public void writeNumber(BigInteger bi) throws IOException {
+        value(bi.toString());
+    }
+
+    @Override
+    public void writeNumber(BigDecimal bd) throws IOException {
+        value(bd.toString());
+    }
+
+    @Override
+    public void writeBoolean(boolean b) throws IOException {
+        value(Boolean.toString(b));
+    }
+
+    @Override
+    public void writeNull() throws IOException {
+        value("");
+    }
+
+    @Override
+    public void writeStringField(String fieldName, String value) throws IOException {
+        writeFieldName(fieldName);
+        writeString(value);
+    }
+
+    @Override
+    public void writeBooleanField(String fieldName, boolean value) throws IOException {
+        writeFieldName(fieldName);
+        writeBoolean(value);
+    }
+
+    @Override
+    public void writeNullField(String fieldName) throws IOException {
+        writeFieldName(fieldName);
+        writeNull();
+    }
+
+    @Override
+    public void writeNumberField(String fieldName, int value) throws IOException {
+        writeFieldName(fieldName);
+        writeNumber(value);
+    }
+
+    @Override
+    public void writeNumberField(String fieldName, long value) throws IOException {
+        writeFieldName(fieldName);
+        writeNumber(value);
+    }
+
+    @Override
+    public void writeNumberField(String fieldName, double value) throws IOException {
+        writeFieldName(fieldName);
+        writeNumber(value);
+    }
+
+    @Override
+    public void writeNumberField(String fieldName, float value) throws IOException {
+        writeFieldName(fieldName);
+        writeNumber(value);
+    }
+
+    @Override
+    public void writeNumberField(String fieldName, BigInteger value) throws IOException {
+        writeFieldName(fieldName);
+        writeNumber(value);
+    }
+
+    @Override
+    public void writeNumberField(String fieldName, BigDecimal value) throws IOException {
+        writeFieldName(fieldName);
+        writeNumber(value);
+    }
+
+    @Override
+    public void writeBinaryField(String fieldName, byte[] data) throws IOException {
+        writeFieldName(fieldName);
+        writeBinary(data);
+    }
+
+    @Override
+    public void writeArrayFieldStart(String fieldName) throws IOException {
+        writeFieldName(fieldName);
+        writeStartArray();
+    }
+
+    @Override
+    public void writeObjectFieldStart(String fieldName) throws IOException {
+        writeFieldName(fieldName);
+        writeStartObject();
+    }
+
+    @Override
+    public void writeRawField(String fieldName, byte[] content, OutputStream outputStream) throws IOException {
+        writeRawField(fieldName, content, 0, content.length, outputStream);
+    }
+
+    @Override
+    public void writeRawField(String fieldName, byte[] content, int offset, int length, OutputStream outputStream)
+            throws IOException {
+        writeFieldName(fieldName);
+        writeRawValue(new BytesArray(content, offset, length), outputStream);
+    }
+
+    @Override
+    public void writeValue(XContentBuilder builder) throws IOException {
+        if (!(builder instanceof DefaultXContentBuilder)) {
+            throw new IllegalArgumentException("unsupported builder " + builder.getClass().getName());
+        }
+        writeRawValue(((DefaultXContentBuilder) builder).bytes(), null);
+    }
+
+    @Override
+    public void copy(XContentBuilder builder, OutputStream outputStream) throws IOException {
+        writeValue(builder);
+    }
+
+    @Override
+    public void copyCurrentStructure(XContentParser parser) throws IOException {
+        if (parser.currentToken() == null) {
+            parser.nextToken();
+        }
+        XContentHelper.copyCurrentStructure(this, parser);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private boolean isRowList() {
+        return kinds[0] == ROOT_ARRAY || kinds[0] == ROW_LIST;
+    }
+
+    private void push(int kind, String prefix) {
+        if (depth == kinds.length) {
+            kinds = Arrays.copyOf(kinds, depth * 2);
+            prefixes = Arrays.copyOf(prefixes, depth * 2);
+            counts = Arrays.copyOf(counts, depth * 2);
+        }
+        kinds[depth] = kind;
+        prefixes[depth] = prefix;
+        counts[depth] = 0;
+        depth++;
+    }
+
+    private void end() throws IOException {
+        if (depth == 0) {
+            throw new IllegalStateException("no object or array to end");
+        }
+        depth--;
+        int kind = kinds[depth];
+        // a top level array of values is a row itself
+        if (kind == OBJECT_ROW || kind == ARRAY_ROW || (kind == ROOT_ARRAY && !values.isEmpty())) {
+            writeRow(kind == OBJECT_ROW);
+        }
+    }
+
+    /**
+     * Return the flattened name of the next value.
+     */
+    private String nextName() {
+        int top = depth - 1;
+        String prefix = prefixes[top];
+        String name = kinds[top] == ARRAY || kinds[top] == ARRAY_ROW || kinds[top] == ROOT_ARRAY ?
+                Integer.toString(counts[top]++) : fieldName;
+        return prefix.isEmpty() ? name : prefix + '.' + name;
+    }
+
+    private void value(String value) throws IOException {
+        if (depth == 0) {
+            values.add(value);
+            writeRow(false);
+            return;
+        }
+        names.add(nextName());
+        values.add(value);
+    }
+
+    private void setColumns(List<String> columns) {
+        this.columns = new ArrayList<>(columns);
+        this.index = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            index.putIfAbsent(columns.get(i), i);
+        }
+        this.row = new String[columns.size()];
+    }
+
+    private void writeRow(boolean byName) throws IOException {
+        if (byName && columns == null) {
+            setColumns(names);
+        }
+        if (!headerWritten) {
+            headerWritten = true;
+            if (content.hasHeader() && columns != null) {
+                writeValues(columns);
+            }
+        }
+        if (byName) {
+            Arrays.fill(row, null);
+            for (int i = 0; i < names.size(); i++) {
+                Integer column = index.get(names.get(i));
+                if (column != null) {
+                    row[column] = values.get(i);
+                }
+            }
+            writeValues(Arrays.asList(row));
+        } else {
+            writeValues(values);
+        }
+        names.clear();
+        values.clear();
+    }
+
+    private void writeValues(List<String> list) throws IOException {
+        int n = list.size();
+        for (int i = 0; i < n; i++) {
+            if (i > 0) {
+                writer.write(delimiter);
+            }
+            String value = list.get(i);
+            if (value != null) {
+                writeValue(value, i == 0, n == 1);
+            }
+        }
+        writer.write(LINE_SEPARATOR);
+    }
+
+    private void writeValue(String value, boolean first, boolean single) throws IOException {
+        int length = value.length();
+        boolean quote = length == 0 ? single :
+                Character.isWhitespace(value.charAt(0)) || Character.isWhitespace(value.charAt(length - 1)) ||
+                        (first && value.charAt(0) == '#');
+        for (int i = 0; i < length && !quote; i++) {
+            char ch = value.charAt(i);
+            quote = ch == delimiter || ch == CSVConstants.QUOTE || ch == '\\' || ch == CSVConstants.LF ||
+                    ch == CSVConstants.CR;
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write(CSVConstants.QUOTE);
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char ch = value.charAt(i);
+            if (ch == CSVConstants.QUOTE || ch == '\\') {
+                // a doubled quote, and a backslash escaped by a backslash
+                writer.write(value, start, i + 1 - start);
+                start = i;
+            }
+        }
+        writer.write(value, start, length - start);
+        writer.write(CSVConstants.QUOTE);
+    }
+}
@@ -0,0 +1,237 @@
+package org.xbib.content.csv;
+
+import org.xbib.content.XContent;
+import org.xbib.content.XContentParser;
+import org.xbib.content.core.AbstractXContentParser;
+import org.xbib.content.core.MapFactory;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * A parser which streams the rows of CSV content as tokens, a row at a time. Each row is an object keyed by
+ * the column names, or an array if there are no column names. The characters of the values are not copied
+ * out of the row buffer unless they are requested as strings.
+ */
+public class CsvXContentParser extends AbstractXContentParser {
+
+    private final CsvXContent content;
+
+    private final CSVLexer lexer;
+
+    private final CSVRowCursor cursor;
+
+    private String[] names;
+
+    private boolean started;
+
+    private Token token;
+
+    private int column;
+
+    public CsvXContentParser(CsvXContent content, Reader reader) {
+        this.content = content;
+        this.lexer = new CSVLexer(reader, content.delimiter(), '\\', CSVConstants.QUOTE, '#', true, true);
+        this.cursor = new CSVRowCursor(lexer);
+        List<String> columns = content.columns();
+        this.names = columns != null ? columns.toArray(new String[0]) : null;
+    }
+
+    @Override
+    public XContent content() {
+        return content;
+    }
+
+    @Override
+    public Token nextToken() throws IOException {
+        if (!started) {
+            started = true;
+            if (content.hasHeader() && cursor.next() && names == null) {
+                names = new String[cursor.size()];
+                for (int i = 0; i < names.length; i++) {
+                    names[i] = cursor.getString(i);
+                }
+            }
+        }
+        if (token == null || token == Token.END_OBJECT || token == Token.END_ARRAY) {
+            if (!cursor.next()) {
+                token = null;
+                return null;
+            }
+            column = -1;
+            token = names != null ? Token.START_OBJECT : Token.START_ARRAY;
+        } else if (token == Token.FIELD_NAME) {
+            token = Token.VALUE_STRING;
+        } else if (names != null) {
+            column++;
+            token = column < cursor.size() ? Token.FIELD_NAME : Token.END_OBJECT;
+        } else {
+            column++;
+            token = column < cursor.size() ? Token.VALUE_STRING : Token.END_ARRAY;
+        }
+        return token;
+    }
+
+    @Override
+    public void skipChildren() throws IOException {
+        if (token == Token.START_OBJECT) {
+            column = cursor.size();
+            token = Token.END_OBJECT;
+        } else if (token == Token.START_ARRAY) {
+            column = cursor.size();
+            token = Token.END_ARRAY;
+        }
+    }
+
+    @Override
+    public Token currentToken() {
+        return token;
+    }
+
+    @Override
+    public String currentName() {
+        if (names == null || column < 0 || column >= cursor.size()) {
+            return null;
+        }
+        return column < names.length ? names[column] : Integer.toString(column);
+    }
+
+    @Override
+    protected MapFactory getMapFactory() {
+        return HashMap::new;
+    }
+
+    @Override
+    protected MapFactory getOrderedMapFactory() {
+        return LinkedHashMap::new;
+    }
+
+    @Override
+    public String text() {
+        if (token == Token.FIELD_NAME) {
+            return currentName();
+        }
+        return token == Token.VALUE_STRING ? cursor.getString(column) : null;
+    }
+
+    @Override
+    public boolean hasTextCharacters() {
+        return token == Token.VALUE_STRING;
+    }
+
+    @Override
+    public char[] textCharacters() {
+        if (token == Token.VALUE_STRING) {
+            return cursor.chars();
+        }
+        String text = text();
+        return text != null ? text.toCharArray() : null;
+    }
+
+    @Override
+    public int textLength() {
+        if (token == Token.VALUE_STRING) {
+            return cursor.length(column);
+        }
+        String text = text();
+        return text != null ? text.length() : 0;
+    }
+
+    @Override
+    public int textOffset() {
+        return token == Token.VALUE_STRING ? cursor.start(column) : 0;
+    }
+
+    @Override
+    public Number numberValue() {
+        throw new IllegalStateException("CSV values are strings");
+    }
+
+    @Override
+    public NumberType numberType() {
+        throw new IllegalStateException("CSV values are strings");
+    }
+
+    @Override
+    public boolean estimatedNumberType() {
+        return false;
+    }
+
+    @Override
+    protected boolean doBooleanValue() {
+        throw new IllegalStateException("current token is " + token);
+    }
+
+    @Override
+    protected short doShortValue() {
+        throw new IllegalStateException("current token is " + token);
+    }
+
+    @Override
+    protected int doIntValue() {
+        throw new IllegalStateException("current token is " + token);
+    }
+
+    @Override
+    protected long doLongValue() {
+        throw new IllegalStateException("current token is " + token);
+    }
+
+    @Override
+    protected float doFloatValue() {
+        throw new IllegalStateException("current token is " + token);
+    }
+
+    @Override
+    protected double doDoubleValue() {
+        throw new IllegalStateException("current token is " + token);
+    }
+
+    @Override
+    public int intValue() throws IOException {
+        return token == Token.VALUE_STRING ? cursor.getInt(column) : super.intValue();
+    }
+
+    @Override
+    public long longValue() throws IOException {
+        return token == Token.VALUE_STRING ? cursor.getLong(column) : super.longValue();
+    }
+
+    @Override
+    public double doubleValue() throws IOException {
+        return token == Token.VALUE_STRING ? cursor.getDouble(column) : super.doubleValue();
+    }
+
+    @Override
+    public BigInteger bigIntegerValue() {
+        return new BigInteger(text());
+    }
+
+    @Override
+    public BigDecimal bigDecimalValue() {
+        return new BigDecimal(text());
+    }
+
+    @Override
+    public byte[] binaryValue() {
+        return Base64.getDecoder().decode(text());
+    }
+
+    /**
+     * Return the line number of the input after the current row.
+     * @return the line number
+     */
+    public long getLineNumber() {
+        return cursor.getLineNumber();
+    }
+
+    @Override
+    public void close() throws IOException {
+        lexer.close();
+    }
+}
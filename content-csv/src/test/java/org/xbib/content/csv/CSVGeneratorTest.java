@@ -1,9 +1,14 @@
 package org.xbib.content.csv;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import org.junit.jupiter.api.Test;
 import java.io.IOException;
+import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 
 /**
  *
@@ -22,4 +27,42 @@ public class CSVGeneratorTest {
         }
         gen.close();
     }
+
+    @Test
+    public void testWriteRow() throws IOException {
+        StringWriter writer = new StringWriter();
+        CSVGenerator gen = new CSVGenerator(writer);
+        gen.writeRow("a", 1, -42L, 2.5d, 1.1f, null, Long.MIN_VALUE);
+        gen.writeRows(Arrays.asList(new Object[] {"\"Hello, World\"", "x\ty"}, new Object[] {"line\nbreak"}));
+        gen.close();
+        String nl = System.lineSeparator();
+        assertEquals("a,1,-42,2.5,1.1,,-9223372036854775808" + nl + "\"\"\"Hello, World\"\"\",\"x\ty\"" + nl +
+                "\"line\nbreak\"" + nl, writer.toString());
+        assertEquals(3, gen.getRow());
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        StringWriter writer = new StringWriter();
+        CSVGenerator gen = new CSVGenerator(writer);
+        gen.keys(Arrays.asList("a", "b", "c"));
+        gen.writeKeys();
+        List<List<String>> expected = new ArrayList<>();
+        expected.add(Arrays.asList("a", "b", "c"));
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            sb.append("v\"").append(i).append(',');
+            gen.write(sb.toString());
+            gen.write(i);
+            gen.write(i * 0.5d);
+            expected.add(Arrays.asList(sb.toString(), Integer.toString(i), Double.toString(i * 0.5d)));
+        }
+        gen.close();
+        List<List<String>> rows = new ArrayList<>();
+        Iterator<List<String>> it = new CSVParser(new StringReader(writer.toString())).iterator();
+        while (it.hasNext()) {
+            rows.add(new ArrayList<>(it.next()));
+        }
+        assertEquals(expected, rows);
+    }
 }
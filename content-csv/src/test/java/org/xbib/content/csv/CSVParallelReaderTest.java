@@ -0,0 +1,100 @@
+package org.xbib.content.csv;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ *
+ */
+public class CSVParallelReaderTest {
+
+    @Test
+    public void testOrdered() throws IOException, URISyntaxException {
+        Path path = Paths.get(getClass().getResource("titleFile.csv").toURI());
+        List<List<String>> expected = parse(path);
+        List<List<String>> rows = new ArrayList<>();
+        new CSVParallelReader(path).chunkSize(64 * 1024).threads(4).read(rows::add);
+        assertEquals(44447, rows.size());
+        assertEquals(expected, rows);
+    }
+
+    @Test
+    public void testUnordered() throws IOException, URISyntaxException {
+        Path path = Paths.get(getClass().getResource("titleFile.csv").toURI());
+        List<List<String>> expected = parse(path);
+        List<List<String>> rows = Collections.synchronizedList(new ArrayList<>());
+        new CSVParallelReader(path).chunkSize(64 * 1024).threads(4).ordered(false).read(rows::add);
+        Comparator<List<String>> comparator = Comparator.comparing(List::toString);
+        expected.sort(comparator);
+        rows.sort(comparator);
+        assertEquals(expected, rows);
+    }
+
+    @Test
+    public void testQuotedLineBreaks() throws IOException {
+        Path path = Files.createTempFile("csv", ".csv");
+        try {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 1000; i++) {
+                sb.append(i).append(",\"quoted\r\n").append(i).append(" \"\"x\"\"\\\",\\\n\",")
+                        .append(i % 7 == 0 ? "# no comment" : "plain").append("\r\n");
+                if (i % 100 == 0) {
+                    sb.append("# comment with \"quote\n\n");
+                }
+            }
+            Files.writeString(path, sb.toString());
+            List<List<String>> expected = parse(path);
+            List<List<String>> rows = new ArrayList<>();
+            new CSVParallelReader(path).chunkSize(100).threads(3).read(rows::add);
+            assertEquals(1000, rows.size());
+            assertEquals(expected, rows);
+            assertEquals("quoted\r\n999 \"x\"\",\n", rows.get(999).get(1));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testErrorLineNumber() throws IOException {
+        Path path = Files.createTempFile("csv", ".csv");
+        try {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 1000; i++) {
+                sb.append(i).append(",\"a\nb\"\n");
+            }
+            sb.append("1000,\"a\"b\n");
+            Files.writeString(path, sb.toString());
+            IOException e = assertThrows(IOException.class, () ->
+                    new CSVParallelReader(path).chunkSize(100).threads(2).read(row -> { }));
+            assertTrue(e.getMessage().startsWith("(line 2001)"), e.getMessage());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private static List<List<String>> parse(Path path) throws IOException {
+        List<List<String>> rows = new ArrayList<>();
+        try (Reader reader = new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8)) {
+            Iterator<List<String>> it = new CSVParser(reader).iterator();
+            while (it.hasNext()) {
+                rows.add(new ArrayList<>(it.next()));
+            }
+        }
+        return rows;
+    }
+}
@@ -1,12 +1,19 @@
 package org.xbib.content.csv;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.Test;
 import java.io.BufferedReader;
+import java.io.FilterReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
@@ -44,4 +51,67 @@ public class CSVParserTest {
         }
         assertEquals(44447, count);
     }
+
+    @Test
+    public void testQuotedAndEscaped() throws IOException {
+        String csv = "a, \"b \"\"c\"\"\" ,d\\te \r\n\r\n# comment\n\"multi\nline\",x\\,y,\n" +
+                "long" + "x".repeat(20000) + ",end";
+        // a reader which returns a few characters at a time, so tokens cross refills of the window
+        Reader reader = new FilterReader(new StringReader(csv)) {
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                return super.read(cbuf, off, Math.min(len, 3));
+            }
+        };
+        CSVParser csvParser = new CSVParser(reader);
+        Iterator<List<String>> it = csvParser.iterator();
+        assertTrue(it.hasNext());
+        assertEquals(Arrays.asList("a", "b \"c\"", "d\te"), it.next());
+        assertEquals(1L, csvParser.getCurrentLineNumber());
+        assertTrue(it.hasNext());
+        assertEquals(Arrays.asList("multi\nline", "x,y", ""), it.next());
+        assertEquals(5L, csvParser.getCurrentLineNumber());
+        assertTrue(it.hasNext());
+        assertEquals(Arrays.asList("long" + "x".repeat(20000), "end"), it.next());
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void testCursor() throws IOException {
+        String csv = "id,name,price,count\n1,\"Smith, John\",12.5,-3\n# comment\n2,x,-0.125,2147483647\n" +
+                "3,y,1e3,9\n";
+        CSVParser csvParser = new CSVParser(new StringReader(csv));
+        CSVRowCursor cursor = csvParser.cursor();
+        assertTrue(cursor.next());
+        assertEquals(4, cursor.size());
+        assertEquals("name", cursor.get(1).toString());
+        assertTrue(cursor.next());
+        assertEquals(1L, cursor.getLong(0));
+        CharSequence name = cursor.get(1);
+        assertEquals("Smith, John", name.toString());
+        assertEquals(12.5d, cursor.getDouble(2));
+        assertEquals(-3, cursor.getInt(3));
+        assertTrue(cursor.next());
+        assertEquals("x", name.toString());
+        assertEquals(-0.125d, cursor.getDouble(2));
+        assertEquals(Integer.MAX_VALUE, cursor.getInt(3));
+        assertTrue(cursor.next());
+        assertEquals(1000.0d, cursor.getDouble(2));
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    public void testCursorProjection() throws IOException {
+        String csv = "1,a,x\n2,b,y\n";
+        CSVRowCursor cursor = new CSVParser(new StringReader(csv)).cursor(0, 2);
+        assertTrue(cursor.next());
+        assertEquals(3, cursor.size());
+        assertFalse(cursor.isProjected(1));
+        assertThrows(IllegalArgumentException.class, () -> cursor.get(1));
+        assertEquals("x", cursor.getString(2));
+        assertTrue(cursor.next());
+        assertEquals(2, cursor.getInt(0));
+        assertEquals("y", cursor.get(2).toString());
+        assertFalse(cursor.next());
+    }
 }
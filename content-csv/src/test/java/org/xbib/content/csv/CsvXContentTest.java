@@ -0,0 +1,109 @@
+package org.xbib.content.csv;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.Test;
+import org.xbib.content.XContentBuilder;
+import org.xbib.content.XContentParser;
+import org.xbib.content.core.DefaultXContentBuilder;
+import org.xbib.content.core.XContentHelper;
+import org.xbib.content.core.XContentService;
+import org.xbib.content.json.JsonXContent;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ *
+ */
+public class CsvXContentTest {
+
+    @Test
+    public void testParseObjects() throws IOException {
+        String csv = "id,title,year\n1,\"Hello, World\",2001\n2,Foo\n";
+        try (XContentParser parser = CsvXContent.csvContent().createParser(csv)) {
+            assertEquals(XContentParser.Token.START_OBJECT, parser.nextToken());
+            assertEquals(XContentParser.Token.FIELD_NAME, parser.nextToken());
+            assertEquals("id", parser.currentName());
+            assertEquals(XContentParser.Token.VALUE_STRING, parser.nextToken());
+            assertEquals(1, parser.intValue());
+            assertEquals(XContentParser.Token.FIELD_NAME, parser.nextToken());
+            assertEquals(XContentParser.Token.VALUE_STRING, parser.nextToken());
+            assertEquals("Hello, World", parser.text());
+            assertEquals(XContentParser.Token.FIELD_NAME, parser.nextToken());
+            assertEquals(XContentParser.Token.VALUE_STRING, parser.nextToken());
+            assertEquals(2001L, parser.longValue());
+            assertEquals(XContentParser.Token.END_OBJECT, parser.nextToken());
+            assertEquals(XContentParser.Token.START_OBJECT, parser.nextToken());
+            Map<String, Object> map = parser.mapOrdered();
+            assertEquals("{id=2, title=Foo}", map.toString());
+            assertNull(parser.nextToken());
+        }
+    }
+
+    @Test
+    public void testParseArrays() throws IOException {
+        CsvXContent csvXContent = new CsvXContent(';', false, null);
+        try (XContentParser parser = csvXContent.createParser("a;b\nc\n")) {
+            assertEquals(XContentParser.Token.START_ARRAY, parser.nextToken());
+            parser.skipChildren();
+            assertEquals(XContentParser.Token.END_ARRAY, parser.currentToken());
+            assertEquals(XContentParser.Token.START_ARRAY, parser.nextToken());
+            assertEquals(XContentParser.Token.VALUE_STRING, parser.nextToken());
+            assertEquals("c", parser.text());
+            assertEquals(XContentParser.Token.END_ARRAY, parser.nextToken());
+            assertNull(parser.nextToken());
+        }
+    }
+
+    @Test
+    public void testGenerate() throws IOException {
+        XContentBuilder builder = CsvXContent.contentBuilder();
+        builder.startArray();
+        builder.startObject().field("id", 1).field("title", "a \"quoted\", title")
+                .startObject("publication").field("year", 2001).field("place", "Köln").endObject()
+                .array("subjects", "x", "y").endObject();
+        builder.startObject().field("id", 2).field("title", " # ").nullField("publication.year")
+                .field("other", "dropped").endObject();
+        builder.endArray();
+        assertEquals("id,title,publication.year,publication.place,subjects.0,subjects.1\n" +
+                "1,\"a \"\"quoted\"\", title\",2001,Köln,x,y\n" +
+                "2,\" # \",,,,\n", builder.string());
+    }
+
+    @Test
+    public void testGenerateColumns() throws IOException {
+        CsvXContent csvXContent = new CsvXContent(',', false, List.of("b", "a"));
+        assertNotNull(XContentService.builder("csv"));
+        XContentBuilder builder = DefaultXContentBuilder.builder(csvXContent);
+        builder.startObject().field("a", "1").field("b", "x\\y").endObject();
+        builder.startObject().field("a", "2").endObject();
+        assertEquals("\"x\\\\y\",1\n,2\n", builder.string());
+    }
+
+    @Test
+    public void testTranscode() throws IOException {
+        String csv = "id,title\n1,\"multi\nline\"\n2,\"a\\\\b\"\n";
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        XContentHelper.transcode(CsvXContent.csvContent(), JsonXContent.jsonContent(),
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), json);
+        assertEquals("{\"id\":\"1\",\"title\":\"multi\\nline\"} {\"id\":\"2\",\"title\":\"a\\\\b\"}",
+                json.toString(StandardCharsets.UTF_8));
+        ByteArrayOutputStream back = new ByteArrayOutputStream();
+        XContentHelper.transcode(JsonXContent.jsonContent(), CsvXContent.csvContent(),
+                new ByteArrayInputStream(json.toByteArray()), back);
+        assertEquals(csv, back.toString(StandardCharsets.UTF_8));
+        List<String> row = Arrays.asList("2", "a\\b");
+        try (XContentParser parser = CsvXContent.csvContent().createParser(back.toByteArray())) {
+            parser.nextToken();
+            parser.skipChildren();
+            parser.nextToken();
+            assertEquals(row, List.copyOf(parser.mapOrdered().values()));
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.xbib.content.json;
 import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParser;
+import org.xbib.content.NonBlockingXContentParser;
 import org.xbib.content.XContent;
 import org.xbib.content.XContentBuilder;
 import org.xbib.content.core.DefaultXContentBuilder;
@@ -53,6 +54,11 @@ public class JsonXContent implements XContent {
         return "json";
     }
 
+    @Override
+    public byte[] leadingBytes() {
+        return new byte[] { '{', '[' };
+    }
+
     @Override
     public XContentGenerator createGenerator(OutputStream outputStream) throws IOException {
         return new JsonXContentGenerator(jsonFactory.createGenerator(outputStream, JsonEncoding.UTF8));
@@ -89,6 +95,11 @@ public class JsonXContent implements XContent {
         return new JsonXContentParser(jsonFactory.createParser(reader));
     }
 
+    @Override
+    public NonBlockingXContentParser createNonBlockingParser() throws IOException {
+        return new NonBlockingJsonXContentParser(jsonFactory.createNonBlockingByteArrayParser());
+    }
+
     @Override
     public boolean isXContent(byte[] bytes, int offset, int len) {
         int length = Math.min(len, 20);
@@ -96,7 +107,7 @@ public class JsonXContent implements XContent {
             return false;
         }
         byte first = bytes[offset];
-        if (first == '{') {
+        if (first == '{' || first == '[') {
             return true;
         }
         for (int i = offset; i < offset + length; i++) {
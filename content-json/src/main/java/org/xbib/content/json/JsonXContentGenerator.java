@@ -7,8 +7,10 @@ import org.xbib.content.XContent;
 import org.xbib.content.core.DefaultXContentBuilder;
 import org.xbib.content.XContentGenerator;
 import org.xbib.content.core.XContentHelper;
+import org.xbib.content.core.XContentService;
 import org.xbib.content.XContentParser;
 import org.xbib.content.io.BytesReference;
+import org.xbib.content.io.CompressedBytesReference;
 
 import java.io.IOException;
 import java.io.OutputStream;
@@ -45,6 +47,18 @@ public class JsonXContentGenerator extends AbstractXContentGenerator {
         delegate.writeRawField(fieldName, content, offset, length, outputStream);
     }
 
+    @Override
+    public void writeRawValue(BytesReference bytes, OutputStream outputStream) throws IOException {
+        // compressed content is spliced block by block after decompression
+        BytesReference value = CompressedBytesReference.isCompressed(bytes) ? new CompressedBytesReference(bytes) : bytes;
+        XContent xContent = XContentService.xContent(value);
+        if (xContent == null || xContent.name().equals(content().name())) {
+            delegate.writeRawValue(value, outputStream);
+        } else {
+            super.writeRawValue(value, outputStream);
+        }
+    }
+
     @Override
     public void writeValue(XContentBuilder builder) throws IOException {
         delegate.writeValue(builder);
@@ -173,6 +187,16 @@ public class JsonXContentGenerator extends AbstractXContentGenerator {
             jsonGenerator.writeNumber(bd);
         }
 
+        @Override
+        public boolean writesNumberText() {
+            return true;
+        }
+
+        @Override
+        public void writeNumber(char[] text, int offset, int len) throws IOException {
+            jsonGenerator.writeNumber(text, offset, len);
+        }
+
         @Override
         public void writeBoolean(boolean b) throws IOException {
             jsonGenerator.writeBoolean(b);
@@ -246,31 +270,31 @@ public class JsonXContentGenerator extends AbstractXContentGenerator {
 
         @Override
         public void writeRawField(String fieldName, byte[] content, OutputStream outputStream) throws IOException {
-            jsonGenerator.writeRaw(",\"");
-            jsonGenerator.writeRaw(fieldName);
-            jsonGenerator.writeRaw("\":");
-            flush();
-            outputStream.write(content);
+            writeRawField(fieldName, content, 0, content.length, outputStream);
         }
 
         @Override
         public void writeRawField(String fieldName, byte[] content, int offset, int length, OutputStream outputStream)
                 throws IOException {
-            jsonGenerator.writeRaw(",\"");
-            jsonGenerator.writeRaw(fieldName);
-            jsonGenerator.writeRaw("\":");
-            flush();
+            jsonGenerator.writeFieldName(fieldName);
+            startRawValue();
             outputStream.write(content, offset, length);
         }
 
-        public void writeRawField(String fieldName, BytesReference content, OutputStream outputStream) throws IOException {
-            jsonGenerator.writeRaw(",\"");
-            jsonGenerator.writeRaw(fieldName);
-            jsonGenerator.writeRaw("\":");
-            flush();
+        void writeRawValue(BytesReference content, OutputStream outputStream) throws IOException {
+            startRawValue();
             content.streamOutput(outputStream);
         }
 
+        /**
+         * Let the generator write the separator before a value, and flush it, so the value can be
+         * written into the output stream directly.
+         */
+        private void startRawValue() throws IOException {
+            jsonGenerator.writeRawValue("");
+            jsonGenerator.flush();
+        }
+
         @Override
         public void writeValue(XContentBuilder builder) throws IOException {
             jsonGenerator.writeRawValue(builder.string());
@@ -141,6 +141,16 @@ public class JsonXContentParser extends AbstractXContentParser {
         return parser.getBinaryValue();
     }
 
+    @Override
+    public long tokenOffset() {
+        return parser.currentTokenLocation().getByteOffset();
+    }
+
+    @Override
+    public boolean hasNumberText() {
+        return true;
+    }
+
     @Override
     public void close() throws IOException {
         parser.close();
@@ -166,7 +176,7 @@ public class JsonXContentParser extends AbstractXContentParser {
         throw new IllegalStateException("No matching token for number_type [" + numberType + "]");
     }
 
-    private Token convertToken(JsonToken token) {
+    protected Token convertToken(JsonToken token) {
         if (token == null) {
             return null;
         }
@@ -193,6 +203,8 @@ public class JsonXContentParser extends AbstractXContentParser {
                 return Token.END_ARRAY;
             case VALUE_EMBEDDED_OBJECT:
                 return Token.VALUE_EMBEDDED_OBJECT;
+            case NOT_AVAILABLE:
+                return Token.NOT_AVAILABLE;
             default:
                 break;
         }
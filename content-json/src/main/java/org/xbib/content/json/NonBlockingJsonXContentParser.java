@@ -0,0 +1,51 @@
+package org.xbib.content.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import org.xbib.content.NonBlockingXContentParser;
+import org.xbib.content.core.NonBlockingInput;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A non-blocking JSON parser, fed with input as it arrives.
+ */
+public class NonBlockingJsonXContentParser extends JsonXContentParser implements NonBlockingXContentParser {
+
+    private final NonBlockingInput input;
+
+    public NonBlockingJsonXContentParser(JsonParser parser) {
+        super(parser);
+        this.input = new NonBlockingInput(parser);
+    }
+
+    @Override
+    public Token nextToken() throws IOException {
+        return convertToken(input.nextToken());
+    }
+
+    @Override
+    public void skipChildren() throws IOException {
+        input.skipChildren();
+    }
+
+    @Override
+    public boolean needsInput() {
+        return input.needsInput();
+    }
+
+    @Override
+    public void feedInput(byte[] bytes, int offset, int length) throws IOException {
+        input.feedInput(bytes, offset, length);
+    }
+
+    @Override
+    public void feedInput(ByteBuffer buffer) throws IOException {
+        input.feedInput(buffer);
+    }
+
+    @Override
+    public void endOfInput() {
+        input.endOfInput();
+    }
+}
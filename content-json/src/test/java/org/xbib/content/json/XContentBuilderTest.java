@@ -1,24 +1,41 @@
 package org.xbib.content.json;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.xbib.content.json.JsonXContent.contentBuilder;
 
 import org.junit.jupiter.api.Test;
 import org.xbib.content.XContent;
 import org.xbib.content.XContentBuilder;
+import org.xbib.content.XContentParser;
+import org.xbib.content.core.DefaultXContentBuilder;
+import org.xbib.content.core.TimestampFormat;
+import org.xbib.content.core.ValueWriterRegistry;
+import org.xbib.content.core.XContentBuilderPool;
+import org.xbib.content.core.XContentHelper;
 import org.xbib.content.core.XContentService;
+import org.xbib.content.io.BufferSizePolicy;
+import org.xbib.content.io.BytesArray;
+import org.xbib.content.io.BytesStreamOutput;
+import org.xbib.content.io.CompositeBytesReference;
+import org.xbib.content.io.PageRecycler;
 import org.xbib.content.json.JsonXContent;
 
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  *
@@ -164,4 +181,190 @@ public class XContentBuilderTest {
         builder.timeseriesMap(map);
         assertEquals("{\"2020-10-05T00:00:00Z\":\"Hello world\"}", builder.string());
     }
+
+    @Test
+    public void testPagedBuilder() throws IOException {
+        PageRecycler recycler = new PageRecycler(64, 16);
+        XContentBuilder builder = DefaultXContentBuilder.builder(JsonXContent.jsonContent(), recycler);
+        builder.startObject();
+        for (int i = 0; i < 20; i++) {
+            builder.field("key" + i, "value" + i);
+        }
+        builder.endObject();
+        Map<String, ?> map = XContentHelper.convertToMap(((DefaultXContentBuilder) builder).bytes(), true);
+        assertEquals(20, map.size());
+        assertEquals("value19", map.get("key19"));
+        builder.close();
+        assertTrue(recycler.available() > 1);
+    }
+
+    @Test
+    public void testBuilderPool() throws IOException {
+        XContentBuilderPool pool = new XContentBuilderPool(JsonXContent.jsonContent(), 2, 1024);
+        for (int i = 0; i < 10; i++) {
+            DefaultXContentBuilder builder = pool.acquire();
+            builder.startObject().field("i", i).endObject();
+            assertEquals("{\"i\":" + i + "}", builder.string());
+            pool.release(builder);
+        }
+        assertEquals(1, pool.created());
+        assertEquals(9, pool.reused());
+        assertEquals(1, pool.size());
+        DefaultXContentBuilder large = pool.acquire();
+        large.startObject().field("large", new String(new char[4096]).replace('\0', 'x')).endObject();
+        large.string();
+        pool.release(large);
+        assertEquals(1, pool.discarded());
+        assertEquals(0, pool.size());
+    }
+
+    @Test
+    public void testBuilderPoolDefaults() throws IOException {
+        XContentBuilderPool pool = new XContentBuilderPool(JsonXContent.jsonContent(), 1, 1024);
+        ValueWriterRegistry registry = new ValueWriterRegistry().register(UUID.class, (b, value) ->
+                b.generator().writeString(value.toString().toUpperCase()));
+        DefaultXContentBuilder builder = DefaultXContentBuilder.canonicalBuilder(JsonXContent.jsonContent());
+        builder.timestampFormat(TimestampFormat.EPOCH_MILLIS).valueWriters(registry);
+        builder.startObject().field("b", 1).field("y", Instant.EPOCH).endObject();
+        assertEquals("{\"b\":1,\"y\":0}", builder.string());
+        pool.release(builder);
+        DefaultXContentBuilder next = pool.acquire();
+        assertTrue(next == builder);
+        UUID uuid = UUID.fromString("3b241101-e2bb-4255-8caf-4136c566a962");
+        next.startObject().field("z", 1).field("y", Instant.EPOCH).field("id", uuid).endObject();
+        assertEquals("{\"z\":1,\"y\":\"1970-01-01T00:00:00Z\",\"id\":\"3b241101-e2bb-4255-8caf-4136c566a962\"}",
+                next.string());
+        pool.release(next);
+    }
+
+    @Test
+    public void testValueWriters() throws IOException {
+        UUID uuid = UUID.fromString("3b241101-e2bb-4255-8caf-4136c566a962");
+        XContentBuilder builder = contentBuilder();
+        builder.startObject().field("id", uuid).field("list", List.of(1, "a", new int[] { 2 })).endObject();
+        assertEquals("{\"id\":\"3b241101-e2bb-4255-8caf-4136c566a962\",\"list\":[1,\"a\",[2]]}", builder.string());
+        ValueWriterRegistry registry = new ValueWriterRegistry().register(UUID.class, (b, value) ->
+                b.generator().writeString(value.toString().toUpperCase()));
+        builder = ((DefaultXContentBuilder) contentBuilder()).valueWriters(registry);
+        builder.startObject().field("id", uuid).endObject();
+        assertEquals("{\"id\":\"3B241101-E2BB-4255-8CAF-4136C566A962\"}", builder.string());
+        builder = contentBuilder();
+        builder.startObject().field("id", uuid).endObject();
+        assertEquals("{\"id\":\"3b241101-e2bb-4255-8caf-4136c566a962\"}", builder.string());
+    }
+
+    @Test
+    public void testTimestampFormat() throws IOException {
+        Instant instant = Instant.parse("2020-10-05T01:02:03.456Z");
+        DefaultXContentBuilder builder = (DefaultXContentBuilder) contentBuilder();
+        builder.startObject().field("i", instant).field("d", Date.from(instant)).endObject();
+        assertEquals("{\"i\":\"2020-10-05T01:02:03.456Z\",\"d\":\"2020-10-05T01:02:03.456Z\"}", builder.string());
+        builder = (DefaultXContentBuilder) contentBuilder();
+        builder.timestampFormat(TimestampFormat.EPOCH_MILLIS);
+        builder.startObject().field("i", instant).endObject();
+        assertEquals("{\"i\":1601859723456}", builder.string());
+        builder = (DefaultXContentBuilder) contentBuilder();
+        builder.timestampFormat(TimestampFormat.ISO_MICROS);
+        builder.timeseriesMap(Map.of(instant, 1));
+        assertEquals("{\"2020-10-05T01:02:03.456000Z\":1}", builder.string());
+    }
+
+    @Test
+    public void testRawValue() throws IOException {
+        BytesArray first = new BytesArray("{\"x\":[1,".getBytes(StandardCharsets.UTF_8));
+        BytesArray second = new BytesArray("2],\"y\":\"z\"}".getBytes(StandardCharsets.UTF_8));
+        CompositeBytesReference fragment = new CompositeBytesReference(first, second);
+        PageRecycler recycler = new PageRecycler(16, 16);
+        DefaultXContentBuilder builder =
+                (DefaultXContentBuilder) DefaultXContentBuilder.builder(JsonXContent.jsonContent(), recycler);
+        builder.startObject();
+        builder.rawField("a", fragment);
+        builder.field("b", 1);
+        builder.rawField("c", new BytesArray("[true]".getBytes(StandardCharsets.UTF_8)));
+        builder.startArray("d");
+        builder.rawValue(fragment);
+        builder.rawValue(fragment);
+        builder.endArray();
+        builder.field("e", new BytesArray(new byte[] { 1, 2, 3 }));
+        builder.endObject();
+        assertEquals("{\"a\":{\"x\":[1,2],\"y\":\"z\"},\"b\":1,\"c\":[true],"
+                + "\"d\":[{\"x\":[1,2],\"y\":\"z\"},{\"x\":[1,2],\"y\":\"z\"}],\"e\":\"AQID\"}", builder.string());
+        builder.close();
+        builder = new DefaultXContentBuilder(JsonXContent.jsonContent(), new BytesStreamOutput());
+        builder.startObject().rawField("a", new byte[] { '1' }, 0, 1).rawField("b", new byte[] { '2' }, 0, 1).endObject();
+        assertEquals("{\"a\":1,\"b\":2}", builder.string());
+    }
+
+    @Test
+    public void testBufferSizePolicy() throws IOException {
+        BufferSizePolicy policy = new BufferSizePolicy();
+        assertEquals(1024, policy.initialSize());
+        char[] chars = new char[50000];
+        Arrays.fill(chars, 'x');
+        String value = new String(chars);
+        for (int i = 0; i < 10; i++) {
+            DefaultXContentBuilder builder = DefaultXContentBuilder.builder(JsonXContent.jsonContent(), policy);
+            builder.startObject().field("a", value).endObject();
+            assertEquals(50008, builder.bytes().length());
+            builder.close();
+        }
+        assertEquals(10L, policy.samples());
+        assertEquals(50176, policy.initialSize());
+        assertTrue(policy.reallocationsAvoided() > 0L);
+        DefaultXContentBuilder builder = DefaultXContentBuilder.builder(JsonXContent.jsonContent(), policy);
+        builder.startObject().field("a", value).endObject();
+        builder.bytes();
+        assertEquals(50176, builder.capacity());
+        assertTrue(BufferSizePolicy.of("test") == BufferSizePolicy.of("test"));
+    }
+
+    @Test
+    public void testHashingCanonical() throws IOException {
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("b", 1.0);
+        first.put("a", List.of(new BigDecimal("2.50"), 3L, 1.1f));
+        first.put("c", Map.of("y", BigInteger.TEN, "x", 1e300));
+        DefaultXContentBuilder builder = DefaultXContentBuilder.hashingBuilder(JsonXContent.jsonContent(), true, true);
+        builder.map(first);
+        long hash = builder.hash();
+        byte[] digest = builder.digest();
+        assertEquals("{\"a\":[2.5,3,1.1],\"b\":1,\"c\":{\"x\":1.0E300,\"y\":10}}", builder.string());
+        String second = "{\"c\":{\"y\":10.0,\"x\":1e300},\"a\":[2.5,3,1.10],\"b\":1}";
+        builder.reset();
+        try (XContentParser parser = JsonXContent.jsonContent().createParser(second)) {
+            builder.copyCurrentStructure(parser);
+        }
+        assertEquals(hash, builder.hash());
+        assertArrayEquals(digest, builder.digest());
+        XContentBuilder plain = contentBuilder();
+        plain.map(first);
+        assertTrue(plain.string().startsWith("{\"b\":1.0,\"a\":[\"2.50\",3,1.1],"));
+        assertThrows(IllegalStateException.class, () -> ((DefaultXContentBuilder) plain).hash());
+    }
+
+    @Test
+    public void testCanonicalNested() throws IOException {
+        long[] hashes = new long[2];
+        String[] inputs = { "[{\"b\":1,\"a\":2}]", "[{\"a\":2,\"b\":1}]" };
+        for (int i = 0; i < inputs.length; i++) {
+            DefaultXContentBuilder builder =
+                    DefaultXContentBuilder.hashingBuilder(JsonXContent.jsonContent(), false, true);
+            try (XContentParser parser = JsonXContent.jsonContent().createParser(inputs[i])) {
+                builder.copyCurrentStructure(parser);
+            }
+            hashes[i] = builder.hash();
+            assertEquals("[{\"a\":2,\"b\":1}]", builder.string());
+        }
+        assertEquals(hashes[0], hashes[1]);
+        DefaultXContentBuilder builder = DefaultXContentBuilder.canonicalBuilder(JsonXContent.jsonContent());
+        builder.startObject().field("z", 1).startObject("y").field("d", 1.0).field("c", List.of(Map.of("f", 1)))
+                .endObject();
+        try (XContentParser parser = JsonXContent.jsonContent().createParser("{\"x\":{\"h\":1,\"g\":2}}")) {
+            parser.nextToken();
+            parser.nextToken();
+            builder.copyCurrentStructure(parser);
+        }
+        builder.endObject();
+        assertEquals("{\"x\":{\"g\":2,\"h\":1},\"y\":{\"c\":[{\"f\":1}],\"d\":1},\"z\":1}", builder.string());
+    }
 }
@@ -0,0 +1,117 @@
+package org.xbib.content.json;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.xbib.content.XContentParser;
+import org.xbib.content.core.DefaultXContentBuilder;
+import org.xbib.content.core.XContentBulkParser;
+import org.xbib.content.io.BytesArray;
+import org.xbib.content.io.BytesReference;
+import org.xbib.content.smile.SmileXContent;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class XContentBulkParserTest {
+
+    @Test
+    public void testOrderedAndUnordered() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        long sum = 0L;
+        for (int i = 0; i < 10000; i++) {
+            sb.append("{\"id\":").append(i).append(",\"name\":\"doc ").append(i).append("\"}\n");
+            sum += i;
+        }
+        BytesReference bytes = new BytesArray(sb.toString().getBytes(StandardCharsets.UTF_8));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            XContentBulkParser bulkParser = new XContentBulkParser(JsonXContent.jsonContent(), pool, 1024);
+            List<Map<String, Object>> maps = bulkParser.maps(bytes);
+            assertEquals(10000, maps.size());
+            for (int i = 0; i < maps.size(); i++) {
+                assertEquals(i, maps.get(i).get("id"));
+            }
+            AtomicLong total = new AtomicLong();
+            bulkParser.parseUnordered(bytes, parser -> parser.map().get("id"),
+                    id -> total.addAndGet((Integer) id));
+            assertEquals(sum, total.get());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testSmile() throws IOException {
+        // binary values with the end marker byte must not split documents
+        byte[] binary = { (byte) 0xff, 1, (byte) 0xff };
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < 1000; i++) {
+            DefaultXContentBuilder builder =
+                    (DefaultXContentBuilder) DefaultXContentBuilder.builder(SmileXContent.delimitedSmileContent());
+            builder.startObject().field("id", i).field("binary", binary).endObject();
+            builder.bytes().streamOutput(out);
+        }
+        BytesReference bytes = new BytesArray(out.toByteArray());
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            XContentBulkParser bulkParser = new XContentBulkParser(SmileXContent.delimitedSmileContent(), pool, 1024);
+            List<byte[]> values = bulkParser.parse(bytes, parser -> {
+                parser.nextToken();
+                parser.nextToken();
+                parser.nextToken();
+                parser.nextToken();
+                parser.nextToken();
+                return parser.binaryValue();
+            });
+            assertEquals(1000, values.size());
+            for (byte[] value : values) {
+                assertArrayEquals(binary, value);
+            }
+            List<Map<String, Object>> maps = bulkParser.maps(bytes);
+            for (int i = 0; i < maps.size(); i++) {
+                assertEquals(i, maps.get(i).get("id"));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testError() {
+        BytesReference bytes = new BytesArray("{\"a\":1}\n{\"a\":\n".getBytes(StandardCharsets.UTF_8));
+        XContentBulkParser bulkParser = new XContentBulkParser(JsonXContent.jsonContent());
+        assertThrows(IOException.class, () -> bulkParser.parse(bytes, XContentParser::map));
+    }
+
+    @Test
+    public void testErrorStopsRemainingChunks() {
+        StringBuilder sb = new StringBuilder("{\"id\":\n");
+        for (int i = 0; i < 10000; i++) {
+            sb.append("{\"id\":").append(i).append("}\n");
+        }
+        BytesReference bytes = new BytesArray(sb.toString().getBytes(StandardCharsets.UTF_8));
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            XContentBulkParser bulkParser = new XContentBulkParser(JsonXContent.jsonContent(), pool, 1024);
+            AtomicInteger count = new AtomicInteger();
+            assertThrows(IOException.class, () -> bulkParser.parseUnordered(bytes, XContentParser::map,
+                    map -> count.incrementAndGet()));
+            pool.shutdown();
+            pool.awaitQuiescence(10, TimeUnit.SECONDS);
+            // four chunks of 2500 documents, the three chunks after the failed one are not parsed
+            assertTrue(count.get() < 5000);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
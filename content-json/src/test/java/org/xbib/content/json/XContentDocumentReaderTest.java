@@ -0,0 +1,149 @@
+package org.xbib.content.json;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.xbib.content.XContentParser;
+import org.xbib.content.core.DefaultXContentBuilder;
+import org.xbib.content.core.XContentBulkParser;
+import org.xbib.content.core.XContentDocument;
+import org.xbib.content.core.XContentDocumentReader;
+import org.xbib.content.io.BytesArray;
+import org.xbib.content.io.BytesReference;
+import org.xbib.content.smile.SmileXContent;
+import org.xbib.content.yaml.YamlXContent;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class XContentDocumentReaderTest {
+
+    @Test
+    public void testDelimited() throws IOException {
+        String ndjson = "{\"a\":1}\n\n  {\"a\":2}\r\n{\"a\":\"x\\ny\"}";
+        BytesReference bytes = new BytesArray(ndjson.getBytes(StandardCharsets.UTF_8));
+        try (XContentDocumentReader reader = XContentDocumentReader.delimited(JsonXContent.jsonContent(),
+                new SlowInputStream(bytes.streamInput()))) {
+            List<XContentDocument> list = reader.stream().collect(Collectors.toList());
+            assertEquals(3, list.size());
+            assertEquals(2, list.get(1).map().get("a"));
+            assertEquals("x\ny", list.get(2).map().get("a"));
+            for (XContentDocument document : list) {
+                assertEquals(document.bytes().toUtf8(),
+                        bytes.slice((int) document.offset(), document.length()).toUtf8());
+            }
+            assertEquals(11, list.get(1).offset());
+        }
+    }
+
+    @Test
+    public void testDelimitedSmile() throws IOException {
+        // binary values with the end marker byte, and more field names than fit in a one-byte reference
+        byte[] binary = { (byte) 0xff, 0, (byte) 0xff, (byte) 0xfe };
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < 3; i++) {
+            DefaultXContentBuilder builder =
+                    (DefaultXContentBuilder) DefaultXContentBuilder.builder(SmileXContent.delimitedSmileContent());
+            builder.startObject().field("i", i).field("binary", binary);
+            for (int j = 0; j < 300; j++) {
+                builder.field("f" + j, j);
+            }
+            builder.endObject();
+            builder.bytes().streamOutput(out);
+        }
+        BytesReference bytes = new BytesArray(out.toByteArray());
+        try (XContentDocumentReader reader = XContentDocumentReader.delimited(SmileXContent.delimitedSmileContent(),
+                new SlowInputStream(bytes.streamInput()))) {
+            List<XContentDocument> list = reader.stream().collect(Collectors.toList());
+            assertEquals(3, list.size());
+            for (int i = 0; i < 3; i++) {
+                XContentDocument document = list.get(i);
+                Map<String, Object> map = document.map();
+                assertEquals(i, map.get("i"));
+                assertEquals(299, map.get("f299"));
+                try (XContentParser parser = document.createParser()) {
+                    parser.nextToken();
+                    parser.nextToken();
+                    parser.nextToken();
+                    parser.nextToken();
+                    assertEquals("binary", parser.currentName());
+                    parser.nextToken();
+                    assertArrayEquals(binary, parser.binaryValue());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDelimitedSmileOptIn() throws IOException {
+        // plain Smile keeps raw binary values and has no end marker, so it can not be split
+        DefaultXContentBuilder builder = (DefaultXContentBuilder) SmileXContent.contentBuilder();
+        builder.startObject().field("binary", new byte[] { (byte) 0xff }).endObject();
+        byte[] bytes = builder.bytes().toBytes();
+        assertNotEquals((byte) 0xff, bytes[bytes.length - 1]);
+        assertThrows(IllegalArgumentException.class, () ->
+                XContentDocumentReader.delimited(SmileXContent.smileContent(), new BytesArray(bytes)));
+    }
+
+    @Test
+    public void testDelimitedMultiLine() {
+        BytesReference bytes = new BytesArray("---\na: 1\nb: 2\n".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IllegalArgumentException.class, () ->
+                XContentDocumentReader.delimited(YamlXContent.yamlContent(), bytes));
+        assertThrows(IllegalArgumentException.class, () -> new XContentBulkParser(YamlXContent.yamlContent()));
+    }
+
+    @Test
+    public void testArray() throws IOException {
+        String json = " [ {\"a\":[1,{\"b\":\"]}\"}]}, \"s\\\"\" ,42,true,[1,2],{} ] ";
+        BytesReference bytes = new BytesArray(json.getBytes(StandardCharsets.UTF_8));
+        try (Stream<XContentDocument> stream = XContentDocumentReader.array(JsonXContent.jsonContent(),
+                new SlowInputStream(bytes.streamInput())).stream()) {
+            List<String> list = stream.map(d -> bytes.slice((int) d.offset(), d.length()).toUtf8())
+                    .collect(Collectors.toList());
+            assertEquals(List.of("{\"a\":[1,{\"b\":\"]}\"}]}", "\"s\\\"\"", "42", "true", "[1,2]", "{}"), list);
+        }
+        XContentDocumentReader reader = XContentDocumentReader.array(JsonXContent.jsonContent(), bytes);
+        assertEquals("]}", ((List<?>) reader.next().map().get("a")).get(1).toString().substring(3, 5));
+    }
+
+    @Test
+    public void testMaxDocumentSize() {
+        byte[] b = ("{\"a\":\"" + "x".repeat(100000) + "\"}\n").getBytes(StandardCharsets.UTF_8);
+        XContentDocumentReader reader = XContentDocumentReader.delimited(JsonXContent.jsonContent(),
+                new ByteArrayInputStream(b), 50000);
+        assertThrows(UncheckedIOException.class, reader::hasNext);
+    }
+
+    /**
+     * Returns few bytes per read, to exercise buffer refills.
+     */
+    private static class SlowInputStream extends InputStream {
+
+        private final InputStream in;
+
+        SlowInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return in.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return in.read(b, off, Math.min(len, 3));
+        }
+    }
+}
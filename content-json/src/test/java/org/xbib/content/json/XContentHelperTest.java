@@ -0,0 +1,340 @@
+package org.xbib.content.json;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.xbib.content.XContentBuilder;
+import org.xbib.content.XContentParser;
+import org.xbib.content.core.ArrayMap;
+import org.xbib.content.core.DefaultXContentBuilder;
+import org.xbib.content.core.FrozenMap;
+import org.xbib.content.core.LazyMap;
+import org.xbib.content.core.MapFactory;
+import org.xbib.content.core.OpenHashMap;
+import org.xbib.content.core.XContentHelper;
+import org.xbib.content.core.XContentMetrics;
+import org.xbib.content.core.XContentService;
+import org.xbib.content.io.BytesArray;
+import org.xbib.content.io.ByteBufferBytesReference;
+import org.xbib.content.io.BytesReference;
+import org.xbib.content.io.BytesStreamOutput;
+import org.xbib.content.io.CompressedStreamOutput;
+import org.xbib.content.io.MappedBytesReference;
+import org.xbib.content.smile.SmileXContent;
+import org.xbib.content.yaml.YamlXContent;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+public class XContentHelperTest {
+
+    private static final String JSON = "{\"title\":\"Hello\",\"identifiers\":{\"isbn\":\"3-16-148410-0\"},\"year\":2020}";
+
+    @Test
+    public void testDirectByteBuffer() throws IOException {
+        byte[] b = JSON.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(b.length);
+        buffer.put(b).flip();
+        BytesReference bytes = new ByteBufferBytesReference(buffer);
+        Map<String, ?> map = XContentHelper.convertToMap(bytes, true);
+        assertEquals("{title=Hello, identifiers={isbn=3-16-148410-0}, year=2020}", map.toString());
+        assertEquals(JSON, XContentHelper.parseToString(bytes, false));
+        try (XContentParser parser = XContentHelper.createParser(bytes.slice(31, 24))) {
+            assertEquals("{isbn=3-16-148410-0}", parser.map().toString());
+        }
+    }
+
+    @Test
+    public void testMappedFile() throws IOException {
+        Path path = Files.createTempFile("mapped", ".json");
+        try {
+            Files.writeString(path, JSON + "\n" + JSON, StandardCharsets.UTF_8);
+            MappedBytesReference bytes = MappedBytesReference.map(path);
+            assertEquals(JSON + "\n" + JSON, bytes.toUtf8());
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedBytesReference chunked = MappedBytesReference.map(channel, 0L, JSON.length(), 16);
+                Map<String, ?> map = XContentHelper.convertToMap(chunked, true);
+                assertEquals(2020, map.get("year"));
+                List<MappedBytesReference> regions = MappedBytesReference.mapRegions(channel, 0L, channel.size(),
+                        JSON.length() + 1);
+                assertEquals(2, regions.size());
+                assertEquals(JSON, XContentHelper.parseToString(regions.get(1), false));
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testDetection() throws IOException {
+        assertEquals(JsonXContent.jsonContent().name(), XContentService.xContent("  \n" + JSON).name());
+        assertEquals(JsonXContent.jsonContent().name(), XContentService.xContent("[1,2,3]").name());
+        assertNull(XContentService.xContent("hello world"));
+        byte[] b = ("\t" + JSON).getBytes(StandardCharsets.UTF_8);
+        assertEquals(JsonXContent.jsonContent().name(),
+                XContentService.xContent(new ByteBufferBytesReference(ByteBuffer.wrap(b))).name());
+        InputStream in = new ByteArrayInputStream(b);
+        assertEquals(JsonXContent.jsonContent().name(), XContentService.xContent(in).name());
+        assertEquals('\t', in.read());
+        try (XContentParser parser = XContentHelper.createParser(new ByteArrayInputStream(b))) {
+            assertEquals(2020, parser.map().get("year"));
+        }
+    }
+
+    @Test
+    public void testLazyMap() throws IOException {
+        String json = "{ \"a\" : 1, \"b\":\"x,y\" ,\"c\":{\"d\":[1, 2.5, {\"e\":null}, \"f\"]},\"g\":true,"
+                + "\"h\":12345678901,\"a\":-3.0e2, \"i\":[], \"j\":{}, \"k\":7, \"l\":8, \"m\":9, \"n\":10 }";
+        BytesReference bytes = new BytesArray(json.getBytes(StandardCharsets.UTF_8));
+        Map<String, Object> lazy = XContentHelper.convertToLazyMap(bytes);
+        assertTrue(lazy instanceof LazyMap);
+        assertEquals(11, lazy.size());
+        assertEquals(-300.0, lazy.get("a"));
+        assertEquals("x,y", lazy.get("b"));
+        assertEquals(12345678901L, lazy.get("h"));
+        assertEquals(10, lazy.get("n"));
+        assertNull(lazy.get("z"));
+        assertEquals(XContentHelper.convertToMap(bytes, true), lazy);
+        assertEquals("{d=[1, 2.5, {e=null}, f]}", lazy.get("c").toString());
+        assertThrows(UnsupportedOperationException.class, () -> lazy.put("z", 1));
+    }
+
+    @Test
+    public void testFiltering() throws IOException {
+        String json = "{\"title\":\"Hello\",\"identifiers\":{\"isbn\":\"3-16-148410-0\",\"issn\":\"1234\"},"
+                + "\"holdings\":{\"a\":{\"location\":\"here\",\"shelf\":1},\"b\":{\"shelf\":2},"
+                + "\"c\":[{\"location\":\"there\"},{\"x\":1}]},\"year\":2020}";
+        BytesReference bytes = new BytesArray(json.getBytes(StandardCharsets.UTF_8));
+        Map<String, ?> map = XContentHelper.convertToMap(bytes, true,
+                List.of("title", "identifiers.*", "holdings.*.location"), null);
+        assertEquals("{title=Hello, identifiers={isbn=3-16-148410-0, issn=1234}, "
+                + "holdings={a={location=here}, c=[{location=there}]}}", map.toString());
+        map = XContentHelper.convertToMap(bytes, true, List.of("ident*"), List.of("identifiers.issn"));
+        assertEquals("{identifiers={isbn=3-16-148410-0}}", map.toString());
+        map = XContentHelper.convertToMap(bytes, true, null, List.of("holdings", "title"));
+        assertEquals("{identifiers={isbn=3-16-148410-0, issn=1234}, year=2020}", map.toString());
+        try (XContentParser parser = XContentHelper.createParser(bytes);
+             DefaultXContentBuilder builder =
+                     new DefaultXContentBuilder(JsonXContent.jsonContent(), new BytesStreamOutput())) {
+            parser.nextToken();
+            XContentHelper.copyCurrentStructure(builder.generator(), parser, List.of("holdings.c"), null);
+            assertEquals("{\"holdings\":{\"c\":[{\"location\":\"there\"},{\"x\":1}]}}", builder.string());
+        }
+    }
+
+    @Test
+    public void testFilteringArrays() throws IOException {
+        String json = "{\"title\":\"Hello\",\"identifiers\":{\"isbn\":\"3-16-148410-0\",\"issn\":\"1234\"},"
+                + "\"holdings\":[{\"location\":\"here\",\"shelf\":1},{\"shelf\":2},{\"location\":\"there\"}],"
+                + "\"year\":2020}";
+        BytesReference bytes = new BytesArray(json.getBytes(StandardCharsets.UTF_8));
+        // arrays do not add to the path, the objects in holdings have the path holdings
+        Map<String, ?> map = XContentHelper.convertToMap(bytes, true,
+                List.of("title", "identifiers.*", "holdings.location"), null);
+        assertEquals("{title=Hello, identifiers={isbn=3-16-148410-0, issn=1234}, "
+                + "holdings=[{location=here}, {location=there}]}", map.toString());
+        map = XContentHelper.convertToMap(bytes, true, List.of("holdings.*"), List.of("holdings.shelf"));
+        assertEquals("{holdings=[{location=here}, {location=there}]}", map.toString());
+        // a * does not match an array element
+        map = XContentHelper.convertToMap(bytes, true, List.of("title", "holdings.*.location"), null);
+        assertEquals("{title=Hello}", map.toString());
+    }
+
+    @Test
+    public void testCompressed() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CompressedStreamOutput output = new CompressedStreamOutput(out, 16, Deflater.DEFAULT_COMPRESSION)) {
+            output.write(JSON.getBytes(StandardCharsets.UTF_8));
+        }
+        BytesReference bytes = new BytesArray(out.toByteArray());
+        assertEquals("json", XContentService.xContent(bytes).name());
+        assertEquals(XContentHelper.convertToMap(JSON), XContentHelper.convertToMap(bytes, true));
+        try (XContentParser parser = XContentHelper.createParser(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(XContentHelper.convertToMap(JSON), parser.mapOrdered());
+        }
+        DefaultXContentBuilder builder = new DefaultXContentBuilder(JsonXContent.jsonContent(), new BytesStreamOutput());
+        builder.startObject();
+        builder.rawField("a", bytes);
+        builder.endObject();
+        assertEquals("{\"a\":" + JSON + "}", builder.string());
+    }
+
+    @Test
+    public void testMetrics() throws IOException {
+        XContentMetrics metrics = XContentMetrics.of("json");
+        XContentMetrics.setEnabled(true);
+        try {
+            metrics.reset();
+            XContentHelper.convertToMap(new BytesArray(JSON.getBytes(StandardCharsets.UTF_8)), true);
+            assertEquals(JSON.length(), metrics.bytesIn());
+            assertEquals(11L, metrics.tokensParsed());
+            assertEquals(1L, metrics.documentsParsed());
+            XContentBuilder builder = DefaultXContentBuilder.builder(JsonXContent.jsonContent());
+            builder.startObject().field("a", 1).field("b", "c").endObject();
+            assertEquals("{\"a\":1,\"b\":\"c\"}", builder.string());
+            builder.close();
+            assertEquals(15L, metrics.bytesOut());
+            assertEquals(6L, metrics.tokensGenerated());
+            assertEquals(1L, metrics.documentsGenerated());
+            long[] histogram = metrics.parseLatencies();
+            assertEquals(1L, Arrays.stream(histogram).sum());
+            assertTrue(metrics.parseLatency(50.0d) > 0L);
+            assertTrue(metrics.documentsPerSecond() > 0.0d);
+        } finally {
+            XContentMetrics.setEnabled(false);
+            metrics.reset();
+        }
+        XContentHelper.convertToMap(new BytesArray(JSON.getBytes(StandardCharsets.UTF_8)), true);
+        assertEquals(0L, metrics.documentsParsed());
+    }
+
+    @Test
+    public void testMetricsStreams() throws IOException {
+        XContentMetrics json = XContentMetrics.of("json");
+        XContentMetrics smile = XContentMetrics.of("smile");
+        byte[] data = JSON.getBytes(StandardCharsets.UTF_8);
+        XContentMetrics.setEnabled(true);
+        try {
+            json.reset();
+            smile.reset();
+            try (XContentParser parser = XContentHelper.createParser(new ByteArrayInputStream(data))) {
+                parser.map();
+            }
+            assertEquals(data.length, json.bytesIn());
+            assertEquals(1L, json.documentsParsed());
+            json.reset();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            XContentHelper.transcode(JsonXContent.jsonContent(), SmileXContent.smileContent(),
+                    new ByteArrayInputStream(data), out);
+            assertEquals(data.length, json.bytesIn());
+            assertEquals(out.size(), smile.bytesOut());
+            assertEquals(11L, smile.tokensGenerated());
+            assertEquals(1L, smile.documentsGenerated());
+            out.reset();
+            json.reset();
+            XContentBuilder builder = new DefaultXContentBuilder(JsonXContent.jsonContent(), out);
+            builder.startObject().field("a", 1).field("b", "c").endObject();
+            builder.close();
+            assertEquals("{\"a\":1,\"b\":\"c\"}", out.toString(StandardCharsets.UTF_8));
+            assertEquals(out.size(), json.bytesOut());
+            assertEquals(1L, json.documentsGenerated());
+        } finally {
+            XContentMetrics.setEnabled(false);
+            json.reset();
+            smile.reset();
+        }
+    }
+
+    @Test
+    public void testMapFactory() {
+        BytesReference bytes = new BytesArray(JSON.getBytes(StandardCharsets.UTF_8));
+        Map<String, ?> expected = XContentHelper.convertToMap(bytes, true);
+        for (MapFactory mapFactory : List.of(MapFactory.compact(), MapFactory.openHash(), MapFactory.frozen())) {
+            Map<String, Object> map = XContentHelper.convertToMap(bytes, mapFactory);
+            assertEquals(expected, map);
+            assertEquals(List.copyOf(expected.keySet()), List.copyOf(map.keySet()));
+        }
+        Map<String, Object> map = XContentHelper.convertToMap(bytes, MapFactory.frozen());
+        assertTrue(map instanceof FrozenMap);
+        assertTrue(map.get("identifiers") instanceof FrozenMap);
+        assertTrue(XContentHelper.convertToMap(bytes, MapFactory.compact()) instanceof ArrayMap);
+    }
+
+    @Test
+    public void testMapFactoryLargeObject() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < 100000; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("\"f").append(i).append("\":").append(i);
+        }
+        sb.append(",\"f7\":-1}");
+        BytesReference bytes = new BytesArray(sb.toString().getBytes(StandardCharsets.UTF_8));
+        for (MapFactory mapFactory : List.of(MapFactory.compact(), MapFactory.frozen())) {
+            Map<String, Object> map = XContentHelper.convertToMap(bytes, mapFactory);
+            assertEquals(100000, map.size());
+            assertEquals(-1, map.get("f7"));
+            assertEquals(99999, map.get("f99999"));
+            assertEquals("f0", map.keySet().iterator().next());
+        }
+        assertTrue(XContentHelper.convertToMap(bytes, MapFactory.compact()) instanceof OpenHashMap);
+    }
+
+    @Test
+    public void testTranscode() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        InputStream in = new ByteArrayInputStream(JSON.getBytes(StandardCharsets.UTF_8));
+        XContentHelper.transcode(JsonXContent.jsonContent(), JsonXContent.jsonContent(), in, out);
+        assertEquals(JSON, out.toString(StandardCharsets.UTF_8));
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            sb.append("{\"a\":[");
+        }
+        sb.append("1.5E300,12345678901234567890,\"x\",true,null");
+        for (int i = 0; i < 200; i++) {
+            sb.append("]}");
+        }
+        String deep = sb.toString();
+        try (XContentParser parser = JsonXContent.jsonContent().createParser(deep);
+             DefaultXContentBuilder builder =
+                     new DefaultXContentBuilder(JsonXContent.jsonContent(), new BytesStreamOutput())) {
+            parser.nextToken();
+            XContentHelper.copyCurrentStructure(builder.generator(), parser);
+            assertEquals(deep, builder.string());
+            assertEquals(XContentParser.Token.END_OBJECT, parser.currentToken());
+            assertNull(parser.nextToken());
+        }
+    }
+
+    @Test
+    public void testTranscodeDecimals() throws IOException {
+        String json = "{\"a\":1.10,\"b\":3.14159265358979323846264338327950288,\"c\":1.5,\"d\":-0.0,\"e\":1.5E300}";
+        // from text to text, the digits of numbers are copied as they are
+        ByteArrayOutputStream yaml = new ByteArrayOutputStream();
+        XContentHelper.transcode(JsonXContent.jsonContent(), YamlXContent.yamlContent(),
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), yaml);
+        assertEquals("---\na: 1.10\nb: 3.14159265358979323846264338327950288\nc: 1.5\nd: -0.0\ne: 1.5E300\n",
+                yaml.toString(StandardCharsets.UTF_8));
+        try (XContentParser parser = JsonXContent.jsonContent().createParser(json)) {
+            DefaultXContentBuilder builder = (DefaultXContentBuilder) JsonXContent.contentBuilder();
+            parser.nextToken();
+            XContentHelper.copyCurrentStructure(builder.generator(), parser, List.of("a", "b"), null);
+            assertEquals("{\"a\":1.10,\"b\":3.14159265358979323846264338327950288}", builder.string());
+        }
+        // into binary, decimals are doubles
+        ByteArrayOutputStream smile = new ByteArrayOutputStream();
+        XContentHelper.transcode(JsonXContent.jsonContent(), SmileXContent.smileContent(),
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), smile);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        XContentHelper.transcode(SmileXContent.smileContent(), JsonXContent.jsonContent(),
+                new ByteArrayInputStream(smile.toByteArray()), out);
+        assertEquals("{\"a\":1.1,\"b\":3.141592653589793,\"c\":1.5,\"d\":-0.0,\"e\":1.5E300}",
+                out.toString(StandardCharsets.UTF_8));
+        // unless lossless decimals are asked for
+        try (XContentParser parser = JsonXContent.jsonContent().createParser(json)) {
+            parser.losslessDecimals(true);
+            DefaultXContentBuilder builder = (DefaultXContentBuilder) SmileXContent.contentBuilder();
+            builder.copyCurrentStructure(parser);
+            out.reset();
+            XContentHelper.transcode(SmileXContent.smileContent(), JsonXContent.jsonContent(),
+                    builder.bytes().streamInput(), out);
+            assertTrue(out.toString(StandardCharsets.UTF_8)
+                    .startsWith("{\"a\":1.10,\"b\":3.14159265358979323846264338327950288,"));
+        }
+    }
+}
@@ -1,9 +1,19 @@
 package org.xbib.content.json;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.Test;
+import org.xbib.content.NonBlockingXContentParser;
 import org.xbib.content.XContentParser;
+import org.xbib.content.core.DefaultXContentBuilder;
+import org.xbib.content.smile.SmileXContent;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -22,4 +32,120 @@ public class XContentParserTest {
         map = parser.mapAndClose();
         logger.log(Level.INFO, map.getClass().getName().toString());
     }
+
+    @Test
+    public void nonBlockingParse() throws IOException {
+        byte[] b = "{\"a\":\"hello\",\"skip\":{\"x\":[1,2,{\"y\":3}]},\"b\":[true,null,42]}"
+                .getBytes(StandardCharsets.UTF_8);
+        NonBlockingXContentParser parser = JsonXContent.jsonContent().createNonBlockingParser();
+        assertTrue(parser.needsInput());
+        assertEquals(XContentParser.Token.NOT_AVAILABLE, parser.nextToken());
+        List<String> tokens = new ArrayList<>();
+        int chunks = 0;
+        int pos = 0;
+        while (true) {
+            XContentParser.Token t = parser.nextToken();
+            if (t == XContentParser.Token.NOT_AVAILABLE) {
+                if (pos < b.length) {
+                    ByteBuffer buffer = ByteBuffer.allocateDirect(3);
+                    buffer.put(b, pos, Math.min(3, b.length - pos)).flip();
+                    pos += buffer.remaining();
+                    parser.feedInput(buffer);
+                    assertEquals(0, buffer.remaining());
+                    chunks++;
+                } else {
+                    parser.endOfInput();
+                }
+                continue;
+            }
+            if (t == null) {
+                break;
+            }
+            if (t == XContentParser.Token.FIELD_NAME) {
+                tokens.add(parser.currentName());
+                if ("skip".equals(parser.currentName())) {
+                    XContentParser.Token value;
+                    while ((value = parser.nextToken()) == XContentParser.Token.NOT_AVAILABLE) {
+                        parser.feedInput(b, pos, 3);
+                        pos += 3;
+                    }
+                    assertEquals(XContentParser.Token.START_OBJECT, value);
+                    parser.skipChildren();
+                }
+            } else if (t.isValue()) {
+                tokens.add(parser.text());
+            } else {
+                tokens.add(t.name());
+            }
+        }
+        parser.close();
+        assertTrue(chunks > 10);
+        assertEquals("[START_OBJECT, a, hello, skip, b, START_ARRAY, true, VALUE_NULL, 42, END_ARRAY, END_OBJECT]",
+                tokens.toString());
+    }
+
+    @Test
+    public void nonBlockingParseMap() throws IOException {
+        NonBlockingXContentParser parser = JsonXContent.jsonContent().createNonBlockingParser();
+        byte[] b = "{\"a\":1,\"b\":[2,3]}".getBytes(StandardCharsets.UTF_8);
+        parser.feedInput(b, 0, 3);
+        assertEquals(XContentParser.Token.START_OBJECT, parser.nextToken());
+        assertThrows(IllegalStateException.class, () -> parser.feedInput(b, 3, b.length - 3));
+        assertEquals(XContentParser.Token.NOT_AVAILABLE, parser.nextToken());
+        parser.feedInput(b, 3, b.length - 3);
+        parser.endOfInput();
+        assertEquals("{a=1, b=[2, 3]}", parser.mapOrdered().toString());
+        assertEquals(XContentParser.Token.END_OBJECT, parser.currentToken());
+        assertNull(parser.nextToken());
+        parser.close();
+    }
+
+    @Test
+    public void nonBlockingParseSmile() throws IOException {
+        DefaultXContentBuilder builder = (DefaultXContentBuilder) SmileXContent.contentBuilder();
+        builder.startObject().field("a", "hello").startObject("skip").startArray("x").value(1).value(2).endArray()
+                .endObject().startArray("b").value(true).nullValue().value(42).endArray().field("c", 1.5).endObject();
+        byte[] b = builder.bytes().toBytes();
+        NonBlockingXContentParser parser = SmileXContent.smileContent().createNonBlockingParser();
+        List<String> tokens = new ArrayList<>();
+        int chunks = 0;
+        int pos = 0;
+        while (true) {
+            XContentParser.Token t = parser.nextToken();
+            if (t == XContentParser.Token.NOT_AVAILABLE) {
+                if (pos < b.length) {
+                    int length = Math.min(2, b.length - pos);
+                    parser.feedInput(b, pos, length);
+                    pos += length;
+                    chunks++;
+                } else {
+                    parser.endOfInput();
+                }
+                continue;
+            }
+            if (t == null) {
+                break;
+            }
+            if (t == XContentParser.Token.FIELD_NAME) {
+                tokens.add(parser.currentName());
+                if ("skip".equals(parser.currentName())) {
+                    XContentParser.Token value;
+                    while ((value = parser.nextToken()) == XContentParser.Token.NOT_AVAILABLE) {
+                        parser.feedInput(b, pos, 2);
+                        pos += 2;
+                    }
+                    assertEquals(XContentParser.Token.START_OBJECT, value);
+                    parser.skipChildren();
+                }
+            } else if (t.isValue()) {
+                tokens.add(parser.text());
+            } else {
+                tokens.add(t.name());
+            }
+        }
+        parser.close();
+        assertTrue(chunks > 10);
+        assertEquals("[START_OBJECT, a, hello, skip, b, START_ARRAY, true, VALUE_NULL, 42, END_ARRAY, c, 1.5, END_OBJECT]",
+                tokens.toString());
+    }
 }
@@ -2,6 +2,7 @@ package org.xbib.content.rdf;
 
 import org.xbib.content.io.BytesReference;
 import org.xbib.content.io.BytesStreamOutput;
+import org.xbib.content.io.PagedBytesStreamOutput;
 import org.xbib.content.resource.IRI;
 
 import java.io.IOException;
@@ -27,7 +28,8 @@ public class RdfContentBuilder<P extends RdfContentParams> implements RdfContent
 
     public RdfContentBuilder(RdfContent<P> rdfContent, P rdfContentParams, OutputStream out) throws IOException {
         this.out = out;
-        this.generator = rdfContent.createGenerator(out);
+        this.generator = rdfContent.createGenerator(out instanceof PagedBytesStreamOutput ?
+                ((PagedBytesStreamOutput) out).nonClosingView() : out);
         this.generator.setParams(rdfContentParams);
     }
 
@@ -50,10 +52,13 @@ public class RdfContentBuilder<P extends RdfContentParams> implements RdfContent
     @Override
     public void close() throws IOException {
         generator.close();
+        if (out instanceof PagedBytesStreamOutput) {
+            out.close();
+        }
     }
 
     public BytesReference bytes() throws IOException {
-        close();
+        generator.close();
         return ((BytesStreamOutput) out).bytes();
     }
 
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.dataformat.smile.SmileConstants;
 import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.xbib.content.NonBlockingXContentParser;
 import org.xbib.content.XContent;
 import org.xbib.content.XContentBuilder;
 import org.xbib.content.core.DefaultXContentBuilder;
@@ -24,20 +25,34 @@ public class SmileXContent implements XContent {
 
     private static final SmileXContent smileXContent;
 
+    private static final SmileXContent delimitedSmileXContent;
+
     private static final SmileFactory smileFactory;
 
     static {
         smileFactory = new SmileFactory();
         // for now, this is an overhead, might make sense for web sockets
         smileFactory.configure(SmileGenerator.Feature.ENCODE_BINARY_AS_7BIT, false);
-        smileXContent = new SmileXContent();
+        // for streams of documents, binary values are encoded in 7 bits so the end marker can not occur
+        // in the content, and the end marker is written after each document, see streamSeparator()
+        SmileFactory delimitedSmileFactory = new SmileFactory();
+        delimitedSmileFactory.configure(SmileGenerator.Feature.ENCODE_BINARY_AS_7BIT, true);
+        delimitedSmileFactory.configure(SmileGenerator.Feature.WRITE_END_MARKER, true);
+        smileXContent = new SmileXContent(smileFactory);
+        delimitedSmileXContent = new SmileXContent(delimitedSmileFactory);
     }
 
+    private final SmileFactory factory;
+
     /**
      * Empty constructor for {@link java.util.ServiceLoader}.
      */
     public SmileXContent() {
-        // for ServiceLoader
+        this(smileFactory);
+    }
+
+    private SmileXContent(SmileFactory factory) {
+        this.factory = factory;
     }
 
     public static SmileFactory smileFactory() {
@@ -48,6 +63,17 @@ public class SmileXContent implements XContent {
         return smileXContent;
     }
 
+    /**
+     * Return the Smile content type for streams of documents, which can be read by
+     * {@link org.xbib.content.core.XContentDocumentReader#delimited} and
+     * {@link org.xbib.content.core.XContentBulkParser}. Its generators write the end marker after each
+     * document and encode binary values in 7 bits, so binary values are about 8/7 of their size.
+     * @return the Smile content type for streams of documents
+     */
+    public static SmileXContent delimitedSmileContent() {
+        return delimitedSmileXContent;
+    }
+
     public static XContentBuilder contentBuilder() throws IOException {
         return DefaultXContentBuilder.builder(smileXContent);
     }
@@ -61,9 +87,34 @@ public class SmileXContent implements XContent {
         return "smile";
     }
 
+    @Override
+    public byte[] leadingBytes() {
+        return new byte[] { SmileConstants.HEADER_BYTE_1 };
+    }
+
+    /**
+     * Smile documents are separated by the end marker.
+     * @return the end marker
+     */
+    @Override
+    public byte streamSeparator() {
+        return SmileConstants.BYTE_MARKER_END_OF_CONTENT;
+    }
+
+    /**
+     * Only documents written by the generators of {@link #delimitedSmileContent()} end with the end marker
+     * and never contain it, Smile with raw binary values may contain the end marker and can not be split.
+     * @return true if the generators write the end marker and encode binary values in 7 bits
+     */
+    @Override
+    public boolean hasStreamSeparator() {
+        return factory.isEnabled(SmileGenerator.Feature.WRITE_END_MARKER) &&
+                factory.isEnabled(SmileGenerator.Feature.ENCODE_BINARY_AS_7BIT);
+    }
+
     @Override
     public XContentGenerator createGenerator(OutputStream os) throws IOException {
-        return new SmileXContentGenerator(smileFactory.createGenerator(os, JsonEncoding.UTF8));
+        return new SmileXContentGenerator(factory.createGenerator(os, JsonEncoding.UTF8));
     }
 
     @Override
@@ -73,23 +124,28 @@ public class SmileXContent implements XContent {
 
     @Override
     public XContentParser createParser(String content) throws IOException {
-        return new SmileXContentParser(smileFactory
+        return new SmileXContentParser(factory
                 .createParser(content.getBytes(StandardCharsets.UTF_8)));
     }
 
     @Override
     public XContentParser createParser(InputStream is) throws IOException {
-        return new SmileXContentParser(smileFactory.createParser(is));
+        return new SmileXContentParser(factory.createParser(is));
     }
 
     @Override
     public XContentParser createParser(byte[] data) throws IOException {
-        return new SmileXContentParser(smileFactory.createParser(data));
+        return new SmileXContentParser(factory.createParser(data));
     }
 
     @Override
     public XContentParser createParser(byte[] data, int offset, int length) throws IOException {
-        return new SmileXContentParser(smileFactory.createParser(data, offset, length));
+        return new SmileXContentParser(factory.createParser(data, offset, length));
+    }
+
+    @Override
+    public NonBlockingXContentParser createNonBlockingParser() throws IOException {
+        return new NonBlockingSmileXContentParser(factory.createNonBlockingByteArrayParser());
     }
 
     @Override
@@ -94,7 +94,8 @@ public class SmileXContentGenerator extends AbstractXContentGenerator {
 
         @Override
         public XContent content() {
-            return SmileXContent.smileContent();
+            return smileGenerator.isEnabled(SmileGenerator.Feature.WRITE_END_MARKER) ?
+                    SmileXContent.delimitedSmileContent() : SmileXContent.smileContent();
         }
 
         @Override
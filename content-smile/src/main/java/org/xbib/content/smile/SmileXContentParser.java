@@ -16,12 +16,16 @@ import java.util.LinkedHashMap;
 
 public class SmileXContentParser extends AbstractXContentParser {
 
-    private final SmileParser parser;
+    protected final JsonParser parser;
 
     public SmileXContentParser(SmileParser parser) {
         this.parser = parser;
     }
 
+    protected SmileXContentParser(JsonParser parser) {
+        this.parser = parser;
+    }
+
     @Override
     public XContent content() {
         return SmileXContent.smileContent();
@@ -167,7 +171,7 @@ public class SmileXContentParser extends AbstractXContentParser {
         throw new IllegalStateException("No matching token for number_type [" + numberType + "]");
     }
 
-    private XContentParser.Token convertToken(JsonToken token) {
+    protected XContentParser.Token convertToken(JsonToken token) {
         if (token == null) {
             return null;
         }
@@ -194,6 +198,8 @@ public class SmileXContentParser extends AbstractXContentParser {
                 return XContentParser.Token.END_ARRAY;
             case VALUE_EMBEDDED_OBJECT:
                 return XContentParser.Token.VALUE_EMBEDDED_OBJECT;
+            case NOT_AVAILABLE:
+                return XContentParser.Token.NOT_AVAILABLE;
             default:
                 break;
         }
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.dataformat.xml.XmlFactory;
 import org.xbib.content.XContent;
 import org.xbib.content.XContentBuilder;
+import org.xbib.content.core.AbstractXContentGenerator;
 import org.xbib.content.core.DefaultXContentBuilder;
 import org.xbib.content.XContentGenerator;
 import org.xbib.content.XContentParser;
@@ -37,46 +38,39 @@ public class XmlXContent implements XContent {
 
     public static XContentBuilder contentBuilder() throws IOException {
         XContentBuilder builder = DefaultXContentBuilder.builder(xmlXContent());
-        if (builder instanceof DefaultXContentBuilder) {
-            DefaultXContentBuilder xContentBuilder = (DefaultXContentBuilder) builder;
-            if (xContentBuilder.generator() instanceof XmlXContentGenerator) {
-                ((XmlXContentGenerator) xContentBuilder.generator()).setParams(XmlXParams.getDefaultParams());
-            }
-        }
+        setParams(builder, XmlXParams.getDefaultParams());
         return builder;
     }
 
     public static XContentBuilder contentBuilder(OutputStream outputStream) throws IOException {
         XContentBuilder builder = DefaultXContentBuilder.builder(xmlXContent(), outputStream);
-        if (builder instanceof DefaultXContentBuilder) {
-            DefaultXContentBuilder xContentBuilder = (DefaultXContentBuilder) builder;
-            if (xContentBuilder.generator() instanceof XmlXContentGenerator) {
-                ((XmlXContentGenerator) xContentBuilder.generator()).setParams(XmlXParams.getDefaultParams());
-            }
-        }
+        setParams(builder, XmlXParams.getDefaultParams());
         return builder;
     }
 
     public static XContentBuilder contentBuilder(XmlXParams params) throws IOException {
         XContentBuilder builder = DefaultXContentBuilder.builder(xmlXContent(params.getXmlFactory()));
-        if (builder instanceof DefaultXContentBuilder) {
-            DefaultXContentBuilder xContentBuilder = (DefaultXContentBuilder) builder;
-            if (xContentBuilder.generator() instanceof XmlXContentGenerator) {
-                ((XmlXContentGenerator) xContentBuilder.generator()).setParams(params);
-            }
-        }
+        setParams(builder, params);
         return builder;
     }
 
     public static XContentBuilder contentBuilder(XmlXParams params, OutputStream outputStream) throws IOException {
         XContentBuilder builder = DefaultXContentBuilder.builder(xmlXContent(params.getXmlFactory()), outputStream);
+        setParams(builder, params);
+        return builder;
+    }
+
+    private static void setParams(XContentBuilder builder, XmlXParams params) {
         if (builder instanceof DefaultXContentBuilder) {
-            DefaultXContentBuilder xContentBuilder = (DefaultXContentBuilder) builder;
-            if (xContentBuilder.generator() instanceof XmlXContentGenerator) {
-                ((XmlXContentGenerator) xContentBuilder.generator()).setParams(params);
+            XContentGenerator generator = ((DefaultXContentBuilder) builder).generator();
+            // look through wrapping generators, for example for metrics
+            while (!(generator instanceof XmlXContentGenerator) && generator instanceof AbstractXContentGenerator) {
+                generator = ((AbstractXContentGenerator) generator).getGenerator();
+            }
+            if (generator instanceof XmlXContentGenerator) {
+                ((XmlXContentGenerator) generator).setParams(params);
             }
         }
-        return builder;
     }
 
     public static XmlXContent xmlXContent() {
@@ -99,6 +93,20 @@ public class XmlXContent implements XContent {
         return "xml";
     }
 
+    @Override
+    public byte[] leadingBytes() {
+        return new byte[] { '<' };
+    }
+
+    /**
+     * XML documents may span several lines, and there is no byte which can not occur within them.
+     * @return false
+     */
+    @Override
+    public boolean hasStreamSeparator() {
+        return false;
+    }
+
     @Override
     public XContentGenerator createGenerator(OutputStream outputStream) throws IOException {
         return new XmlXContentGenerator(xmlFactory.createGenerator(outputStream, JsonEncoding.UTF8));
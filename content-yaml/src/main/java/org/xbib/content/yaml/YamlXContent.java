@@ -52,6 +52,20 @@ public class YamlXContent implements XContent {
         return "yaml";
     }
 
+    @Override
+    public byte[] leadingBytes() {
+        return new byte[] { '-' };
+    }
+
+    /**
+     * YAML documents span several lines and are separated by a line, not a byte.
+     * @return false
+     */
+    @Override
+    public boolean hasStreamSeparator() {
+        return false;
+    }
+
     @Override
     public XContentGenerator createGenerator(OutputStream os) throws IOException {
         return new YamlXContentGenerator(yamlFactory.createGenerator(os, JsonEncoding.UTF8));
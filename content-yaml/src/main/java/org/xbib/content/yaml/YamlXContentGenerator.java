@@ -165,6 +165,16 @@ public class YamlXContentGenerator extends AbstractXContentGenerator {
             yamlGenerator.writeNumber(d);
         }
 
+        @Override
+        public boolean writesNumberText() {
+            return true;
+        }
+
+        @Override
+        public void writeNumber(char[] text, int offset, int len) throws IOException {
+            yamlGenerator.writeNumber(text, offset, len);
+        }
+
         @Override
         public void writeNumber(float f) throws IOException {
             yamlGenerator.writeNumber(f);